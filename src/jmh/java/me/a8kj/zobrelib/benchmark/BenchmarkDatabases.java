@@ -0,0 +1,141 @@
+package me.a8kj.zobrelib.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentials;
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentialsImpl;
+import me.a8kj.zobrelib.database.cycle.BaseDataBaseCycle;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.impl.HikariCPDatabaseCredentials;
+import me.a8kj.zobrelib.impl.SQLDatabase;
+
+/**
+ * Creates the in-memory H2 databases (MySQL mode) the benchmarks run against.
+ * 
+ * @author a8kj7sea
+ */
+final class BenchmarkDatabases {
+
+    /**
+     * The number of rows in the {@code players} table created by
+     * {@link #createPlayers(Database, int)}.
+     */
+    static final int PLAYERS = 10_000;
+
+    private BenchmarkDatabases() {
+    }
+
+    /**
+     * Creates the credentials of an in-memory database.
+     * 
+     * @param name     the name of the in-memory database.
+     * @param poolSize the maximum size of the connection pool.
+     * @return the credentials.
+     */
+    static DatabaseCredentials<HikariCPDatabaseCredentials> credentials(String name, int poolSize) {
+        DatabaseCredentials<HikariCPDatabaseCredentials> credentials = new DatabaseCredentialsImpl<>();
+        credentials.addCredential(HikariCPDatabaseCredentials.JDBC_URL, String.class,
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        credentials.addCredential(HikariCPDatabaseCredentials.USERNAME, String.class, "sa");
+        credentials.addCredential(HikariCPDatabaseCredentials.PASSWORD, String.class, "");
+        credentials.addCredential(HikariCPDatabaseCredentials.DRIVER_CLASS_NAME, String.class, "org.h2.Driver");
+        credentials.addCredential(HikariCPDatabaseCredentials.PORT, Integer.class, 0);
+        credentials.addCredential(HikariCPDatabaseCredentials.MAX_POOL_SIZE, Integer.class, poolSize);
+        return credentials;
+    }
+
+    /**
+     * Creates a database over an in-memory H2 database, without connecting it.
+     * 
+     * @param name     the name of the in-memory database.
+     * @param poolSize the maximum size of the connection pool.
+     * @return the database.
+     */
+    static SQLDatabase<Cycle> create(String name, int poolSize) {
+        SQLDatabase<Cycle> database = new SQLDatabase<>(name, new Cycle());
+        database.setCredentials(credentials(name, poolSize));
+        return database;
+    }
+
+    /**
+     * Creates and fills the {@code players(id, name, score)} table.
+     * 
+     * @param database the connected database.
+     * @param rows     the number of rows to insert.
+     */
+    static void createPlayers(Database<?> database, int rows) {
+        execute(database, "DROP TABLE IF EXISTS players");
+        execute(database, "CREATE TABLE players (id INT PRIMARY KEY, name VARCHAR(32), score BIGINT)");
+        execute(database, "INSERT INTO players SELECT X, 'player-' || MOD(X, 100), X * 7 FROM SYSTEM_RANGE(1, "
+                + rows + ")");
+    }
+
+    /**
+     * Executes a statement on a leased connection.
+     * 
+     * @param database the connected database.
+     * @param sql      the statement.
+     */
+    static void execute(Database<?> database, String sql) {
+        database.serve(new Execute(sql));
+    }
+
+    /**
+     * Disconnects a database if connected, which closes its connection pool.
+     * 
+     * @param database the database to shut down.
+     */
+    static void shutdown(SQLDatabase<?> database) {
+        if (database.isConnected())
+            database.disconnect();
+    }
+
+    /**
+     * Executes a single statement.
+     */
+    private static final class Execute implements DatabaseService {
+
+        private final String sql;
+
+        private Execute(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public void serve(Database<?> database) {
+            Connection connection = (Connection) database.getConnectionContainer().getConnection();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.execute();
+            } catch (SQLException e) {
+                throw new DatabaseExceptionBase("Error executing statement: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public boolean canServe(Database<?> database) {
+            return database.isConnected();
+        }
+    }
+
+    /**
+     * A database cycle that does nothing.
+     */
+    static final class Cycle extends BaseDataBaseCycle {
+
+        @Override
+        public void onConnect() {
+        }
+
+        @Override
+        public void onDisconnect() {
+        }
+
+        @Override
+        public void onRestart() {
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package me.a8kj.zobrelib.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentials;
+import me.a8kj.zobrelib.impl.HikariCPDatabaseCredentials;
+
+/**
+ * Measures credential lookups through
+ * {@link DatabaseCredentials#getCredential(Enum, Class)}.
+ * 
+ * @author a8kj7sea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CredentialsBenchmark {
+
+    private final DatabaseCredentials<HikariCPDatabaseCredentials> credentials = BenchmarkDatabases
+            .credentials("credentials", 8);
+
+    @Benchmark
+    public String getStringCredential() {
+        return credentials.getCredential(HikariCPDatabaseCredentials.JDBC_URL, String.class);
+    }
+
+    @Benchmark
+    public Integer getIntegerCredential() {
+        return credentials.getCredential(HikariCPDatabaseCredentials.MAX_POOL_SIZE, Integer.class);
+    }
+
+    @Benchmark
+    public Integer getMissingCredential() {
+        return credentials.getCredential(HikariCPDatabaseCredentials.STATEMENT_CACHE_SIZE, Integer.class);
+    }
+}
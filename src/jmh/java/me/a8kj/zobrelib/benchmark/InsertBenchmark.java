@@ -0,0 +1,78 @@
+package me.a8kj.zobrelib.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.a8kj.zobrelib.database.service.BatchWriteService;
+import me.a8kj.zobrelib.impl.SQLDatabase;
+
+/**
+ * Compares writing {@code rows} rows with one service call per row against a
+ * single {@link BatchWriteService} flush. Scores are per invocation, i.e. per
+ * {@code rows} rows.
+ * 
+ * @author a8kj7sea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+    private static final String INSERT = "INSERT INTO events (payload) VALUES (?)";
+
+    @Param({ "10", "100", "1000" })
+    private int rows;
+
+    private SQLDatabase<BenchmarkDatabases.Cycle> database;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabases.create("inserts", 8);
+        database.connect();
+        BenchmarkDatabases.execute(database,
+                "CREATE TABLE IF NOT EXISTS events (id BIGINT AUTO_INCREMENT PRIMARY KEY, payload VARCHAR(64))");
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        BenchmarkDatabases.execute(database, "TRUNCATE TABLE events");
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabases.shutdown(database);
+    }
+
+    @Benchmark
+    public void singleInserts() {
+        for (int row = 0; row < rows; row++) {
+            BatchWriteService insert = new BatchWriteService(INSERT, 1, 1, TimeUnit.SECONDS);
+            insert.add("event-" + row);
+            database.serve(insert);
+        }
+    }
+
+    @Benchmark
+    public void batchedInserts() {
+        BatchWriteService batch = new BatchWriteService(INSERT, rows, 1, TimeUnit.SECONDS);
+        for (int row = 0; row < rows; row++)
+            batch.add("event-" + row);
+        database.serve(batch);
+    }
+}
@@ -0,0 +1,57 @@
+package me.a8kj.zobrelib.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.a8kj.zobrelib.impl.SQLDatabase;
+
+/**
+ * Measures the cost of connecting and restarting a {@link SQLDatabase}, which
+ * includes creating its HikariCP pool and closing the replaced one.
+ * 
+ * @author a8kj7sea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LifecycleBenchmark {
+
+    private SQLDatabase<BenchmarkDatabases.Cycle> database;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabases.create("lifecycle", 4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabases.shutdown(database);
+    }
+
+    @Benchmark
+    public void connectDisconnect() {
+        database.connect();
+        BenchmarkDatabases.shutdown(database);
+    }
+
+    @Benchmark
+    public void restart() {
+        if (!database.isConnected())
+            database.connect();
+        database.restart();
+    }
+}
@@ -0,0 +1,42 @@
+package me.a8kj.zobrelib.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+
+/**
+ * Selects the name of one player by primary key.
+ * 
+ * @author a8kj7sea
+ */
+final class PlayerNameQuery implements DatabaseQuery<String> {
+
+    private final int id;
+
+    PlayerNameQuery(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public String serve(Database<?> database) {
+        Connection connection = (Connection) database.getConnectionContainer().getConnection();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT name FROM players WHERE id = ?")) {
+            statement.setInt(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Error executing select statement: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean canServe(Database<?> database) {
+        return database.isConnected();
+    }
+}
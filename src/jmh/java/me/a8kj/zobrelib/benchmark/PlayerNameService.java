@@ -0,0 +1,32 @@
+package me.a8kj.zobrelib.benchmark;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+
+/**
+ * The {@link PlayerNameQuery} as a void {@link DatabaseService}, keeping the
+ * selected name so the benchmark can consume it.
+ * 
+ * @author a8kj7sea
+ */
+final class PlayerNameService implements DatabaseService {
+
+    private final PlayerNameQuery query;
+    @Getter
+    private volatile String name;
+
+    PlayerNameService(int id) {
+        this.query = new PlayerNameQuery(id);
+    }
+
+    @Override
+    public void serve(Database<?> database) {
+        name = query.serve(database);
+    }
+
+    @Override
+    public boolean canServe(Database<?> database) {
+        return database.isConnected();
+    }
+}
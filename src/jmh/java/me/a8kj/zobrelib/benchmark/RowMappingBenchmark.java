@@ -0,0 +1,118 @@
+package me.a8kj.zobrelib.benchmark;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.stream.mapping.RowView;
+import me.a8kj.zobrelib.database.stream.mapping.ScanQuery;
+import me.a8kj.zobrelib.impl.SQLDatabase;
+
+/**
+ * Compares scanning the {@code players} table with by-name, boxed mapping into
+ * objects against {@link ScanQuery} with a reused {@link RowView}. Run with
+ * {@code -prof gc} to compare the allocation rate per row.
+ * 
+ * @author a8kj7sea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private static final String SELECT = "SELECT id, name, score FROM players";
+
+    private SQLDatabase<BenchmarkDatabases.Cycle> database;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabases.create("mapping", 4);
+        database.connect();
+        BenchmarkDatabases.createPlayers(database, BenchmarkDatabases.PLAYERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabases.shutdown(database);
+    }
+
+    @Benchmark
+    public long naiveMapping() {
+        long total = 0;
+        for (Player player : database.serve(new NaivePlayersQuery()))
+            total += player.score + player.name.length();
+        return total;
+    }
+
+    @Benchmark
+    public void rowViewScan(Blackhole blackhole) {
+        long[] total = new long[1];
+        database.serve(ScanQuery.of(SELECT, row -> total[0] += row.getLong(3) + row.getStringCode(2)));
+        blackhole.consume(total[0]);
+    }
+
+    /**
+     * A mapped row of the {@code players} table.
+     */
+    private static final class Player {
+        private final Integer id;
+        private final String name;
+        private final Long score;
+
+        private Player(Integer id, String name, Long score) {
+            this.id = id;
+            this.name = name;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Maps every row into a {@link Player} by column name with boxed values.
+     */
+    private static final class NaivePlayersQuery implements DatabaseQuery<List<Player>> {
+
+        @Override
+        public List<Player> serve(Database<?> database) {
+            Connection connection = (Connection) database.getConnectionContainer().getConnection();
+            List<Player> players = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT);
+                    ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    players.add(new Player(resultSet.getInt("id"), resultSet.getString("name"),
+                            resultSet.getLong("score")));
+                }
+            } catch (SQLException e) {
+                throw new DatabaseExceptionBase("Error executing select statement: " + e.getMessage(), e);
+            }
+            return players;
+        }
+
+        @Override
+        public boolean canServe(Database<?> database) {
+            return database.isConnected();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package me.a8kj.zobrelib.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.a8kj.zobrelib.impl.SQLDatabase;
+
+/**
+ * Measures the synchronous serve path: borrowing a pooled connection, running a
+ * primary key lookup and returning the connection.
+ * 
+ * @author a8kj7sea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServeBenchmark {
+
+    private SQLDatabase<BenchmarkDatabases.Cycle> database;
+    private PlayerNameService service;
+    private PlayerNameQuery query;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabases.create("serve", 8);
+        database.connect();
+        BenchmarkDatabases.createPlayers(database, BenchmarkDatabases.PLAYERS);
+        service = new PlayerNameService(42);
+        query = new PlayerNameQuery(42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabases.shutdown(database);
+    }
+
+    @Benchmark
+    public String serveService() {
+        database.serve(service);
+        return service.getName();
+    }
+
+    @Benchmark
+    public String serveQuery() {
+        return database.serve(query);
+    }
+}
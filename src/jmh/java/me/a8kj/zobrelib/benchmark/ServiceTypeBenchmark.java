@@ -0,0 +1,61 @@
+package me.a8kj.zobrelib.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import me.a8kj.zobrelib.database.service.ServiceWithType;
+import me.a8kj.zobrelib.impl.SQLDatabase;
+
+/**
+ * Measures the round trip of a primary key lookup through every
+ * {@link ServiceWithType} execution mode, from submission until the returned
+ * future completes, with several callers competing for the pool.
+ * 
+ * @author a8kj7sea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ServiceTypeBenchmark {
+
+    @Param({ "SYNC", "ASYNC", "TIMEOUT", "RETRY" })
+    private ServiceWithType type;
+
+    private SQLDatabase<BenchmarkDatabases.Cycle> database;
+    private PlayerNameQuery query;
+
+    @Setup
+    public void setUp() {
+        database = BenchmarkDatabases.create("types", 8);
+        database.connect();
+        BenchmarkDatabases.createPlayers(database, BenchmarkDatabases.PLAYERS);
+        query = new PlayerNameQuery(42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkDatabases.shutdown(database);
+    }
+
+    @Benchmark
+    public String serveWithType() {
+        return database.serve(query, type, 1, TimeUnit.SECONDS, 3, 10).join();
+    }
+}
@@ -1,17 +1,40 @@
 package me.a8kj.zobrelib.database;
 
+import java.sql.SQLException;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import me.a8kj.zobrelib.database.attributes.ConnectionContainer;
 import me.a8kj.zobrelib.database.attributes.CredentialsKey;
 import me.a8kj.zobrelib.database.attributes.DatabaseCredentials;
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+import me.a8kj.zobrelib.database.attributes.lease.impl.SimpleConnectionLease;
+import me.a8kj.zobrelib.database.cache.QueryResultCache;
 import me.a8kj.zobrelib.database.cycle.DatabaseCycle;
 import me.a8kj.zobrelib.database.enums.ConnectionStatus;
+import me.a8kj.zobrelib.database.exception.impl.CircuitOpenException;
+import me.a8kj.zobrelib.database.exception.impl.RetryExhaustedException;
+import me.a8kj.zobrelib.database.health.HealthMonitor;
+import me.a8kj.zobrelib.database.metrics.MetricsRecorder;
+import me.a8kj.zobrelib.database.pipeline.QueryPipeline;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
 import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.database.service.ServiceCall;
 import me.a8kj.zobrelib.database.service.ServiceWithType;
+import me.a8kj.zobrelib.database.service.breaker.CircuitBreaker;
+import me.a8kj.zobrelib.database.service.bulkhead.Bulkhead;
+import me.a8kj.zobrelib.database.service.bulkhead.Bulkheads;
+import me.a8kj.zobrelib.database.service.retry.RetryClassifier;
+import me.a8kj.zobrelib.database.service.retry.RetryEngine;
+import me.a8kj.zobrelib.database.service.retry.RetryPolicy;
+import me.a8kj.zobrelib.database.stream.RowCursor;
+import me.a8kj.zobrelib.database.stream.StreamingQuery;
+import me.a8kj.zobrelib.database.stream.impl.ResultSetCursor;
 
 /**
  * Interface representing a database connection and operations on it.
@@ -43,12 +66,13 @@ public interface Database<U extends DatabaseCycle> {
     ConnectionStatus getStatus();
 
     /**
-     * Checks if the database is currently connected.
+     * Checks if the database is currently connected, i.e. accepts services.
      * 
      * @return true if the database is connected, false otherwise.
+     * @see ConnectionStatus#isServing()
      */
     default boolean isConnected() {
-        return getStatus() == ConnectionStatus.CONNECTED;
+        return getStatus().isServing();
     }
 
     /**
@@ -74,6 +98,25 @@ public interface Database<U extends DatabaseCycle> {
      */
     <C> ConnectionContainer<C> getConnectionContainer();
 
+    /**
+     * Borrows a connection scoped to a single service call.
+     * <p>
+     * While the returned lease is open, the borrowed connection is bound to the
+     * current thread and is what {@link ConnectionContainer#getConnection()}
+     * returns. Implementations backed by a connection pool should override this
+     * method to hand out a dedicated pooled connection per call; the default
+     * implementation shares the container's connection and releases nothing.
+     * </p>
+     * 
+     * @param <C> The type of the connection.
+     * @return An open lease that must be closed once the service call completes.
+     */
+    default <C> ConnectionLease<C> borrowConnection() {
+        ConnectionContainer<C> container = getConnectionContainer();
+        return new SimpleConnectionLease<>(container, container.getConnection(), connection -> {
+        });
+    }
+
     /**
      * Updates the connection status of the database.
      * 
@@ -81,6 +124,22 @@ public interface Database<U extends DatabaseCycle> {
      */
     void updateConnectionStatus(ConnectionStatus status);
 
+    /**
+     * Updates the connection status of the database only if it still has the
+     * expected value. Databases whose lifecycle runs concurrently with status
+     * updates override this method with an atomic implementation.
+     * 
+     * @param expected the status the database must have.
+     * @param status   The new status of the database connection.
+     * @return true if the status was updated.
+     */
+    default boolean compareAndSetStatus(ConnectionStatus expected, ConnectionStatus status) {
+        if (getStatus() != expected)
+            return false;
+        updateConnectionStatus(status);
+        return true;
+    }
+
     /**
      * Establishes a connection to the database.
      */
@@ -98,15 +157,156 @@ public interface Database<U extends DatabaseCycle> {
 
     /**
      * Executes a service on the database if it can be served.
+     * <p>
+     * The service runs on a connection borrowed through
+     * {@link #borrowConnection()}, which is returned once the service completes.
+     * </p>
      * 
      * @param service The service to be executed on the database.
      * @throws IllegalStateException If the service cannot be executed due to the
      *                               database state.
+     * @throws CircuitOpenException  If the circuit breaker of the database is
+     *                               open.
      */
     default void serve(DatabaseService service) {
-        if (!service.canServe(this))
-            throw new IllegalStateException("b8rsh a3ml serve lhay al database!");
-        service.serve(this);
+        // the query path checks the circuit breaker and canServe once
+        serve(DatabaseQuery.of(service));
+    }
+
+    /**
+     * Executes a query on the database if it can be served and returns its
+     * result.
+     * <p>
+     * The query runs on a connection borrowed through
+     * {@link #borrowConnection()}, which is returned once the query completes.
+     * </p>
+     * 
+     * @param <R>   The type of the query result.
+     * @param query The query to be executed on the database.
+     * @return The result of the query.
+     * @throws IllegalStateException If the query cannot be executed due to the
+     *                               database state.
+     */
+    default <R> R serve(DatabaseQuery<R> query) {
+        return serve(query, ServiceCall.unbounded());
+    }
+
+    /**
+     * Executes a query on the database as part of the given call.
+     * <p>
+     * The lease the query runs on is attached to the call for the duration of the
+     * query, so that cancelling the call (e.g. on timeout) cancels the work running
+     * on the leased connection.
+     * </p>
+     * <p>
+     * If the database has a {@link QueryResultCache}, cacheable queries are
+     * answered from it and successful table writes invalidate it.
+     * </p>
+     * 
+     * @param <R>   The type of the query result.
+     * @param query The query to be executed on the database.
+     * @param call  The call tracking this execution.
+     * @return The result of the query.
+     * @throws IllegalStateException If the query cannot be executed due to the
+     *                               database state, or the call was cancelled.
+     * @throws CircuitOpenException  If the circuit breaker of the database is
+     *                               open.
+     */
+    default <R> R serve(DatabaseQuery<R> query, ServiceCall call) {
+        CircuitBreaker breaker = getCircuitBreaker();
+        if (breaker != null)
+            breaker.acquirePermission();
+        if (!query.canServe(this))
+            throw new IllegalStateException("Cannot serve this database!");
+        if (call.isCancelled())
+            throw new IllegalStateException("Service call was cancelled before it started!");
+
+        Supplier<R> execution = () -> {
+            MetricsRecorder metrics = getMetrics();
+            long startNanos = System.nanoTime();
+            try (ConnectionLease<?> lease = borrowConnection()) {
+                lease.setServiceType(query.getServiceType());
+                call.attach(lease);
+                try {
+                    R result = query.serve(this);
+                    if (breaker != null)
+                        breaker.onSuccess();
+                    metrics.recordExecution(getName(), query.getServiceType(), System.nanoTime() - startNanos, true);
+                    return result;
+                } finally {
+                    call.detach();
+                }
+            } catch (RuntimeException e) {
+                if (breaker != null)
+                    breaker.onFailure(e);
+                metrics.recordExecution(getName(), query.getServiceType(), System.nanoTime() - startNanos, false);
+                SQLException cause = RetryClassifier.findSQLException(e);
+                metrics.incrementError(getName(), query.getServiceType(), cause == null ? null : cause.getSQLState());
+                throw e;
+            }
+        };
+        QueryResultCache cache = getResultCache();
+        return cache == null ? execution.get() : cache.serve(query, execution);
+    }
+
+    /**
+     * Opens a cursor over the rows of a streaming query.
+     * <p>
+     * The cursor holds a connection borrowed through {@link #borrowConnection()}
+     * and reads rows lazily with the fetch size of the query. The connection is
+     * returned when the cursor is closed, which happens automatically once every
+     * row has been read.
+     * </p>
+     * 
+     * @param <T>   The type of the mapped rows.
+     * @param query The query to be streamed.
+     * @return An open cursor that must be closed if not fully read.
+     * @throws IllegalStateException If the database is not connected.
+     * @throws CircuitOpenException  If the circuit breaker of the database is
+     *                               open.
+     * @throws NullPointerException  If {@code query} is {@code null}.
+     */
+    default <T> RowCursor<T> openCursor(StreamingQuery<T> query) {
+        Objects.requireNonNull(query, "query");
+        CircuitBreaker breaker = getCircuitBreaker();
+        if (breaker != null)
+            breaker.acquirePermission();
+        if (!isConnected())
+            throw new IllegalStateException("Cannot serve this database!");
+
+        ConnectionLease<?> lease = borrowConnection();
+        try {
+            lease.setServiceType(query.getClass());
+            RowCursor<T> cursor = ResultSetCursor.open(lease, query);
+            if (breaker != null)
+                breaker.onSuccess();
+            return cursor;
+        } catch (RuntimeException e) {
+            lease.close();
+            if (breaker != null)
+                breaker.onFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the rows of a query. The returned stream holds a connection until
+     * it is fully consumed or closed, so it should be used in a
+     * try-with-resources block:
+     *
+     * <pre>
+     * try (Stream&lt;String&gt; names = database.stream(query)) {
+     *     names.forEach(System.out::println);
+     * }
+     * </pre>
+     * 
+     * @param <T>   The type of the mapped rows.
+     * @param query The query to be streamed.
+     * @return A lazy stream over the rows of the query.
+     * @see #openCursor(StreamingQuery)
+     */
+    default <T> Stream<T> stream(StreamingQuery<T> query) {
+        return openCursor(query).stream();
     }
 
     /**
@@ -126,12 +326,13 @@ public interface Database<U extends DatabaseCycle> {
     default CompletableFuture<Void> serve(DatabaseService service, ServiceWithType type,
             long timeout, TimeUnit unit,
             int maxRetries, long retryDelay) {
+        checkCircuitBreaker();
         if (!service.canServe(this))
             throw new IllegalStateException("Cannot serve this database!");
 
         switch (type) {
             case SYNC:
-                service.serve(this);
+                serve(service);
                 return CompletableFuture.completedFuture(null);
             case ASYNC:
                 return service.serveAsync(this);
@@ -144,65 +345,234 @@ public interface Database<U extends DatabaseCycle> {
         }
     }
 
+    /**
+     * Executes a query on the database based on the given execution type.
+     *
+     * @param <R>        The type of the query result.
+     * @param query      The query to be executed on the database.
+     * @param type       The type of execution (SYNC, ASYNC, TIMEOUT, RETRY).
+     * @param timeout    The timeout duration (only used if type is TIMEOUT).
+     * @param unit       The time unit for the timeout (only used if type is
+     *                   TIMEOUT).
+     * @param maxRetries The maximum number of retries (only used if type is RETRY).
+     * @param retryDelay The delay between retries in the given time unit (only used
+     *                   if type is RETRY).
+     * @return A {@link CompletableFuture} completed with the query result.
+     * @throws IllegalStateException If the query cannot be executed due to the
+     *                               database state.
+     */
+    default <R> CompletableFuture<R> serve(DatabaseQuery<R> query, ServiceWithType type,
+            long timeout, TimeUnit unit,
+            int maxRetries, long retryDelay) {
+        checkCircuitBreaker();
+        if (!query.canServe(this))
+            throw new IllegalStateException("Cannot serve this database!");
+
+        switch (type) {
+            case SYNC:
+                return CompletableFuture.completedFuture(serve(query));
+            case ASYNC:
+                return query.serveAsync(this);
+            case TIMEOUT:
+                return query.serveAsyncWithTimeout(this, timeout, unit);
+            case RETRY:
+                return serveAsyncWithRetry(query, maxRetries, retryDelay, unit);
+            default:
+                throw new IllegalArgumentException("Invalid service execution type!");
+        }
+    }
+
     /**
      * Asynchronously serves a database service with retry logic in case of failure.
      * 
-     * This method attempts to execute the {@link DatabaseService#serve(Database)}
-     * method
-     * asynchronously. If the execution fails (throws an exception), it retries the
-     * operation
-     * up to the specified maximum number of retries, with a delay between attempts.
-     * The retries
-     * will be attempted on a separate scheduler thread.
-     * 
      * @param service    The {@link DatabaseService} instance that will be served.
      * @param maxRetries The maximum number of retry attempts in case of failure.
      * @param retryDelay The delay between retry attempts.
      * @param unit       The time unit for the retry delay (e.g.,
      *                   {@link TimeUnit#SECONDS}).
+     * @return A {@link CompletableFuture} completed with {@code null} once the
+     *         service succeeds.
+     * @see #serveAsyncWithRetry(DatabaseQuery, int, long, TimeUnit)
+     */
+    default CompletableFuture<Void> serveAsyncWithRetry(DatabaseService service, int maxRetries,
+            long retryDelay, TimeUnit unit) {
+        return serveAsyncWithRetry(DatabaseQuery.of(service), maxRetries, retryDelay, unit);
+    }
+
+    /**
+     * Asynchronously serves a database query with retry logic in case of failure.
+     * 
+     * This method attempts to execute the {@link DatabaseQuery#serve(Database)}
+     * method
+     * asynchronously. If the execution fails with a retryable error, it retries
+     * the operation up to the specified maximum number of attempts, with an
+     * exponential, jittered backoff starting at {@code retryDelay}. No thread is
+     * held between attempts.
+     * 
+     * @param <R>        The type of the query result.
+     * @param query      The {@link DatabaseQuery} instance that will be served.
+     * @param maxRetries The maximum number of attempts in case of failure.
+     * @param retryDelay The delay before the first retry.
+     * @param unit       The time unit for the retry delay (e.g.,
+     *                   {@link TimeUnit#SECONDS}).
      * @return A {@link CompletableFuture} representing the asynchronous result of
      *         the operation.
-     *         If the operation succeeds, the future will be completed with a
-     *         {@code null} value.
+     *         If the operation succeeds, the future will be completed with the
+     *         query result.
      *         If the operation fails after the specified retries, the future will
      *         be completed
-     *         exceptionally with a {@link RuntimeException}.
+     *         exceptionally with a {@link RetryExhaustedException}.
      * 
      * @throws IllegalArgumentException if {@code maxRetries} is less than or equal
      *                                  to 0.
-     * @throws NullPointerException     if {@code service} is {@code null}.
+     * @throws NullPointerException     if {@code query} is {@code null}.
+     * @see RetryPolicy#exponential(int, long, TimeUnit)
      */
-    default CompletableFuture<Void> serveAsyncWithRetry(DatabaseService service, int maxRetries,
+    default <R> CompletableFuture<R> serveAsyncWithRetry(DatabaseQuery<R> query, int maxRetries,
             long retryDelay, TimeUnit unit) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-
-        Runnable attemptExecution = new Runnable() {
-            private int attempts = 0;
-
-            @Override
-            public void run() {
-                DatabaseService.EXECUTOR.submit(() -> {
-                    try {
-                        service.serve(Database.this);
-                        future.complete(null);
-                    } catch (Exception e) {
-                        attempts++;
-                        if (attempts >= maxRetries) {
-                            future.completeExceptionally(
-                                    new RuntimeException("Service execution failed after retries", e));
-                        } else {
-                            scheduler.schedule(this, retryDelay, unit);
-                        }
-                    }
-                });
-            }
-        };
+        return serveAsyncWithRetry(query, RetryPolicy.exponential(maxRetries, retryDelay, unit));
+    }
+
+    /**
+     * Asynchronously serves a database query, retrying failures according to the
+     * given policy.
+     * 
+     * @param <R>    The type of the query result.
+     * @param query  The {@link DatabaseQuery} instance that will be served.
+     * @param policy The retry policy.
+     * @return A {@link CompletableFuture} completed with the query result, or
+     *         exceptionally with the first fatal failure or a
+     *         {@link RetryExhaustedException}.
+     * @throws NullPointerException if {@code query} is {@code null}.
+     */
+    default <R> CompletableFuture<R> serveAsyncWithRetry(DatabaseQuery<R> query, RetryPolicy policy) {
+        Objects.requireNonNull(query, "query");
+        return RetryEngine.execute(() -> serve(query), executorFor(query), policy,
+                failure -> getMetrics().incrementRetry(getName(), query.getServiceType()));
+    }
 
-        attemptExecution.run();
-        future.whenComplete((result, ex) -> scheduler.shutdown());
+    /**
+     * Retrieves the circuit breaker guarding the services of this database.
+     * 
+     * @return The circuit breaker, or null if the database has none.
+     */
+    default CircuitBreaker getCircuitBreaker() {
+        return null;
+    }
 
-        return future;
+    /**
+     * Retrieves the recorder receiving the metrics of this database and its
+     * services.
+     * 
+     * @return The metrics recorder, {@link MetricsRecorder#NOOP} by default.
+     */
+    default MetricsRecorder getMetrics() {
+        return MetricsRecorder.NOOP;
+    }
+
+    /**
+     * Retrieves the cache serving the results of cacheable queries on this
+     * database.
+     * 
+     * @return The result cache, or null if results are not cached.
+     */
+    default QueryResultCache getResultCache() {
+        return null;
+    }
+
+    /**
+     * Retrieves the monitor checking the health of this database in the
+     * background.
+     * 
+     * @return The health monitor, or null if the database has none.
+     */
+    default HealthMonitor getHealthMonitor() {
+        return null;
+    }
+
+    /**
+     * Retrieves the pipeline batching the asynchronous
+     * {@link me.a8kj.zobrelib.database.pipeline.PipelinedQuery reads} on this
+     * database.
+     * 
+     * @return The query pipeline, or null if reads are not batched.
+     */
+    default QueryPipeline getQueryPipeline() {
+        return null;
+    }
+
+    /**
+     * Rejects the call right away if the circuit breaker of this database is
+     * open, so callers shed load instead of waiting on a failing database.
+     * 
+     * @throws CircuitOpenException If the circuit breaker is open.
+     */
+    default void checkCircuitBreaker() {
+        CircuitBreaker breaker = getCircuitBreaker();
+        if (breaker != null)
+            breaker.acquirePermission();
+    }
+
+    /**
+     * Retrieves the executor that asynchronous services and queries on this
+     * database run on.
+     * 
+     * @return The executor of this database; the shared
+     *         {@link DatabaseService#EXECUTOR} by default.
+     */
+    default ExecutorService getExecutor() {
+        return DatabaseService.EXECUTOR;
+    }
+
+    /**
+     * Retrieves the executor a query runs on: the executor of this database,
+     * limited by the query type's bulkhead if one is configured in
+     * {@link Bulkheads}. Tasks report their queue wait to {@link #getMetrics()}
+     * unless metrics are disabled.
+     * 
+     * @param query The query to run.
+     * @return The executor to submit the query to.
+     */
+    default Executor executorFor(DatabaseQuery<?> query) {
+        Bulkhead bulkhead = Bulkheads.find(getName(), query.getServiceType());
+        Executor executor = bulkhead == null ? getExecutor() : bulkhead.executor(getExecutor());
+
+        MetricsRecorder metrics = getMetrics();
+        if (metrics == MetricsRecorder.NOOP)
+            return executor;
+        return task -> {
+            long submittedNanos = System.nanoTime();
+            executor.execute(() -> {
+                metrics.recordQueueWait(getName(), query.getServiceType(), System.nanoTime() - submittedNanos);
+                task.run();
+            });
+        };
+    }
+
+    /**
+     * Runs work for a query asynchronously on the executor returned by
+     * {@link #executorFor(DatabaseQuery)}. While the {@link HealthMonitor} of
+     * this database is reconnecting it, the work is parked and submitted once the
+     * database serves again.
+     * 
+     * @param <R>   The type of the query result.
+     * @param query The query the work belongs to.
+     * @param work  The work to run.
+     * @return A {@link CompletableFuture} completed with the result of the work,
+     *         or exceptionally if the work was rejected (e.g. by a full
+     *         bulkhead) or the reconnect did not complete in time.
+     */
+    default <R> CompletableFuture<R> submit(DatabaseQuery<R> query, Supplier<R> work) {
+        HealthMonitor monitor = getHealthMonitor();
+        if (monitor != null && monitor.isReconnecting())
+            return monitor.park(() -> CompletableFuture.supplyAsync(work, executorFor(query)));
+        try {
+            return CompletableFuture.supplyAsync(work, executorFor(query));
+        } catch (RuntimeException e) {
+            CompletableFuture<R> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
     }
 
     /**
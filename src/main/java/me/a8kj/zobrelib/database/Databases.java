@@ -0,0 +1,111 @@
+package me.a8kj.zobrelib.database;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utilities operating on several databases at once.
+ * 
+ * @author a8kj7sea
+ */
+public final class Databases {
+
+    /**
+     * The maximum number of databases connected at the same time.
+     */
+    public static final int MAX_PARALLEL_CONNECTS = 16;
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private Databases() {
+    }
+
+    /**
+     * Connects databases in parallel.
+     * 
+     * @param databases the databases to connect.
+     * @return the failure of every database that failed to connect, empty if all
+     *         connected.
+     * @see #connectAll(Collection)
+     */
+    public static Map<Database<?>, RuntimeException> connectAll(Database<?>... databases) {
+        return connectAll(Arrays.asList(databases));
+    }
+
+    /**
+     * Connects databases in parallel, so that startup takes as long as the
+     * slowest database instead of the sum of all of them.
+     * <p>
+     * Connecting blocks on the network, so the databases are connected on short
+     * lived threads of their own rather than on a service executor. The method
+     * returns once every database is connected or has failed; databases that
+     * connected stay connected even if others failed.
+     * </p>
+     * 
+     * <pre>
+     * Map&lt;Database&lt;?&gt;, RuntimeException&gt; failures = Databases.connectAll(players, economy, logs);
+     * failures.forEach((database, failure) -&gt; logger.severe(database.getName() + ": " + failure.getMessage()));
+     * </pre>
+     * 
+     * @param databases the databases to connect.
+     * @return the failure of every database that failed to connect, in the order
+     *         of {@code databases}, empty if all connected.
+     */
+    public static Map<Database<?>, RuntimeException> connectAll(Collection<? extends Database<?>> databases) {
+        Map<Database<?>, RuntimeException> failures = new LinkedHashMap<>();
+        if (databases.size() <= 1) {
+            for (Database<?> database : databases)
+                connect(database, failures);
+            return failures;
+        }
+
+        ExecutorService connectors = Executors.newFixedThreadPool(Math.min(databases.size(), MAX_PARALLEL_CONNECTS),
+                task -> {
+                    Thread thread = new Thread(task, "zobrelib-connect-" + THREAD_IDS.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            Map<Database<?>, Future<?>> connects = new LinkedHashMap<>();
+            for (Database<?> database : databases)
+                connects.put(database, connectors.submit(database::connect));
+
+            boolean interrupted = false;
+            for (Map.Entry<Database<?>, Future<?>> connect : connects.entrySet()) {
+                while (true) {
+                    try {
+                        connect.getValue().get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        failures.put(connect.getKey(),
+                                cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause));
+                        break;
+                    }
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        } finally {
+            connectors.shutdown();
+        }
+        return failures;
+    }
+
+    private static void connect(Database<?> database, Map<Database<?>, RuntimeException> failures) {
+        try {
+            database.connect();
+        } catch (RuntimeException e) {
+            failures.put(database, e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package me.a8kj.zobrelib.database.attributes;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -7,7 +8,11 @@ import lombok.Setter;
  * A container class for holding a connection of type {@link C}.
  * <p>
  * This class is used to store and retrieve a connection object. The type of the
- * connection is specified by {@link C}.
+ * connection is specified by {@link C}. A connection can additionally be bound
+ * to the current thread (see
+ * {@link me.a8kj.zobrelib.database.attributes.lease.ConnectionLease}), in which
+ * case {@link #getConnection()} returns the bound connection instead of the
+ * shared one.
  * </p>
  * 
  * @param <C> the type of the connection (e.g., {@link java.sql.Connection})
@@ -17,4 +22,43 @@ import lombok.Setter;
 @Setter
 public class ConnectionContainer<C> {
     private C connection;
+
+    @Getter(AccessLevel.NONE)
+    private final ThreadLocal<C> boundConnection = new ThreadLocal<>();
+
+    /**
+     * Retrieves the connection bound to the current thread, or the shared
+     * connection if none is bound.
+     * 
+     * @return the connection visible to the current thread
+     */
+    public C getConnection() {
+        C bound = boundConnection.get();
+        return bound != null ? bound : connection;
+    }
+
+    /**
+     * Binds a connection to the current thread.
+     * 
+     * @param connection the connection to bind
+     * @return the connection previously bound to the current thread, or null
+     */
+    public C bind(C connection) {
+        C previous = boundConnection.get();
+        boundConnection.set(connection);
+        return previous;
+    }
+
+    /**
+     * Restores a previous thread binding returned by {@link #bind(Object)}.
+     * 
+     * @param previous the previously bound connection, or null to unbind
+     */
+    public void restore(C previous) {
+        if (previous == null) {
+            boundConnection.remove();
+        } else {
+            boundConnection.set(previous);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package me.a8kj.zobrelib.database.attributes.lease;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a connection borrowed from a database for the duration of a single
+ * service call.
+ * <p>
+ * While a lease is open, the connection it holds is bound to the borrowing
+ * thread, so services reading
+ * {@link me.a8kj.zobrelib.database.attributes.ConnectionContainer#getConnection()}
+ * transparently receive the leased connection. Closing the lease unbinds the
+ * connection and hands it back to its owner (e.g. the connection pool).
+ * </p>
+ * 
+ * @param <C> the type of the connection (e.g., {@link java.sql.Connection})
+ * @author a8kj7sea
+ */
+public interface ConnectionLease<C> extends AutoCloseable {
+
+    /**
+     * Retrieves the leased connection.
+     * 
+     * @return the connection held by this lease
+     */
+    C getConnection();
+
+    /**
+     * Checks whether this lease has already been returned.
+     * 
+     * @return true if the lease has been closed, false otherwise
+     */
+    boolean isClosed();
+
+    /**
+     * Checks whether the leased connection is still usable. Implementations that
+     * cannot validate their connection report it as valid.
+     * 
+     * @param timeoutSeconds the maximum time to wait for the validation.
+     * @return true if the connection is valid.
+     */
+    default boolean isValid(int timeoutSeconds) {
+        return true;
+    }
+
+    /**
+     * Limits how long each operation started on the leased connection may run.
+     * Implementations that cannot enforce a timeout ignore it.
+     * 
+     * @param timeout the maximum execution time.
+     * @param unit    the time unit of the timeout.
+     */
+    default void setTimeout(long timeout, TimeUnit unit) {
+    }
+
+    /**
+     * Cancels the operations currently running on the leased connection.
+     * Implementations that cannot cancel work ignore the request.
+     */
+    default void cancel() {
+    }
+
+    /**
+     * Records the type of the service the lease was borrowed for, e.g. to
+     * attribute traced statements. Implementations that do not use it ignore it.
+     * 
+     * @param serviceType the type of the service.
+     */
+    default void setServiceType(Class<?> serviceType) {
+    }
+
+    /**
+     * Unbinds the connection from the borrowing thread while keeping it leased,
+     * so that the lease can be closed later from any thread. Must be called on
+     * the borrowing thread; implementations that do not bind their connection
+     * ignore the request.
+     */
+    default void unbind() {
+    }
+
+    /**
+     * Returns the leased connection to its owner. Calling this method more than
+     * once has no effect.
+     */
+    @Override
+    void close();
+}
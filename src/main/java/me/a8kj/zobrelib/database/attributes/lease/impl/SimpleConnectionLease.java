@@ -0,0 +1,67 @@
+package me.a8kj.zobrelib.database.attributes.lease.impl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import me.a8kj.zobrelib.database.attributes.ConnectionContainer;
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+
+/**
+ * A simple implementation of the {@link ConnectionLease} interface.
+ * <p>
+ * The lease binds its connection to the given {@link ConnectionContainer} for
+ * the current thread on creation, and restores the previous binding before
+ * handing the connection to the release callback when closed, unless the lease
+ * was {@link #unbind() unbound} earlier.
+ * </p>
+ * 
+ * @param <C> the type of the connection
+ * @author a8kj7sea
+ */
+public class SimpleConnectionLease<C> implements ConnectionLease<C> {
+
+    private final ConnectionContainer<C> container;
+    private final C connection;
+    private final C previous;
+    private final Consumer<C> release;
+    private final AtomicBoolean bound = new AtomicBoolean(true);
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * Creates a new lease and binds the connection to the current thread.
+     * 
+     * @param container  the container the connection is bound to
+     * @param connection the leased connection
+     * @param release    the callback returning the connection to its owner
+     */
+    public SimpleConnectionLease(ConnectionContainer<C> container, C connection, Consumer<C> release) {
+        this.container = container;
+        this.connection = connection;
+        this.release = release;
+        this.previous = container.bind(connection);
+    }
+
+    @Override
+    public C getConnection() {
+        return connection;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public void unbind() {
+        if (bound.compareAndSet(true, false))
+            container.restore(previous);
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true))
+            return;
+        unbind();
+        release.accept(connection);
+    }
+}
@@ -0,0 +1,65 @@
+package me.a8kj.zobrelib.database.cache;
+
+import java.util.Collection;
+import java.util.List;
+
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+
+/**
+ * A {@link DatabaseQuery} whose results may be served from a
+ * {@link QueryResultCache}.
+ * <p>
+ * The cache key is the SQL text together with the bound parameters, so two
+ * instances describing the same statement with the same parameters share a
+ * cache entry. The tables the query reads decide which writes invalidate the
+ * entry (see {@link TableWriter}).
+ * </p>
+ *
+ * @param <R> the type of the result produced by the query.
+ * @author a8kj7sea
+ */
+public interface CacheableQuery<R> extends DatabaseQuery<R> {
+
+    /**
+     * Retrieves the SQL text of the query.
+     *
+     * @return the SQL text.
+     */
+    String getSql();
+
+    /**
+     * Retrieves the parameters bound to the query, in placeholder order.
+     *
+     * @return the bound parameters; they must implement {@code equals} and
+     *         {@code hashCode} by value.
+     */
+    List<Object> getParameters();
+
+    /**
+     * Retrieves the tables the query reads.
+     *
+     * @return the names of the tables read by the query.
+     */
+    Collection<String> getReadTables();
+
+    /**
+     * Cacheable queries only read data.
+     *
+     * @return true.
+     */
+    @Override
+    default boolean isReadOnly() {
+        return true;
+    }
+
+    /**
+     * Estimates the memory held by a result of this query, used to bound the
+     * cache by size.
+     *
+     * @param result the result to estimate.
+     * @return the estimated size in bytes.
+     */
+    default long estimateBytes(R result) {
+        return QueryResultCache.estimateBytes(result);
+    }
+}
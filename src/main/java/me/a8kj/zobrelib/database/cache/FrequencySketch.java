@@ -0,0 +1,81 @@
+package me.a8kj.zobrelib.database.cache;
+
+/**
+ * A count-min sketch estimating how often keys were accessed, used as the
+ * TinyLFU admission filter of the {@link QueryResultCache}.
+ * <p>
+ * Each key maps to four 4-bit counters packed into a {@code long[]}; the
+ * estimate is the smallest of the four. Once the number of increments reaches
+ * ten times the table size, every counter is halved so that the sketch
+ * follows changes in popularity. Not thread-safe; the cache guards it with its
+ * own lock.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(int expectedEntries) {
+        int length = Integer.highestOneBit(Math.max(8, expectedEntries) - 1) << 1;
+        this.table = new long[length];
+        this.sampleSize = 10 * length;
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int depth = 0; depth < 4; depth++) {
+            int index = indexOf(hash, depth);
+            int offset = counterOffset(hash, depth);
+            frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xfL));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int depth = 0; depth < 4; depth++) {
+            int index = indexOf(hash, depth);
+            int offset = counterOffset(hash, depth);
+            long mask = 0xfL << offset;
+            if ((table[index] & mask) != mask) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++size == sampleSize)
+            reset();
+    }
+
+    private void reset() {
+        for (int index = 0; index < table.length; index++)
+            table[index] = (table[index] >>> 1) & RESET_MASK;
+        size /= 2;
+    }
+
+    private int indexOf(int hash, int depth) {
+        long value = (hash + SEEDS[depth]) * SEEDS[depth];
+        value += value >>> 32;
+        return (int) value & (table.length - 1);
+    }
+
+    private static int counterOffset(int hash, int depth) {
+        // each long holds sixteen counters; pick one per depth
+        return (((hash >>> (depth << 3)) & 3) << 2 | depth) << 2;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
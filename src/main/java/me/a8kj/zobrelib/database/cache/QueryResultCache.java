@@ -0,0 +1,438 @@
+package me.a8kj.zobrelib.database.cache;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+
+/**
+ * Read-through cache of query results.
+ * <p>
+ * Results of {@link CacheableQuery CacheableQueries} are cached under their SQL
+ * text and bound parameters for a fixed time to live. The cache is bounded by
+ * entry count and by estimated bytes, and evicts in W-TinyLFU style: new
+ * entries enter a small LRU window, and an entry leaving the window only
+ * replaces the least recently used entry of the main area if a
+ * {@link FrequencySketch} estimates it was accessed more often.
+ * </p>
+ * <p>
+ * Concurrent misses on the same key are coalesced: one caller loads the result
+ * while the others wait for it. Successful {@link TableWriter} services drop
+ * every entry read from the tables they write, and a load that raced with such
+ * a write is not stored.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class QueryResultCache {
+
+    private static final Object NULL = new Object();
+
+    @Getter
+    private final int maxEntries;
+    @Getter
+    private final long maxBytes;
+    @Getter
+    private final long ttlNanos;
+
+    private final int windowMax;
+    private final LinkedHashMap<QueryKey, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<QueryKey, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<QueryKey>> tableIndex = new HashMap<>();
+    private final FrequencySketch sketch;
+    private long totalBytes;
+
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    private final Map<QueryKey, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Creates a new cache.
+     * 
+     * @param maxEntries the maximum number of cached results.
+     * @param maxBytes   the maximum estimated size of all cached results.
+     * @param ttl        how long a result stays valid.
+     * @param unit       the time unit of the time to live.
+     * @throws IllegalArgumentException if a bound is not positive.
+     */
+    public QueryResultCache(int maxEntries, long maxBytes, long ttl, TimeUnit unit) {
+        if (maxEntries <= 0 || maxBytes <= 0 || ttl <= 0)
+            throw new IllegalArgumentException("Cache bounds and time to live must be positive!");
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.windowMax = Math.max(1, maxEntries / 100);
+        this.sketch = new FrequencySketch(maxEntries);
+    }
+
+    /**
+     * Serves a query through the cache.
+     * <p>
+     * Cacheable queries are answered from the cache when possible and loaded
+     * through {@code loader} otherwise. Other queries always run the loader; if
+     * they write tables, the matching entries are invalidated afterwards.
+     * </p>
+     * 
+     * @param <R>    the type of the query result.
+     * @param query  the query being served.
+     * @param loader executes the query against the database.
+     * @return the result of the query.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R serve(DatabaseQuery<R> query, Supplier<R> loader) {
+        if (query instanceof CacheableQuery)
+            return read((CacheableQuery<R>) query, loader);
+
+        R result = loader.get();
+        onWrite(query);
+        return result;
+    }
+
+    /**
+     * Invalidates the tables written by a service, if it is a
+     * {@link TableWriter}.
+     * 
+     * @param service the service that was served successfully.
+     */
+    public void onWrite(Object service) {
+        if (service instanceof TableWriter)
+            invalidate(((TableWriter) service).getWrittenTables());
+    }
+
+    /**
+     * Drops every cached result read from the given tables.
+     * 
+     * @param tables the names of the written tables.
+     */
+    public void invalidate(Collection<String> tables) {
+        if (tables.isEmpty())
+            return;
+        for (String table : tables)
+            tableVersions.computeIfAbsent(normalize(table), name -> new AtomicLong()).incrementAndGet();
+
+        synchronized (this) {
+            for (String table : tables) {
+                Set<QueryKey> keys = tableIndex.remove(normalize(table));
+                if (keys == null)
+                    continue;
+                for (QueryKey key : keys) {
+                    if (remove(key) != null)
+                        invalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public synchronized void invalidateAll() {
+        for (String table : tableIndex.keySet())
+            tableVersions.computeIfAbsent(table, name -> new AtomicLong()).incrementAndGet();
+        invalidations.add(window.size() + main.size());
+        window.clear();
+        main.clear();
+        tableIndex.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Retrieves the number of cached results.
+     * 
+     * @return the number of entries.
+     */
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    /**
+     * Retrieves the estimated size of all cached results.
+     * 
+     * @return the estimated size in bytes.
+     */
+    public synchronized long getEstimatedBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Retrieves the number of queries answered from the cache.
+     * 
+     * @return the number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of queries not found in the cache, including those
+     * that waited for another caller's load.
+     * 
+     * @return the number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the number of entries evicted to respect the bounds.
+     * 
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Retrieves the number of entries dropped by table invalidation.
+     * 
+     * @return the number of invalidated entries.
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R read(CacheableQuery<R> query, Supplier<R> loader) {
+        QueryKey key = new QueryKey(query.getSql(), query.getParameters());
+        Object cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return cached == NULL ? null : (R) cached;
+        }
+        misses.increment();
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = loading.putIfAbsent(key, flight);
+        if (leader != null)
+            return (R) await(leader);
+
+        try {
+            Collection<String> tables = query.getReadTables();
+            long[] versions = versionsOf(tables);
+            R result = loader.get();
+            store(key, result == null ? NULL : result, query.estimateBytes(result), tables, versions);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, flight);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private synchronized Object lookup(QueryKey key) {
+        sketch.increment(key);
+        Entry entry = window.get(key);
+        if (entry == null)
+            entry = main.get(key);
+        if (entry == null)
+            return null;
+        if (System.nanoTime() - entry.expiresAtNanos >= 0) {
+            remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private long[] versionsOf(Collection<String> tables) {
+        long[] versions = new long[tables.size()];
+        int index = 0;
+        for (String table : tables) {
+            AtomicLong version = tableVersions.get(normalize(table));
+            versions[index++] = version == null ? 0 : version.get();
+        }
+        return versions;
+    }
+
+    private synchronized void store(QueryKey key, Object value, long bytes, Collection<String> tables,
+            long[] versions) {
+        if (bytes > maxBytes || !Arrays.equals(versions, versionsOf(tables)))
+            return;
+
+        remove(key);
+        Set<String> normalized = new HashSet<>();
+        for (String table : tables) {
+            String name = normalize(table);
+            normalized.add(name);
+            tableIndex.computeIfAbsent(name, ignored -> new HashSet<>()).add(key);
+        }
+        window.put(key, new Entry(value, bytes, System.nanoTime() + ttlNanos, normalized));
+        totalBytes += bytes;
+
+        while (window.size() > windowMax) {
+            Map.Entry<QueryKey, Entry> candidate = window.entrySet().iterator().next();
+            window.remove(candidate.getKey());
+            admit(candidate.getKey(), candidate.getValue());
+        }
+        while (totalBytes > maxBytes && !main.isEmpty())
+            evict(main);
+        while (totalBytes > maxBytes && !window.isEmpty())
+            evict(window);
+    }
+
+    private void admit(QueryKey key, Entry entry) {
+        if (main.size() < maxEntries - windowMax) {
+            main.put(key, entry);
+            return;
+        }
+
+        if (!main.isEmpty() && sketch.frequency(key) > sketch.frequency(main.keySet().iterator().next())) {
+            evict(main);
+            main.put(key, entry);
+        } else {
+            unindex(key, entry);
+            totalBytes -= entry.bytes;
+            evictions.increment();
+        }
+    }
+
+    private void evict(LinkedHashMap<QueryKey, Entry> segment) {
+        Iterator<Map.Entry<QueryKey, Entry>> iterator = segment.entrySet().iterator();
+        Map.Entry<QueryKey, Entry> eldest = iterator.next();
+        iterator.remove();
+        unindex(eldest.getKey(), eldest.getValue());
+        totalBytes -= eldest.getValue().bytes;
+        evictions.increment();
+    }
+
+    private Entry remove(QueryKey key) {
+        Entry entry = window.remove(key);
+        if (entry == null)
+            entry = main.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+            totalBytes -= entry.bytes;
+        }
+        return entry;
+    }
+
+    private void unindex(QueryKey key, Entry entry) {
+        for (String table : entry.tables) {
+            Set<QueryKey> keys = tableIndex.get(table);
+            if (keys != null && keys.remove(key) && keys.isEmpty())
+                tableIndex.remove(table);
+        }
+    }
+
+    private static String normalize(String table) {
+        return table.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Roughly estimates the memory held by a query result: strings, boxed
+     * primitives, arrays, collections and maps are measured, any other object
+     * counts as 64 bytes.
+     * 
+     * @param value the value to estimate.
+     * @return the estimated size in bytes.
+     */
+    public static long estimateBytes(Object value) {
+        if (value == null)
+            return 16;
+        if (value instanceof CharSequence)
+            return 40 + 2L * ((CharSequence) value).length();
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character)
+            return 16;
+        if (value instanceof Collection) {
+            long bytes = 48;
+            for (Object element : (Collection<?>) value)
+                bytes += 8 + estimateBytes(element);
+            return bytes;
+        }
+        if (value instanceof Map) {
+            long bytes = 64;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+                bytes += 32 + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            return bytes;
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive())
+                return 16 + 8L * length;
+            long bytes = 16;
+            for (int index = 0; index < length; index++)
+                bytes += 8 + estimateBytes(Array.get(value, index));
+            return bytes;
+        }
+        return 64;
+    }
+
+    /**
+     * Identifies a cached result by SQL text and bound parameters.
+     */
+    private static final class QueryKey {
+        private final String sql;
+        private final List<Object> parameters;
+        private final int hash;
+
+        private QueryKey(String sql, List<Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.hash = 31 * sql.hashCode() + parameters.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof QueryKey))
+                return false;
+            QueryKey key = (QueryKey) other;
+            return hash == key.hash && sql.equals(key.sql) && parameters.equals(key.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A cached result.
+     */
+    private static final class Entry {
+        private final Object value;
+        private final long bytes;
+        private final long expiresAtNanos;
+        private final Set<String> tables;
+
+        private Entry(Object value, long bytes, long expiresAtNanos, Set<String> tables) {
+            this.value = value;
+            this.bytes = bytes;
+            this.expiresAtNanos = expiresAtNanos;
+            this.tables = tables;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package me.a8kj.zobrelib.database.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Implemented by services and queries that write to tables.
+ * <p>
+ * Once such a service has been served successfully through the library, the
+ * {@link QueryResultCache} of the database drops every entry read from the
+ * written tables.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public interface TableWriter {
+
+    /**
+     * Pattern matching the target table of INSERT, REPLACE, UPDATE and DELETE
+     * statements.
+     */
+    Pattern WRITTEN_TABLE = Pattern.compile(
+            "^\\s*(?:(?:INSERT|REPLACE)(?:\\s+(?:LOW_PRIORITY|DELAYED|HIGH_PRIORITY|IGNORE))*\\s+(?:INTO\\s+)?"
+                    + "|UPDATE(?:\\s+(?:LOW_PRIORITY|IGNORE))*\\s+"
+                    + "|DELETE(?:\\s+(?:LOW_PRIORITY|QUICK|IGNORE))*\\s+FROM\\s+)[`\"]?([\\w.$]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Retrieves the tables written by this service.
+     * 
+     * @return the names of the written tables.
+     */
+    Collection<String> getWrittenTables();
+
+    /**
+     * Extracts the target table of a single INSERT, REPLACE, UPDATE or DELETE
+     * statement.
+     * 
+     * @param sql the SQL text of the statement.
+     * @return a set holding the lower-cased table name, or an empty set if the
+     *         statement is not recognised.
+     */
+    static Set<String> tablesOf(String sql) {
+        Matcher matcher = WRITTEN_TABLE.matcher(sql);
+        if (!matcher.find())
+            return Collections.emptySet();
+        return Collections.singleton(matcher.group(1).toLowerCase(Locale.ROOT));
+    }
+}
@@ -1,6 +1,7 @@
 package me.a8kj.zobrelib.database.cycle;
 
 import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.enums.ConnectionStatus;
 
 /**
  * Represents the lifecycle events for a database connection.
@@ -24,6 +25,25 @@ public interface DatabaseCycle {
      */
     void onConnect();
 
+    /**
+     * Called when the database connection is established, with the time each
+     * startup phase took. Databases that measure their startup call this method
+     * instead of {@link #onConnect()}, which it calls by default.
+     * 
+     * @param timings the startup timings of the database
+     */
+    default void onConnect(StartupTimings timings) {
+        onConnect();
+    }
+
+    /**
+     * Called right before the database connection is closed, while services can
+     * still be served. This method is intended to contain logic such as flushing
+     * pending writes.
+     */
+    default void onDisconnecting() {
+    }
+
     /**
      * Called when the database connection is closed.
      * This method is intended to contain logic for actions that need to be
@@ -40,6 +60,16 @@ public interface DatabaseCycle {
      */
     void onRestart();
 
+    /**
+     * Called when the connection status of the database changes, e.g. when a
+     * circuit breaker marks the database as failed and later as connected again.
+     * 
+     * @param previous the status before the change
+     * @param current  the status after the change
+     */
+    default void onStatusChange(ConnectionStatus previous, ConnectionStatus current) {
+    }
+
     /**
      * Sets the database instance for this cycle.
      * 
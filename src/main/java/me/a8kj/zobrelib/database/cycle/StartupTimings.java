@@ -0,0 +1,50 @@
+package me.a8kj.zobrelib.database.cycle;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * How long the phases of connecting a database took, reported through
+ * {@link DatabaseCycle#onConnect(StartupTimings)}.
+ * 
+ * @author a8kj7sea
+ */
+@Getter
+@AllArgsConstructor
+public final class StartupTimings {
+
+    private final String database;
+    /**
+     * Time spent creating the pool and opening its first connection.
+     */
+    private final long poolNanos;
+    /**
+     * Time spent filling the pool up to its minimum idle connections.
+     */
+    private final long prefillNanos;
+    /**
+     * Time spent preparing the declared statements.
+     */
+    private final long warmupNanos;
+    private final int prefilledConnections;
+    private final int warmedStatements;
+
+    /**
+     * Retrieves the whole time taken to connect.
+     * 
+     * @return the sum of the phases, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return poolNanos + prefillNanos + warmupNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Connected " + database + " in " + TimeUnit.NANOSECONDS.toMillis(getTotalNanos()) + "ms (pool "
+                + TimeUnit.NANOSECONDS.toMillis(poolNanos) + "ms, prefill " + prefilledConnections + " connection(s) "
+                + TimeUnit.NANOSECONDS.toMillis(prefillNanos) + "ms, warmup " + warmedStatements + " statement(s) "
+                + TimeUnit.NANOSECONDS.toMillis(warmupNanos) + "ms)";
+    }
+}
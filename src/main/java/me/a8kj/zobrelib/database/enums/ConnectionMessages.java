@@ -35,7 +35,37 @@ public enum ConnectionMessages {
     /**
      * Message indicating that the database connection has been closed.
      */
-    CLOSED_CONNECTION("Database connection to %s has been closed!");
+    CLOSED_CONNECTION("Database connection to %s has been closed!"),
+
+    /**
+     * Message indicating that the database waits for running services before
+     * closing its connections.
+     */
+    DRAINING("Draining %s database before closing its connections..."),
+
+    /**
+     * Message indicating that the connections of the database are being
+     * replaced.
+     */
+    RECONNECTING("Replacing the connection pool of %s database..."),
+
+    /**
+     * Message indicating that a statement could not be prepared while warming
+     * the database up, followed by the reason.
+     */
+    SKIPPED_WARMUP("Skipped warming up a statement on %s database: %s"),
+
+    /**
+     * Message indicating that a retired connection pool is closed although some
+     * of its connections are still in use, followed by their number.
+     */
+    CLOSING_BUSY_POOL("Closing a connection pool of %s database with %s connection(s) still in use."),
+
+    /**
+     * Message indicating that a scheduled batch flush failed, followed by the
+     * batched statement and the reason.
+     */
+    FAILED_FLUSH("Scheduled flush into %s database failed for %s: %s");
 
     private final String message;
 
@@ -48,4 +78,18 @@ public enum ConnectionMessages {
     public String format(String databaseName) {
         return String.format(message, databaseName);
     }
+
+    /**
+     * Formats the message with the provided database name and details.
+     * 
+     * @param databaseName the name of the database to include in the message
+     * @param details      the details following the database name
+     * @return the formatted message
+     */
+    public String format(String databaseName, Object... details) {
+        Object[] arguments = new Object[details.length + 1];
+        arguments[0] = databaseName;
+        System.arraycopy(details, 0, arguments, 1, details.length);
+        return String.format(message, arguments);
+    }
 }
@@ -30,5 +30,48 @@ public enum ConnectionStatus {
     /**
      * Represents the state where an error occurred during the database connection.
      */
-    ERROR;
+    ERROR,
+
+    /**
+     * Represents the state where the database connection is being established.
+     */
+    CONNECTING,
+
+    /**
+     * Represents the state where a disconnect has been claimed and the cycle's
+     * {@code onDisconnecting} runs, while services are still accepted.
+     */
+    DISCONNECTING,
+
+    /**
+     * Represents the state where the database no longer accepts services and
+     * waits for running services to finish before closing its connections.
+     */
+    DRAINING,
+
+    /**
+     * Represents the state where the database keeps serving on its current
+     * connections while new ones replace them.
+     */
+    RECONNECTING;
+
+    /**
+     * Checks whether a database in this state accepts services.
+     * 
+     * @return true for {@link #CONNECTED}, {@link #DISCONNECTING} and
+     *         {@link #RECONNECTING}.
+     */
+    public boolean isServing() {
+        return this == CONNECTED || this == DISCONNECTING || this == RECONNECTING;
+    }
+
+    /**
+     * Checks whether this state is an ongoing lifecycle transition.
+     * 
+     * @return true for {@link #CONNECTING}, {@link #DISCONNECTING},
+     *         {@link #DRAINING} and {@link #RECONNECTING}.
+     */
+    public boolean isTransitional() {
+        return this == CONNECTING || this == DISCONNECTING || this == DRAINING || this == RECONNECTING;
+    }
 }
@@ -0,0 +1,24 @@
+package me.a8kj.zobrelib.database.exception.impl;
+
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+
+/**
+ * Exception thrown when a bulkhead has no free permit and its queue is full.
+ * <p>
+ * This class extends {@link DatabaseExceptionBase} and signals a fast-fail
+ * rejection: the work was not started and can be shed or retried later.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class BulkheadFullException extends DatabaseExceptionBase {
+
+    /**
+     * Constructs a new BulkheadFullException with the specified detail message.
+     * 
+     * @param message the detail message.
+     */
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
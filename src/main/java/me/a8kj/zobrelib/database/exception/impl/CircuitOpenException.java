@@ -0,0 +1,26 @@
+package me.a8kj.zobrelib.database.exception.impl;
+
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+
+/**
+ * Exception thrown when a service is rejected because the circuit breaker of
+ * its database is open.
+ * <p>
+ * This class extends {@link DatabaseExceptionBase} and signals that the
+ * database is considered unavailable: the service was not started and callers
+ * should shed load instead of waiting for a connection or query timeout.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class CircuitOpenException extends DatabaseExceptionBase {
+
+    /**
+     * Constructs a new CircuitOpenException with the specified detail message.
+     * 
+     * @param message the detail message.
+     */
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
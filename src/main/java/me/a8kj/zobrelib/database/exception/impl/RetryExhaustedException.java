@@ -0,0 +1,27 @@
+package me.a8kj.zobrelib.database.exception.impl;
+
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+
+/**
+ * Exception thrown when a service keeps failing with retryable errors until
+ * its retry policy gives up.
+ * <p>
+ * This class extends {@link DatabaseExceptionBase}; its cause is the failure
+ * of the last attempt.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class RetryExhaustedException extends DatabaseExceptionBase {
+
+    /**
+     * Constructs a new RetryExhaustedException with the specified detail message
+     * and cause.
+     * 
+     * @param message the detail message.
+     * @param cause   the failure of the last attempt.
+     */
+    public RetryExhaustedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,272 @@
+package me.a8kj.zobrelib.database.health;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+import me.a8kj.zobrelib.database.enums.ConnectionStatus;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+
+/**
+ * Background health checker reconnecting a {@link Database} that stopped
+ * answering.
+ * <p>
+ * Once started, the monitor borrows and validates a connection at the interval
+ * of its {@link HealthPolicy}. The timer runs on the shared
+ * {@link ServiceScheduler} and hands every check over to the database's
+ * executor, so a check waiting on an unreachable database never delays other
+ * timers. When enough consecutive checks fail, the database status becomes
+ * {@link ConnectionStatus#ERROR} and the monitor calls
+ * {@link Database#restart()} with an exponential backoff until a new pool
+ * opens and validates. Status changes are reported through
+ * {@link me.a8kj.zobrelib.database.cycle.DatabaseCycle#onStatusChange(ConnectionStatus, ConnectionStatus)}.
+ * </p>
+ * <p>
+ * While reconnecting, asynchronous work submitted through
+ * {@link Database#submit(me.a8kj.zobrelib.database.service.DatabaseQuery, Supplier)}
+ * is parked instead of failing, and runs once the database serves again. It
+ * fails with a {@link TimeoutException} if the reconnect takes longer than the
+ * park timeout, or with a {@link DatabaseExceptionBase} if the monitor is
+ * stopped or the database is disconnected meanwhile. Synchronous calls still
+ * fail right away. Checks are skipped while the database is disconnected or in
+ * a lifecycle transition.
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+public class HealthMonitor {
+
+    @Getter
+    private final Database<?> database;
+    @Getter
+    private final HealthPolicy policy;
+
+    private final AtomicBoolean checking = new AtomicBoolean();
+    private final AtomicReference<CompletableFuture<Void>> reconnect = new AtomicReference<>();
+    private volatile ScheduledFuture<?> timer;
+    private volatile ScheduledFuture<?> reconnectTimer;
+    private int consecutiveFailures;
+
+    /**
+     * Creates a stopped monitor for the given database.
+     *
+     * @param database the database to monitor.
+     * @param policy   the policy deciding how the database is checked and
+     *                 reconnected.
+     */
+    public HealthMonitor(Database<?> database, HealthPolicy policy) {
+        this.database = database;
+        this.policy = policy;
+    }
+
+    /**
+     * Starts checking the database at the interval of the policy. Starting a
+     * running monitor has no effect.
+     *
+     * @return this monitor.
+     */
+    public synchronized HealthMonitor start() {
+        if (timer == null)
+            timer = ServiceScheduler.scheduleWithFixedDelay(this::dispatchCheck, policy.getCheckIntervalNanos(),
+                    TimeUnit.NANOSECONDS);
+        return this;
+    }
+
+    /**
+     * Stops checking and reconnecting the database. Parked work fails with a
+     * {@link DatabaseExceptionBase}.
+     */
+    public synchronized void stop() {
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        ScheduledFuture<?> pending = reconnectTimer;
+        if (pending != null)
+            pending.cancel(false);
+        finishReconnect(new DatabaseExceptionBase("Health monitor of " + database.getName() + " was stopped."));
+    }
+
+    /**
+     * Checks whether the monitor is running.
+     *
+     * @return true if the monitor was started and not stopped.
+     */
+    public boolean isRunning() {
+        return timer != null;
+    }
+
+    /**
+     * Checks whether the monitor is reconnecting the database.
+     *
+     * @return true if the database was marked as failed and has not served
+     *         again yet.
+     */
+    public boolean isReconnecting() {
+        return reconnect.get() != null;
+    }
+
+    /**
+     * Parks asynchronous work until the database is reconnected.
+     * <p>
+     * If the monitor is not reconnecting, the work is submitted right away.
+     * Otherwise it is submitted once the reconnect completes, from the thread
+     * completing it.
+     * </p>
+     *
+     * @param <R>        the type of the result.
+     * @param submission submits the work and returns its future; it must not
+     *                   block.
+     * @return a future completed with the result of the work, or exceptionally
+     *         if the work was rejected or the reconnect does not complete within
+     *         the park timeout.
+     */
+    public <R> CompletableFuture<R> park(Supplier<CompletableFuture<R>> submission) {
+        CompletableFuture<Void> gate = reconnect.get();
+        if (gate == null)
+            return submit(submission);
+
+        CompletableFuture<R> parked = new CompletableFuture<>();
+        ScheduledFuture<?> parkTimer = ServiceScheduler.schedule(
+                () -> parked.completeExceptionally(
+                        new TimeoutException("Timed out waiting for " + database.getName() + " to reconnect")),
+                policy.getParkTimeoutNanos(), TimeUnit.NANOSECONDS);
+        gate.whenComplete((ignored, error) -> {
+            parkTimer.cancel(false);
+            if (error != null) {
+                parked.completeExceptionally(error);
+                return;
+            }
+            if (parked.isDone())
+                return;
+
+            submit(submission).whenComplete((result, failure) -> {
+                if (failure != null)
+                    parked.completeExceptionally(failure);
+                else
+                    parked.complete(result);
+            });
+        });
+        return parked;
+    }
+
+    /**
+     * Validates a connection of the database right away.
+     *
+     * @return true if a connection could be borrowed and answered within the
+     *         validation timeout.
+     */
+    public boolean isHealthy() {
+        try (ConnectionLease<?> lease = database.borrowConnection()) {
+            return lease.isValid(policy.getValidationTimeoutSeconds());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void dispatchCheck() {
+        if (isReconnecting() || !checking.compareAndSet(false, true))
+            return;
+        try {
+            database.getExecutor().execute(this::check);
+        } catch (RuntimeException e) {
+            // the executor is saturated or shut down, try again on the next tick
+            checking.set(false);
+        }
+    }
+
+    private void check() {
+        try {
+            ConnectionStatus status = database.getStatus();
+            if (status == ConnectionStatus.DISCONNECTED || status == ConnectionStatus.IDLE
+                    || status.isTransitional()) {
+                consecutiveFailures = 0;
+                return;
+            }
+
+            if (isHealthy()) {
+                consecutiveFailures = 0;
+            } else if (++consecutiveFailures >= policy.getFailuresToMarkDown()) {
+                consecutiveFailures = 0;
+                markDown();
+            }
+        } finally {
+            checking.set(false);
+        }
+    }
+
+    private void markDown() {
+        if (!reconnect.compareAndSet(null, new CompletableFuture<>()))
+            return;
+        database.compareAndSetStatus(ConnectionStatus.CONNECTED, ConnectionStatus.ERROR);
+        scheduleReconnect(1);
+    }
+
+    private void scheduleReconnect(int attempt) {
+        if (!isRunning()) {
+            finishReconnect(new DatabaseExceptionBase("Health monitor of " + database.getName() + " was stopped."));
+            return;
+        }
+        reconnectTimer = ServiceScheduler.schedule(() -> {
+            try {
+                database.getExecutor().execute(() -> reconnect(attempt));
+            } catch (RuntimeException e) {
+                scheduleReconnect(attempt);
+            }
+        }, policy.reconnectDelayNanos(attempt), TimeUnit.NANOSECONDS);
+    }
+
+    private void reconnect(int attempt) {
+        if (!isReconnecting())
+            return;
+
+        ConnectionStatus status = database.getStatus();
+        if (status == ConnectionStatus.DISCONNECTED || status == ConnectionStatus.IDLE) {
+            finishReconnect(new DatabaseExceptionBase(
+                    "Database " + database.getName() + " was disconnected while reconnecting."));
+            return;
+        }
+
+        if (!status.isTransitional()) {
+            try {
+                database.restart();
+                if (isHealthy()) {
+                    finishReconnect(null);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Reconnect attempt " + attempt + " of " + database.getName() + " failed: "
+                        + e.getMessage());
+            }
+        }
+        scheduleReconnect(attempt + 1);
+    }
+
+    private void finishReconnect(Throwable failure) {
+        CompletableFuture<Void> gate = reconnect.getAndSet(null);
+        if (gate == null)
+            return;
+        if (failure == null)
+            gate.complete(null);
+        else
+            gate.completeExceptionally(failure);
+    }
+
+    private static <R> CompletableFuture<R> submit(Supplier<CompletableFuture<R>> submission) {
+        try {
+            return submission.get();
+        } catch (RuntimeException e) {
+            CompletableFuture<R> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package me.a8kj.zobrelib.database.health;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.With;
+
+/**
+ * Immutable description of how a {@link HealthMonitor} checks and reconnects a
+ * database.
+ * <p>
+ * The monitor validates a connection every {@code checkInterval}, waiting at
+ * most {@code validationTimeoutSeconds} for the database to answer. After
+ * {@code failuresToMarkDown} consecutive failed checks the database is marked
+ * as failed and reconnected, waiting {@code reconnectDelay} before the first
+ * attempt and multiplying the delay by {@code multiplier} after every failed
+ * one, up to {@code maxReconnectDelay}. Asynchronous work submitted meanwhile
+ * is parked for at most {@code parkTimeout}.
+ * </p>
+ * <p>
+ * Every value is validated when the policy is created, including through the
+ * {@code with} methods, which throw {@link IllegalArgumentException} for values
+ * out of range.
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+@Getter
+@With
+public final class HealthPolicy {
+
+    private final long checkIntervalNanos;
+    private final int validationTimeoutSeconds;
+    private final int failuresToMarkDown;
+    private final long reconnectDelayNanos;
+    private final double multiplier;
+    private final long maxReconnectDelayNanos;
+    private final double jitter;
+    private final long parkTimeoutNanos;
+
+    private HealthPolicy(long checkIntervalNanos, int validationTimeoutSeconds, int failuresToMarkDown,
+            long reconnectDelayNanos, double multiplier, long maxReconnectDelayNanos, double jitter,
+            long parkTimeoutNanos) {
+        if (checkIntervalNanos <= 0 || failuresToMarkDown <= 0)
+            throw new IllegalArgumentException("Check interval and failures to mark down must be positive!");
+        if (validationTimeoutSeconds < 0 || reconnectDelayNanos < 0 || maxReconnectDelayNanos < 0
+                || parkTimeoutNanos < 0)
+            throw new IllegalArgumentException("Timeouts and delays must not be negative!");
+        if (multiplier < 1)
+            throw new IllegalArgumentException("Multiplier must be at least 1!");
+        if (jitter < 0 || jitter > 1)
+            throw new IllegalArgumentException("Jitter must be in [0, 1]!");
+        this.checkIntervalNanos = checkIntervalNanos;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.failuresToMarkDown = failuresToMarkDown;
+        this.reconnectDelayNanos = reconnectDelayNanos;
+        this.multiplier = multiplier;
+        this.maxReconnectDelayNanos = maxReconnectDelayNanos;
+        this.jitter = jitter;
+        this.parkTimeoutNanos = parkTimeoutNanos;
+    }
+
+    /**
+     * Creates a policy checking the database at the given interval with a 5
+     * second validation timeout, marking it as failed after 2 failed checks and
+     * reconnecting with an exponential backoff from 500 milliseconds up to 30
+     * seconds (20% jitter). Asynchronous work is parked for up to 30 seconds.
+     *
+     * @param checkInterval the time between two checks.
+     * @param unit          the time unit of the interval.
+     * @return a new policy.
+     * @throws IllegalArgumentException if the interval is not positive.
+     */
+    public static HealthPolicy every(long checkInterval, TimeUnit unit) {
+        return new HealthPolicy(unit.toNanos(checkInterval), 5, 2, TimeUnit.MILLISECONDS.toNanos(500), 2.0,
+                TimeUnit.SECONDS.toNanos(30), 0.2, TimeUnit.SECONDS.toNanos(30));
+    }
+
+    /**
+     * Computes the delay before the given reconnect attempt.
+     *
+     * @param attempt the number of the attempt, starting at 1.
+     * @return the delay in nanoseconds.
+     */
+    public long reconnectDelayNanos(int attempt) {
+        double delay = reconnectDelayNanos * Math.pow(multiplier, attempt - 1);
+        delay = Math.min(delay, maxReconnectDelayNanos);
+        if (jitter > 0)
+            delay -= delay * jitter * ThreadLocalRandom.current().nextDouble();
+        return (long) delay;
+    }
+}
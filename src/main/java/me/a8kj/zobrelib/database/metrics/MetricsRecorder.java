@@ -0,0 +1,118 @@
+package me.a8kj.zobrelib.database.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Receives the metrics of databases and the services they run.
+ * <p>
+ * Every method has a no-op default, so implementations (e.g. an adapter onto
+ * Micrometer or another metrics library) only override what they export.
+ * Metrics are tagged with the name of the database and, for service metrics,
+ * the {@link me.a8kj.zobrelib.database.service.DatabaseQuery#getServiceType()
+ * service type}. Methods are called on the hot path and must not block.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public interface MetricsRecorder {
+
+    /**
+     * A recorder that discards every metric.
+     */
+    MetricsRecorder NOOP = new MetricsRecorder() {
+    };
+
+    /**
+     * Gauge of the connections currently leased from the pool.
+     */
+    String POOL_ACTIVE = "zobrelib.pool.active";
+
+    /**
+     * Gauge of the idle connections in the pool.
+     */
+    String POOL_IDLE = "zobrelib.pool.idle";
+
+    /**
+     * Gauge of the threads waiting for a connection from the pool.
+     */
+    String POOL_PENDING = "zobrelib.pool.pending";
+
+    /**
+     * Gauge of the connections in the pool.
+     */
+    String POOL_TOTAL = "zobrelib.pool.total";
+
+    /**
+     * Gauge of the tasks waiting in the queue of the service executor.
+     */
+    String EXECUTOR_QUEUE = "zobrelib.executor.queue";
+
+    /**
+     * Registers a gauge sampled by the recorder, replacing any gauge with the same
+     * name and database.
+     * 
+     * @param name     the name of the gauge.
+     * @param database the name of the database.
+     * @param value    supplies the current value.
+     */
+    default void registerGauge(String name, String database, LongSupplier value) {
+    }
+
+    /**
+     * Removes every gauge registered for a database.
+     * 
+     * @param database the name of the database.
+     */
+    default void removeGauges(String database) {
+    }
+
+    /**
+     * Records how long a service waited in the executor queue before it started.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @param nanos       the wait time in nanoseconds.
+     */
+    default void recordQueueWait(String database, Class<?> serviceType, long nanos) {
+    }
+
+    /**
+     * Records how long a service ran on its connection.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @param nanos       the execution time in nanoseconds.
+     * @param success     whether the service completed normally.
+     */
+    default void recordExecution(String database, Class<?> serviceType, long nanos, boolean success) {
+    }
+
+    /**
+     * Counts a service that timed out.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     */
+    default void incrementTimeout(String database, Class<?> serviceType) {
+    }
+
+    /**
+     * Counts a retry of a failed service.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     */
+    default void incrementRetry(String database, Class<?> serviceType) {
+    }
+
+    /**
+     * Counts a failed service.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @param sqlState    the SQLState of the failure, or null if it carries no
+     *                    {@link java.sql.SQLException}.
+     */
+    default void incrementError(String database, Class<?> serviceType, String sqlState) {
+    }
+}
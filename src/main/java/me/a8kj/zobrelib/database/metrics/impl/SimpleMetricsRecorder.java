@@ -0,0 +1,185 @@
+package me.a8kj.zobrelib.database.metrics.impl;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import me.a8kj.zobrelib.database.metrics.LatencyHistogram;
+import me.a8kj.zobrelib.database.metrics.MetricsRecorder;
+
+/**
+ * A {@link MetricsRecorder} keeping every metric in memory.
+ * <p>
+ * Useful on its own to inspect a running application, or as the source an
+ * exporter periodically reads from. Metrics that were never recorded read as
+ * zero (or an empty histogram).
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class SimpleMetricsRecorder implements MetricsRecorder {
+
+    private static final LatencyHistogram EMPTY = new LatencyHistogram();
+
+    private final Map<MetricKey, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<MetricKey, LatencyHistogram> queueWaits = new ConcurrentHashMap<>();
+    private final Map<MetricKey, LatencyHistogram> executions = new ConcurrentHashMap<>();
+    private final Map<MetricKey, LongAdder> failures = new ConcurrentHashMap<>();
+    private final Map<MetricKey, LongAdder> timeouts = new ConcurrentHashMap<>();
+    private final Map<MetricKey, LongAdder> retries = new ConcurrentHashMap<>();
+    private final Map<MetricKey, LongAdder> errors = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerGauge(String name, String database, LongSupplier value) {
+        gauges.put(new MetricKey(database, null, name), value);
+    }
+
+    @Override
+    public void removeGauges(String database) {
+        gauges.keySet().removeIf(key -> key.database.equals(database));
+    }
+
+    @Override
+    public void recordQueueWait(String database, Class<?> serviceType, long nanos) {
+        queueWaits.computeIfAbsent(new MetricKey(database, serviceType, null), key -> new LatencyHistogram())
+                .record(nanos);
+    }
+
+    @Override
+    public void recordExecution(String database, Class<?> serviceType, long nanos, boolean success) {
+        MetricKey key = new MetricKey(database, serviceType, null);
+        executions.computeIfAbsent(key, ignored -> new LatencyHistogram()).record(nanos);
+        if (!success)
+            failures.computeIfAbsent(key, ignored -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void incrementTimeout(String database, Class<?> serviceType) {
+        timeouts.computeIfAbsent(new MetricKey(database, serviceType, null), key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void incrementRetry(String database, Class<?> serviceType) {
+        retries.computeIfAbsent(new MetricKey(database, serviceType, null), key -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void incrementError(String database, Class<?> serviceType, String sqlState) {
+        errors.computeIfAbsent(new MetricKey(database, serviceType, sqlState), key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Samples a gauge.
+     * 
+     * @param name     the name of the gauge.
+     * @param database the name of the database.
+     * @return the current value, or 0 if the gauge is not registered.
+     */
+    public long getGauge(String name, String database) {
+        LongSupplier gauge = gauges.get(new MetricKey(database, null, name));
+        return gauge == null ? 0 : gauge.getAsLong();
+    }
+
+    /**
+     * Retrieves the queue wait times of a service type.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @return the histogram of queue wait times.
+     */
+    public LatencyHistogram getQueueWait(String database, Class<?> serviceType) {
+        return queueWaits.getOrDefault(new MetricKey(database, serviceType, null), EMPTY);
+    }
+
+    /**
+     * Retrieves the execution times of a service type.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @return the histogram of execution times.
+     */
+    public LatencyHistogram getExecution(String database, Class<?> serviceType) {
+        return executions.getOrDefault(new MetricKey(database, serviceType, null), EMPTY);
+    }
+
+    /**
+     * Retrieves the number of failed executions of a service type.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @return the number of failed executions.
+     */
+    public long getFailureCount(String database, Class<?> serviceType) {
+        return sum(failures, new MetricKey(database, serviceType, null));
+    }
+
+    /**
+     * Retrieves the number of timeouts of a service type.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @return the number of timeouts.
+     */
+    public long getTimeoutCount(String database, Class<?> serviceType) {
+        return sum(timeouts, new MetricKey(database, serviceType, null));
+    }
+
+    /**
+     * Retrieves the number of retries of a service type.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @return the number of retries.
+     */
+    public long getRetryCount(String database, Class<?> serviceType) {
+        return sum(retries, new MetricKey(database, serviceType, null));
+    }
+
+    /**
+     * Retrieves the number of errors of a service type with a SQLState.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the type of the service.
+     * @param sqlState    the SQLState, or null for failures without one.
+     * @return the number of errors.
+     */
+    public long getErrorCount(String database, Class<?> serviceType, String sqlState) {
+        return sum(errors, new MetricKey(database, serviceType, sqlState));
+    }
+
+    private static long sum(Map<MetricKey, LongAdder> counters, MetricKey key) {
+        LongAdder counter = counters.get(key);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Identifies a metric by its tags.
+     */
+    private static final class MetricKey {
+        private final String database;
+        private final Class<?> serviceType;
+        private final String qualifier;
+
+        private MetricKey(String database, Class<?> serviceType, String qualifier) {
+            this.database = database;
+            this.serviceType = serviceType;
+            this.qualifier = qualifier;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof MetricKey))
+                return false;
+            MetricKey key = (MetricKey) other;
+            return database.equals(key.database) && serviceType == key.serviceType
+                    && Objects.equals(qualifier, key.qualifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return (database.hashCode() * 31 + Objects.hashCode(serviceType)) * 31 + Objects.hashCode(qualifier);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package me.a8kj.zobrelib.database.pipeline;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+
+/**
+ * A read declaring its statement, so that a {@link QueryPipeline} can send it
+ * together with other independent reads.
+ * <p>
+ * The query is a single {@code SELECT} with {@code ?} placeholders, bound to
+ * {@link #getParameters()}, whose result set is turned into the result by
+ * {@link #map(ResultSet)}. If the database has a {@link QueryPipeline},
+ * {@link #serveAsync(Database)} hands the query to it; otherwise, and when
+ * served synchronously, the query runs on its own like every other
+ * {@link DatabaseQuery}.
+ * </p>
+ *
+ * @param <R> the type of the result produced by the query.
+ * @author a8kj7sea
+ */
+public interface PipelinedQuery<R> extends DatabaseQuery<R> {
+
+    /**
+     * Retrieves the statement of the query.
+     *
+     * @return the SQL statement, with {@code ?} placeholders.
+     */
+    String getSql();
+
+    /**
+     * Retrieves the parameters bound to the placeholders of the statement.
+     *
+     * @return the parameters, in placeholder order; empty by default.
+     */
+    default Object[] getParameters() {
+        return new Object[0];
+    }
+
+    /**
+     * Maps the result set of the statement to the result of the query.
+     *
+     * @param resultSet the result set, positioned before the first row.
+     * @return the result of the query.
+     * @throws SQLException if the result set cannot be read.
+     */
+    R map(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Runs the statement on the JDBC connection leased to the calling thread.
+     *
+     * @throws DatabaseExceptionBase if the statement fails.
+     */
+    @Override
+    default R serve(Database<?> database) {
+        Connection connection = database.<Connection>getConnectionContainer().getConnection();
+        try (PreparedStatement statement = connection.prepareStatement(getSql())) {
+            Object[] parameters = getParameters();
+            for (int i = 0; i < parameters.length; i++)
+                statement.setObject(i + 1, parameters[i]);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return map(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Failed to run " + getSql() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Hands the query to the {@link QueryPipeline} of the database if it has
+     * one, otherwise runs it on the database's executor.
+     */
+    @Override
+    default CompletableFuture<R> serveAsync(Database<?> database) {
+        QueryPipeline pipeline = database.getQueryPipeline();
+        return pipeline == null ? DatabaseQuery.super.serveAsync(database) : pipeline.submit(this);
+    }
+
+    @Override
+    default boolean canServe(Database<?> database) {
+        return database.isConnected();
+    }
+
+    @Override
+    default boolean isReadOnly() {
+        return true;
+    }
+}
@@ -0,0 +1,265 @@
+package me.a8kj.zobrelib.database.pipeline;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+import me.a8kj.zobrelib.database.service.breaker.CircuitBreaker;
+import me.a8kj.zobrelib.database.service.retry.RetryClassifier;
+
+/**
+ * Collects independent reads issued within a short window and serves them
+ * together on one leased connection.
+ * <p>
+ * The first {@link PipelinedQuery} submitted opens a window; every query
+ * submitted until it closes, or until {@code maxBatch} queries are collected,
+ * joins the same batch. The batch is served like a single read-only query, so
+ * the circuit breaker, bulkheads, metrics and read replicas of the database
+ * apply to it, and each result set is handed back to the future of the query
+ * it belongs to. A query failing within a successful batch is reported to the
+ * circuit breaker and error metrics on its own.
+ * </p>
+ * <p>
+ * With {@code multiStatements} the statements of a batch are joined with
+ * {@code ;} into one statement and sent in a single round trip. This needs a
+ * driver accepting several statements per execution, e.g. MySQL or MariaDB
+ * with {@code allowMultiQueries=true} in the JDBC URL. If the execution fails,
+ * the queries without a result yet are run again one by one, so only the
+ * failing query fails. Joined statements bypass the client-side statement
+ * cache, since their text rarely repeats.
+ * Without {@code multiStatements} the queries run one after another on the
+ * leased connection, which still saves a connection borrow and an executor
+ * hand-over per query.
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+public class QueryPipeline {
+
+    @Getter
+    private final Database<?> database;
+    @Getter
+    private final long windowNanos;
+    @Getter
+    private final int maxBatch;
+    @Getter
+    private final boolean multiStatements;
+
+    private List<Entry<?>> batch = new ArrayList<>();
+    private ScheduledFuture<?> timer;
+
+    /**
+     * Creates a pipeline for the given database.
+     *
+     * @param database        the database the queries are served on.
+     * @param window          how long a batch collects queries after its first
+     *                        one.
+     * @param unit            the time unit of the window.
+     * @param maxBatch        the maximum number of queries per batch.
+     * @param multiStatements whether the statements of a batch are sent as one
+     *                        multi-statement execution.
+     * @throws IllegalArgumentException if {@code maxBatch} is not positive or
+     *                                  the window is negative.
+     */
+    public QueryPipeline(Database<?> database, long window, TimeUnit unit, int maxBatch, boolean multiStatements) {
+        if (maxBatch <= 0 || window < 0)
+            throw new IllegalArgumentException("Batch size must be positive and window not negative!");
+        this.database = database;
+        this.windowNanos = unit.toNanos(window);
+        this.maxBatch = maxBatch;
+        this.multiStatements = multiStatements;
+    }
+
+    /**
+     * Adds a query to the current batch.
+     *
+     * @param <R>   the type of the query result.
+     * @param query the query to serve.
+     * @return a future completed with the result of the query once its batch
+     *         has been served.
+     */
+    public <R> CompletableFuture<R> submit(PipelinedQuery<R> query) {
+        Entry<R> entry = new Entry<>(query);
+        List<Entry<?>> full = null;
+        synchronized (this) {
+            batch.add(entry);
+            if (batch.size() >= maxBatch) {
+                full = take();
+            } else if (batch.size() == 1) {
+                timer = ServiceScheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (full != null)
+            dispatch(full);
+        return entry.future;
+    }
+
+    /**
+     * Serves the current batch right away instead of waiting for its window to
+     * close.
+     */
+    public void flush() {
+        List<Entry<?>> current;
+        synchronized (this) {
+            if (batch.isEmpty())
+                return;
+            current = take();
+        }
+        dispatch(current);
+    }
+
+    private List<Entry<?>> take() {
+        List<Entry<?>> current = batch;
+        batch = new ArrayList<>();
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
+        }
+        return current;
+    }
+
+    private void dispatch(List<Entry<?>> entries) {
+        Batch served = new Batch(entries);
+        database.submit(served, () -> database.serve(served)).whenComplete((ignored, error) -> {
+            if (error == null)
+                return;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+                    : error;
+            for (Entry<?> entry : entries)
+                entry.future.completeExceptionally(cause);
+        });
+    }
+
+    /**
+     * The queries of one batch, served as a single read-only query.
+     */
+    private final class Batch implements DatabaseQuery<Void> {
+
+        private final List<Entry<?>> entries;
+
+        private Batch(List<Entry<?>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public Void serve(Database<?> database) {
+            if (multiStatements && entries.size() > 1)
+                serveJoined(database);
+            else
+                serveEach(database, 0);
+            return null;
+        }
+
+        private void serveJoined(Database<?> database) {
+            Connection connection = database.<Connection>getConnectionContainer().getConnection();
+            StringBuilder sql = new StringBuilder();
+            for (Entry<?> entry : entries) {
+                if (sql.length() > 0)
+                    sql.append("; ");
+                sql.append(entry.query.getSql());
+            }
+
+            int index = 0;
+            // the joined text differs from batch to batch: prepared through the
+            // statement cache it would only evict the statements worth caching
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                int parameter = 1;
+                for (Entry<?> entry : entries) {
+                    for (Object value : entry.query.getParameters())
+                        statement.setObject(parameter++, value);
+                }
+
+                boolean hasResultSet = statement.execute();
+                for (; index < entries.size(); index++) {
+                    if (index > 0)
+                        hasResultSet = statement.getMoreResults();
+                    if (!hasResultSet)
+                        throw new SQLException("Statement " + entries.get(index).query.getSql()
+                                + " did not return a result set.");
+                    try (ResultSet resultSet = statement.getResultSet()) {
+                        entries.get(index).map(database, resultSet);
+                    }
+                }
+            } catch (SQLException e) {
+                // reads can be repeated: the failing query reports its own error on its own
+                serveEach(database, index);
+            }
+        }
+
+        private void serveEach(Database<?> database, int from) {
+            for (int index = from; index < entries.size(); index++)
+                entries.get(index).serve(database);
+        }
+
+        @Override
+        public boolean canServe(Database<?> database) {
+            return database.isConnected();
+        }
+
+        @Override
+        public Class<?> getServiceType() {
+            return QueryPipeline.class;
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+    }
+
+    /**
+     * A query waiting in a batch together with its completion future.
+     *
+     * @param <R> the type of the query result.
+     */
+    private static final class Entry<R> {
+        private final PipelinedQuery<R> query;
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Entry(PipelinedQuery<R> query) {
+            this.query = query;
+        }
+
+        private void map(Database<?> database, ResultSet resultSet) {
+            try {
+                future.complete(query.map(resultSet));
+            } catch (SQLException | RuntimeException e) {
+                fail(database, e);
+            }
+        }
+
+        private void serve(Database<?> database) {
+            try {
+                future.complete(query.serve(database));
+            } catch (RuntimeException e) {
+                fail(database, e);
+            }
+        }
+
+        /**
+         * Fails the query and reports the failure to the circuit breaker and
+         * metrics of the database, as serving the query on its own would.
+         */
+        private void fail(Database<?> database, Exception failure) {
+            CircuitBreaker breaker = database.getCircuitBreaker();
+            if (breaker != null)
+                breaker.onFailure(failure);
+            SQLException cause = RetryClassifier.findSQLException(failure);
+            database.getMetrics().incrementError(database.getName(), query.getServiceType(),
+                    cause == null ? null : cause.getSQLState());
+            future.completeExceptionally(failure);
+        }
+    }
+}
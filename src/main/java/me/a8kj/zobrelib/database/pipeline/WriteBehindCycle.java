@@ -0,0 +1,94 @@
+package me.a8kj.zobrelib.database.pipeline;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.cycle.BaseDataBaseCycle;
+import me.a8kj.zobrelib.database.cycle.DatabaseCycle;
+import me.a8kj.zobrelib.database.cycle.StartupTimings;
+import me.a8kj.zobrelib.database.enums.ConnectionStatus;
+
+/**
+ * A {@link DatabaseCycle} decorator that flushes write-behind queues on
+ * disconnect.
+ * <p>
+ * Every {@link WriteBehindQueue} created for a database using this cycle
+ * registers itself, and is flushed from
+ * {@link DatabaseCycle#onDisconnecting()} while the connection is still open,
+ * before the wrapped cycle's {@link DatabaseCycle#onDisconnect()} runs, so
+ * queued writes are not lost on shutdown.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class WriteBehindCycle extends BaseDataBaseCycle {
+
+    private final DatabaseCycle delegate;
+    private final List<WriteBehindQueue<?>> queues = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a cycle wrapping the given cycle.
+     * 
+     * @param delegate the cycle receiving the lifecycle callbacks.
+     */
+    public WriteBehindCycle(DatabaseCycle delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Registers a queue to be flushed on disconnect.
+     * 
+     * @param queue the queue to register.
+     */
+    public void register(WriteBehindQueue<?> queue) {
+        queues.add(queue);
+    }
+
+    /**
+     * Unregisters a closed queue.
+     * 
+     * @param queue the queue to unregister.
+     */
+    public void unregister(WriteBehindQueue<?> queue) {
+        queues.remove(queue);
+    }
+
+    @Override
+    public void onConnect() {
+        delegate.onConnect();
+    }
+
+    @Override
+    public void onConnect(StartupTimings timings) {
+        delegate.onConnect(timings);
+    }
+
+    @Override
+    public void onDisconnecting() {
+        for (WriteBehindQueue<?> queue : queues)
+            queue.flush();
+        delegate.onDisconnecting();
+    }
+
+    @Override
+    public void onDisconnect() {
+        delegate.onDisconnect();
+    }
+
+    @Override
+    public void onRestart() {
+        delegate.onRestart();
+    }
+
+    @Override
+    public void onStatusChange(ConnectionStatus previous, ConnectionStatus current) {
+        delegate.onStatusChange(previous, current);
+    }
+
+    @Override
+    public void setDatabase(Database<?> database) {
+        super.setDatabase(database);
+        delegate.setDatabase(database);
+    }
+}
@@ -0,0 +1,284 @@
+package me.a8kj.zobrelib.database.pipeline;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+
+/**
+ * A write-behind stage in front of a {@link Database}.
+ * <p>
+ * Writes are enqueued together with a key and drained by a single dedicated
+ * writer thread, which takes up to {@code maxDrain} writes at a time and
+ * serves each through {@link Database#serve(DatabaseService)}, so the circuit
+ * breaker, metrics and result cache of the database apply to them. Enqueuing
+ * a write for a key that is still pending replaces the pending write
+ * (coalescing), and the futures of both writes complete once the replacement
+ * has been written. The queue is bounded: once {@code capacity} distinct keys
+ * are pending, {@link #enqueue(Object, DatabaseService)} blocks until the
+ * writer catches up.
+ * </p>
+ * <p>
+ * If the database uses a {@link WriteBehindCycle}, the queue registers itself
+ * so that it is flushed as part of disconnecting; otherwise call
+ * {@link #flush()} or {@link #close()} before disconnecting. Closing the queue
+ * unregisters it again.
+ * </p>
+ *
+ * @param <K> the type of the coalescing key.
+ * @author a8kj7sea
+ */
+public class WriteBehindQueue<K> implements AutoCloseable {
+
+    @Getter
+    private final Database<?> database;
+    @Getter
+    private final int capacity;
+    @Getter
+    private final int maxDrain;
+
+    private final Map<K, PendingWrite> pending = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private final Thread writer;
+    private boolean writing;
+    private boolean closed;
+
+    /**
+     * Creates a write-behind queue for the given database and starts its writer
+     * thread.
+     *
+     * @param database the database the writes are served on.
+     * @param capacity the maximum number of distinct pending keys.
+     * @param maxDrain the maximum number of writes the writer takes from the
+     *                 queue at a time; each is still served on its own lease.
+     * @throws IllegalArgumentException if {@code capacity} or {@code maxDrain} is
+     *                                  not positive.
+     */
+    public WriteBehindQueue(Database<?> database, int capacity, int maxDrain) {
+        if (capacity <= 0 || maxDrain <= 0)
+            throw new IllegalArgumentException("Capacity and drain size must be positive!");
+        this.database = database;
+        this.capacity = capacity;
+        this.maxDrain = maxDrain;
+        this.writer = new Thread(this::drainLoop, "zobrelib-write-behind-" + database.getName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+
+        if (database.getCycle() instanceof WriteBehindCycle)
+            ((WriteBehindCycle) database.getCycle()).register(this);
+    }
+
+    /**
+     * Enqueues a write, blocking while the queue is full.
+     *
+     * @param key     the coalescing key of the write.
+     * @param service the service performing the write.
+     * @return a future completed once the write (or a write that replaced it) has
+     *         been served.
+     * @throws DatabaseExceptionBase if the queue is closed or the calling thread
+     *                               is interrupted while waiting.
+     */
+    public CompletableFuture<Void> enqueue(K key, DatabaseService service) {
+        try {
+            lock.lockInterruptibly();
+            try {
+                while (isFull(key))
+                    notFull.await();
+                return add(key, service);
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseExceptionBase("Interrupted while enqueuing a write", e);
+        }
+    }
+
+    /**
+     * Enqueues a write, waiting at most the given time for space in the queue.
+     *
+     * @param key     the coalescing key of the write.
+     * @param service the service performing the write.
+     * @param timeout the maximum time to wait for space.
+     * @param unit    the time unit of the timeout.
+     * @return a future completed once the write has been served, or null if the
+     *         queue stayed full for the whole timeout.
+     * @throws DatabaseExceptionBase if the queue is closed or the calling thread
+     *                               is interrupted while waiting.
+     */
+    public CompletableFuture<Void> offer(K key, DatabaseService service, long timeout, TimeUnit unit) {
+        try {
+            long remaining = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                while (isFull(key)) {
+                    if (remaining <= 0)
+                        return null;
+                    remaining = notFull.awaitNanos(remaining);
+                }
+                return add(key, service);
+            } finally {
+                lock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseExceptionBase("Interrupted while enqueuing a write", e);
+        }
+    }
+
+    /**
+     * Retrieves the number of distinct keys waiting to be written.
+     *
+     * @return the number of pending writes.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every write enqueued before this call has been served.
+     *
+     * @throws DatabaseExceptionBase if the calling thread is interrupted while
+     *                               waiting.
+     */
+    public void flush() {
+        if (Thread.currentThread() == writer)
+            return;
+        lock.lock();
+        try {
+            while (!pending.isEmpty() || writing)
+                drained.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DatabaseExceptionBase("Interrupted while flushing the write-behind queue", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting writes, flushes the pending ones, stops the writer thread
+     * and unregisters the queue from its {@link WriteBehindCycle}.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flush();
+
+        if (database.getCycle() instanceof WriteBehindCycle)
+            ((WriteBehindCycle) database.getCycle()).unregister(this);
+    }
+
+    private boolean isFull(K key) {
+        if (closed)
+            throw new DatabaseExceptionBase("Write-behind queue for " + database.getName() + " is closed.");
+        return pending.size() >= capacity && !pending.containsKey(key);
+    }
+
+    private CompletableFuture<Void> add(K key, DatabaseService service) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        PendingWrite previous = pending.get(key);
+        if (previous != null) {
+            CompletableFuture<Void> replaced = previous.future;
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    replaced.completeExceptionally(error);
+                } else {
+                    replaced.complete(result);
+                }
+            });
+        }
+        pending.put(key, new PendingWrite(service, future));
+        notEmpty.signal();
+        return future;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            List<PendingWrite> batch = new ArrayList<>();
+            lock.lock();
+            try {
+                while (pending.isEmpty()) {
+                    if (closed)
+                        return;
+                    notEmpty.awaitUninterruptibly();
+                }
+                Iterator<PendingWrite> iterator = pending.values().iterator();
+                while (iterator.hasNext() && batch.size() < maxDrain) {
+                    batch.add(iterator.next());
+                    iterator.remove();
+                }
+                writing = true;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                write(batch);
+            } catch (Throwable e) {
+                // keep the writer alive, otherwise later writes and flush() would wait forever
+                for (PendingWrite write : batch)
+                    write.future.completeExceptionally(e);
+            } finally {
+                lock.lock();
+                try {
+                    writing = false;
+                    if (pending.isEmpty())
+                        drained.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        for (PendingWrite write : batch) {
+            try {
+                database.serve(write.service);
+                write.future.complete(null);
+            } catch (RuntimeException e) {
+                write.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * A write waiting in the queue together with its completion future.
+     */
+    private static final class PendingWrite {
+        private final DatabaseService service;
+        private final CompletableFuture<Void> future;
+
+        private PendingWrite(DatabaseService service, CompletableFuture<Void> future) {
+            this.service = service;
+            this.future = future;
+        }
+    }
+}
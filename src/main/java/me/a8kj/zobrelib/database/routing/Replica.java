@@ -0,0 +1,58 @@
+package me.a8kj.zobrelib.database.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+
+/**
+ * A read replica of a {@link ReplicatedDatabase}.
+ * <p>
+ * A replica is healthy while its database is connected; since circuit breakers
+ * report open circuits through the connection status, a replica whose breaker
+ * opens is ejected from routing until it closes again.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class Replica {
+
+    @Getter
+    private final Database<?> database;
+    @Getter
+    private final int weight;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    Replica(Database<?> database, int weight) {
+        if (weight <= 0)
+            throw new IllegalArgumentException("Replica weight must be positive!");
+        this.database = database;
+        this.weight = weight;
+    }
+
+    /**
+     * Checks whether reads may be routed to this replica.
+     * 
+     * @return true if the replica is connected.
+     */
+    public boolean isHealthy() {
+        return database.isConnected();
+    }
+
+    /**
+     * Retrieves the number of reads currently running on this replica.
+     * 
+     * @return the number of outstanding reads.
+     */
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    void acquire() {
+        outstanding.incrementAndGet();
+    }
+
+    void release() {
+        outstanding.decrementAndGet();
+    }
+}
@@ -0,0 +1,63 @@
+package me.a8kj.zobrelib.database.routing;
+
+/**
+ * How a {@link ReplicatedDatabase} picks the replica serving a read.
+ * 
+ * @author a8kj7sea
+ */
+public enum ReplicaSelection {
+
+    /**
+     * Picks the healthy replica with the fewest outstanding reads relative to
+     * its weight, rotating the starting point to spread ties.
+     */
+    LEAST_OUTSTANDING {
+        @Override
+        Replica select(Replica[] replicas, int totalWeight, long tick) {
+            Replica best = null;
+            int start = (int) (tick % replicas.length);
+            for (int offset = 0; offset < replicas.length; offset++) {
+                Replica replica = replicas[(start + offset) % replicas.length];
+                if (!replica.isHealthy())
+                    continue;
+                // outstanding / weight < best outstanding / best weight, without dividing
+                if (best == null || (long) replica.getOutstanding() * best.getWeight() < (long) best.getOutstanding()
+                        * replica.getWeight())
+                    best = replica;
+            }
+            return best;
+        }
+    },
+
+    /**
+     * Cycles through the replicas, each receiving reads in proportion to its
+     * weight. Reads for an unhealthy replica go to the next healthy one.
+     */
+    WEIGHTED_ROUND_ROBIN {
+        @Override
+        Replica select(Replica[] replicas, int totalWeight, long tick) {
+            int slot = (int) (tick % totalWeight);
+            int index = 0;
+            while (slot >= replicas[index].getWeight()) {
+                slot -= replicas[index].getWeight();
+                index++;
+            }
+            for (int offset = 0; offset < replicas.length; offset++) {
+                Replica replica = replicas[(index + offset) % replicas.length];
+                if (replica.isHealthy())
+                    return replica;
+            }
+            return null;
+        }
+    };
+
+    /**
+     * Picks a replica.
+     * 
+     * @param replicas    the replicas, not empty.
+     * @param totalWeight the sum of the replica weights.
+     * @param tick        a counter incremented for every read.
+     * @return the healthy replica to use, or null if none is healthy.
+     */
+    abstract Replica select(Replica[] replicas, int totalWeight, long tick);
+}
@@ -0,0 +1,427 @@
+package me.a8kj.zobrelib.database.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+import lombok.Setter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.Databases;
+import me.a8kj.zobrelib.database.attributes.ConnectionContainer;
+import me.a8kj.zobrelib.database.attributes.CredentialsKey;
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentials;
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+import me.a8kj.zobrelib.database.cache.QueryResultCache;
+import me.a8kj.zobrelib.database.cycle.DatabaseCycle;
+import me.a8kj.zobrelib.database.enums.ConnectionStatus;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.database.service.ServiceCall;
+import me.a8kj.zobrelib.database.stream.RowCursor;
+import me.a8kj.zobrelib.database.stream.StreamingQuery;
+
+/**
+ * A {@link Database} routing services between a primary database and its read
+ * replicas.
+ * <p>
+ * Services and queries are served by the primary unless they declare
+ * themselves {@link DatabaseQuery#isReadOnly() read-only}, in which case a
+ * healthy replica is picked according to the {@link ReplicaSelection}. Reads
+ * fall back to the primary while no replica is healthy. Each member keeps its
+ * own pool, circuit breaker, metrics and tracer; services always receive the
+ * member serving them as their database.
+ * </p>
+ * <p>
+ * With read-your-writes stickiness enabled, reads issued by a thread within the
+ * stickiness window after one of its writes go to the primary, hiding
+ * replication lag from that thread. Asynchronous services inherit the
+ * stickiness of the thread that submitted them.
+ * </p>
+ *
+ * <pre>
+ * ReplicatedDatabase&lt;DatabaseCycle&gt; database = new ReplicatedDatabase&lt;&gt;("players", cycle, primary);
+ * database.addReplica(replicaA, 2);
+ * database.addReplica(replicaB, 1);
+ * database.setStickiness(2, TimeUnit.SECONDS);
+ * database.connect();
+ * </pre>
+ * 
+ * @param <U> the type of the database cycle.
+ * @author a8kj7sea
+ */
+public class ReplicatedDatabase<U extends DatabaseCycle> implements Database<U> {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final U cycle;
+    @Getter
+    private final Database<?> primary;
+    private volatile ConnectionStatus status = ConnectionStatus.DISCONNECTED;
+
+    private volatile ReplicaSet replicaSet = ReplicaSet.NONE;
+    private final AtomicLong ticks = new AtomicLong();
+    @Getter
+    @Setter
+    private volatile ReplicaSelection selection = ReplicaSelection.LEAST_OUTSTANDING;
+    @Getter
+    private volatile long stickinessNanos;
+    private final ThreadLocal<Session> sessions = ThreadLocal.withInitial(Session::new);
+
+    @Getter
+    @Setter
+    private ExecutorService executor = DatabaseService.EXECUTOR;
+    @Getter
+    @Setter
+    private QueryResultCache resultCache;
+
+    /**
+     * Creates a routing database without replicas.
+     * 
+     * @param name    the name of the routing database.
+     * @param cycle   the cycle notified of the lifecycle of the routing database.
+     * @param primary the database serving writes and fallback reads.
+     */
+    public ReplicatedDatabase(String name, U cycle, Database<?> primary) {
+        this.name = name;
+        this.cycle = cycle;
+        this.primary = primary;
+        this.cycle.setDatabase(this);
+    }
+
+    /**
+     * Adds a read replica. Replicas added while connected must be connected by
+     * the caller.
+     * 
+     * @param replica the replica database.
+     * @param weight  the share of reads the replica receives relative to the
+     *                others.
+     * @throws IllegalArgumentException if {@code weight} is not positive.
+     */
+    public synchronized void addReplica(Database<?> replica, int weight) {
+        ReplicaSet current = replicaSet;
+        Replica[] updated = Arrays.copyOf(current.replicas, current.replicas.length + 1);
+        updated[current.replicas.length] = new Replica(replica, weight);
+        replicaSet = new ReplicaSet(updated, current.totalWeight + weight);
+    }
+
+    /**
+     * Removes a read replica. Reads already running on it complete normally.
+     * 
+     * @param replica the replica database.
+     * @return true if the replica was removed.
+     */
+    public synchronized boolean removeReplica(Database<?> replica) {
+        ReplicaSet snapshot = replicaSet;
+        Replica[] current = snapshot.replicas;
+        for (int index = 0; index < current.length; index++) {
+            if (current[index].getDatabase() != replica)
+                continue;
+            Replica[] updated = new Replica[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            replicaSet = new ReplicaSet(updated, snapshot.totalWeight - current[index].getWeight());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the read replicas.
+     * 
+     * @return a copy of the replicas.
+     */
+    public Replica[] getReplicas() {
+        return replicaSet.replicas.clone();
+    }
+
+    /**
+     * Sets how long after a write the reads of the writing thread stay on the
+     * primary.
+     * 
+     * @param stickiness the stickiness window, or 0 to disable stickiness.
+     * @param unit       the time unit of the window.
+     */
+    public void setStickiness(long stickiness, TimeUnit unit) {
+        this.stickinessNanos = unit.toNanos(stickiness);
+    }
+
+    @Override
+    public ConnectionStatus getStatus() {
+        ConnectionStatus current = status;
+        return current == ConnectionStatus.CONNECTED ? primary.getStatus() : current;
+    }
+
+    @Override
+    public void setCredentials(DatabaseCredentials<? extends Enum<? extends CredentialsKey>> credentials) {
+        primary.setCredentials(credentials);
+    }
+
+    @Override
+    public DatabaseCredentials<? extends Enum<? extends CredentialsKey>> getCredentials() {
+        return primary.getCredentials();
+    }
+
+    @Override
+    public <C> ConnectionContainer<C> getConnectionContainer() {
+        return primary.getConnectionContainer();
+    }
+
+    @Override
+    public <C> ConnectionLease<C> borrowConnection() {
+        return primary.borrowConnection();
+    }
+
+    @Override
+    public void updateConnectionStatus(ConnectionStatus status) {
+        ConnectionStatus previous = this.status;
+        this.status = status;
+        if (previous != status)
+            cycle.onStatusChange(previous, status);
+    }
+
+    /**
+     * Connects the primary and every replica in parallel. Replicas that fail to
+     * connect are left out of routing until they are connected.
+     * 
+     * @throws DatabaseExceptionBase if the primary fails to connect.
+     */
+    @Override
+    public void connect() {
+        List<Database<?>> members = new ArrayList<>();
+        if (!primary.isConnected())
+            members.add(primary);
+        for (Replica replica : replicaSet.replicas)
+            if (!replica.getDatabase().isConnected())
+                members.add(replica.getDatabase());
+
+        Map<Database<?>, RuntimeException> failures = Databases.connectAll(members);
+        failures.forEach((member, failure) -> {
+            if (member != primary)
+                System.err.println("Failed to connect replica " + member.getName() + " of " + name + ": "
+                        + failure.getMessage());
+        });
+        if (!primary.isConnected()) {
+            updateConnectionStatus(ConnectionStatus.ERROR);
+            throw new DatabaseExceptionBase("Failed to connect the primary of " + name + "!", failures.get(primary));
+        }
+        updateConnectionStatus(ConnectionStatus.CONNECTED);
+        cycle.onConnect();
+    }
+
+    @Override
+    public void restart() {
+        disconnect();
+        connect();
+        cycle.onRestart();
+    }
+
+    @Override
+    public void disconnect() {
+        if (status == ConnectionStatus.DISCONNECTED)
+            throw new DatabaseExceptionBase("No active connection to disconnect.");
+
+        cycle.onDisconnecting();
+        for (Replica replica : replicaSet.replicas) {
+            try {
+                if (replica.getDatabase().getStatus() != ConnectionStatus.DISCONNECTED)
+                    replica.getDatabase().disconnect();
+            } catch (RuntimeException e) {
+                System.err.println("Failed to disconnect replica " + replica.getDatabase().getName() + " of " + name
+                        + ": " + e.getMessage());
+            }
+        }
+        if (primary.getStatus() != ConnectionStatus.DISCONNECTED)
+            primary.disconnect();
+        updateConnectionStatus(ConnectionStatus.DISCONNECTED);
+        cycle.onDisconnect();
+    }
+
+    /**
+     * Serves a query on the primary or a replica, through the result cache of
+     * this routing database if one is set.
+     */
+    @Override
+    public <R> R serve(DatabaseQuery<R> query, ServiceCall call) {
+        if (!isConnected())
+            throw new IllegalStateException("Cannot serve this database!");
+
+        QueryResultCache cache = resultCache;
+        Supplier<R> execution = () -> route(query, call);
+        return cache == null ? execution.get() : cache.serve(query, execution);
+    }
+
+    /**
+     * Opens the cursor on a replica, since streaming queries only read, unless
+     * the calling thread wrote recently and must read its own writes from the
+     * primary. The read counts as outstanding on the replica until the cursor is
+     * closed.
+     */
+    @Override
+    public <T> RowCursor<T> openCursor(StreamingQuery<T> query) {
+        if (!isConnected())
+            throw new IllegalStateException("Cannot serve this database!");
+
+        Replica replica = isSticky() ? null : selectReplica();
+        if (replica == null)
+            return primary.openCursor(query);
+        replica.acquire();
+        try {
+            return new ReplicaCursor<>(replica.getDatabase().openCursor(query), replica);
+        } catch (RuntimeException e) {
+            replica.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs asynchronous work with the read-your-writes stickiness of the
+     * submitting thread.
+     */
+    @Override
+    public Executor executorFor(DatabaseQuery<?> query) {
+        Executor delegate = Database.super.executorFor(query);
+        if (stickinessNanos <= 0)
+            return delegate;
+
+        Session session = sessions.get();
+        return task -> delegate.execute(() -> {
+            Session previous = sessions.get();
+            sessions.set(session);
+            try {
+                task.run();
+            } finally {
+                sessions.set(previous);
+            }
+        });
+    }
+
+    private <R> R route(DatabaseQuery<R> query, ServiceCall call) {
+        if (!query.isReadOnly()) {
+            try {
+                return primary.serve(query, call);
+            } finally {
+                if (stickinessNanos > 0)
+                    sessions.get().lastWriteNanos = System.nanoTime();
+            }
+        }
+
+        Replica replica = isSticky() ? null : selectReplica();
+        if (replica == null)
+            return primary.serve(query, call);
+
+        replica.acquire();
+        try {
+            return replica.getDatabase().serve(query, call);
+        } finally {
+            replica.release();
+        }
+    }
+
+    private boolean isSticky() {
+        long window = stickinessNanos;
+        if (window <= 0)
+            return false;
+        long lastWrite = sessions.get().lastWriteNanos;
+        return lastWrite != Session.NEVER && System.nanoTime() - lastWrite < window;
+    }
+
+    private Replica selectReplica() {
+        ReplicaSet current = replicaSet;
+        if (current.replicas.length == 0)
+            return null;
+        return selection.select(current.replicas, current.totalWeight, ticks.getAndIncrement() & Long.MAX_VALUE);
+    }
+
+    /**
+     * The replicas and their total weight, replaced together so that a selection
+     * never sees the weight of another set of replicas.
+     */
+    private static final class ReplicaSet {
+        private static final ReplicaSet NONE = new ReplicaSet(new Replica[0], 0);
+
+        private final Replica[] replicas;
+        private final int totalWeight;
+
+        private ReplicaSet(Replica[] replicas, int totalWeight) {
+            this.replicas = replicas;
+            this.totalWeight = totalWeight;
+        }
+    }
+
+    /**
+     * A cursor on a replica, releasing its outstanding read once closed.
+     *
+     * @param <T> the type of the rows.
+     */
+    private static final class ReplicaCursor<T> implements RowCursor<T> {
+        private final RowCursor<T> delegate;
+        private final Replica replica;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReplicaCursor(RowCursor<T> delegate, Replica replica) {
+            this.delegate = delegate;
+            this.replica = replica;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return delegate.hasNext();
+            } finally {
+                releaseIfClosed();
+            }
+        }
+
+        @Override
+        public T next() {
+            try {
+                return delegate.next();
+            } finally {
+                releaseIfClosed();
+            }
+        }
+
+        @Override
+        public boolean isClosed() {
+            return delegate.isClosed();
+        }
+
+        @Override
+        public long getRowCount() {
+            return delegate.getRowCount();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                releaseIfClosed();
+            }
+        }
+
+        // the delegate closes itself once exhausted or failed
+        private void releaseIfClosed() {
+            if (delegate.isClosed() && released.compareAndSet(false, true))
+                replica.release();
+        }
+    }
+
+    /**
+     * The writes of a thread, shared with the asynchronous work it submits.
+     */
+    private static final class Session {
+        private static final long NEVER = Long.MIN_VALUE;
+        private volatile long lastWriteNanos = NEVER;
+    }
+}
@@ -0,0 +1,36 @@
+package me.a8kj.zobrelib.database.routing;
+
+import java.util.Collection;
+
+import me.a8kj.zobrelib.database.Database;
+
+/**
+ * Maps shard keys to the databases of a {@link ShardedDatabase}.
+ * <p>
+ * Implementations must be safe for concurrent lookups while shards are added
+ * or removed.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public interface ShardMap {
+
+    /**
+     * Resolves the shard owning a key.
+     * 
+     * @param key the shard key, never null.
+     * @return the database holding the key.
+     * @throws me.a8kj.zobrelib.database.exception.DatabaseExceptionBase if no
+     *                                                                   shard
+     *                                                                   owns the
+     *                                                                   key.
+     */
+    Database<?> shardFor(Object key);
+
+    /**
+     * Retrieves every shard of the map.
+     * 
+     * @return the distinct shards, in a stable order.
+     */
+    Collection<Database<?>> getShards();
+}
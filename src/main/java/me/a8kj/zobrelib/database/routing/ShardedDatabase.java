@@ -0,0 +1,350 @@
+package me.a8kj.zobrelib.database.routing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import lombok.Getter;
+import lombok.Setter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.Databases;
+import me.a8kj.zobrelib.database.attributes.ConnectionContainer;
+import me.a8kj.zobrelib.database.attributes.CredentialsKey;
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentials;
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+import me.a8kj.zobrelib.database.cycle.DatabaseCycle;
+import me.a8kj.zobrelib.database.enums.ConnectionStatus;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.routing.impl.MergedCursor;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.database.service.ServiceCall;
+import me.a8kj.zobrelib.database.stream.RowCursor;
+import me.a8kj.zobrelib.database.stream.StreamingQuery;
+
+/**
+ * A {@link Database} spreading data over several shard databases by key.
+ * <p>
+ * Services and queries returning a {@link DatabaseQuery#getShardKey() shard
+ * key} are served directly by the shard owning the key according to the
+ * {@link ShardMap}, so services always receive a single shard as their
+ * database. Work spanning shards goes through {@link #fanOut(DatabaseQuery)},
+ * {@link #fanOut(DatabaseQuery, Comparator, int)} or
+ * {@link #openCursor(StreamingQuery, Comparator, int)}, which run on every shard
+ * in parallel and merge the results.
+ * </p>
+ * <p>
+ * The sharded database has no connection of its own: borrowing a connection or
+ * accessing its credentials is not supported. Every shard keeps its own pool,
+ * circuit breaker, metrics and tracer.
+ * </p>
+ *
+ * <pre>
+ * ConsistentHashShardMap shards = new ConsistentHashShardMap();
+ * shards.addShard(shardA);
+ * shards.addShard(shardB);
+ * ShardedDatabase&lt;DatabaseCycle&gt; database = new ShardedDatabase&lt;&gt;("players", cycle, shards);
+ * database.connect();
+ * </pre>
+ * 
+ * @param <U> the type of the database cycle.
+ * @author a8kj7sea
+ */
+public class ShardedDatabase<U extends DatabaseCycle> implements Database<U> {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final U cycle;
+    @Getter
+    private final ShardMap shardMap;
+    @Getter
+    private volatile ConnectionStatus status = ConnectionStatus.DISCONNECTED;
+
+    @Getter
+    @Setter
+    private ExecutorService executor = DatabaseService.EXECUTOR;
+
+    /**
+     * Creates a sharded database.
+     * 
+     * @param name     the name of the sharded database.
+     * @param cycle    the cycle notified of the lifecycle of the sharded database.
+     * @param shardMap the map resolving shard keys to shards.
+     */
+    public ShardedDatabase(String name, U cycle, ShardMap shardMap) {
+        this.name = name;
+        this.cycle = cycle;
+        this.shardMap = shardMap;
+        this.cycle.setDatabase(this);
+    }
+
+    /**
+     * Resolves the shard owning a key.
+     * 
+     * @param key the shard key.
+     * @return the shard database.
+     */
+    public Database<?> shardFor(Object key) {
+        return shardMap.shardFor(key);
+    }
+
+    @Override
+    public void setCredentials(DatabaseCredentials<? extends Enum<? extends CredentialsKey>> credentials) {
+        throw new UnsupportedOperationException("Credentials are set on the shards of " + name + "!");
+    }
+
+    @Override
+    public DatabaseCredentials<? extends Enum<? extends CredentialsKey>> getCredentials() {
+        throw new UnsupportedOperationException("Credentials are set on the shards of " + name + "!");
+    }
+
+    @Override
+    public <C> ConnectionContainer<C> getConnectionContainer() {
+        throw new UnsupportedOperationException("Connections belong to the shards of " + name + "!");
+    }
+
+    @Override
+    public <C> ConnectionLease<C> borrowConnection() {
+        throw new UnsupportedOperationException("Connections belong to the shards of " + name + "!");
+    }
+
+    @Override
+    public void updateConnectionStatus(ConnectionStatus status) {
+        ConnectionStatus previous = this.status;
+        this.status = status;
+        if (previous != status)
+            cycle.onStatusChange(previous, status);
+    }
+
+    /**
+     * Connects every shard in parallel. If one fails, the shards connected by
+     * this call are disconnected again.
+     * 
+     * @throws DatabaseExceptionBase if a shard fails to connect.
+     */
+    @Override
+    public void connect() {
+        List<Database<?>> pending = new ArrayList<>();
+        for (Database<?> shard : shardMap.getShards())
+            if (!shard.isConnected())
+                pending.add(shard);
+
+        Map<Database<?>, RuntimeException> failures = Databases.connectAll(pending);
+        for (Database<?> shard : pending)
+            if (!failures.containsKey(shard) && !shard.isConnected())
+                failures.put(shard, new DatabaseExceptionBase("Shard " + shard.getName() + " did not connect!"));
+        if (!failures.isEmpty()) {
+            for (Database<?> shard : pending)
+                if (!failures.containsKey(shard))
+                    disconnectQuietly(shard);
+            updateConnectionStatus(ConnectionStatus.ERROR);
+
+            DatabaseExceptionBase exception = null;
+            for (Map.Entry<Database<?>, RuntimeException> failure : failures.entrySet()) {
+                if (exception == null)
+                    exception = new DatabaseExceptionBase("Failed to connect shard " + failure.getKey().getName()
+                            + " of " + name + ": " + failure.getValue().getMessage(), failure.getValue());
+                else
+                    exception.addSuppressed(failure.getValue());
+            }
+            throw exception;
+        }
+        updateConnectionStatus(ConnectionStatus.CONNECTED);
+        cycle.onConnect();
+    }
+
+    @Override
+    public void restart() {
+        disconnect();
+        connect();
+        cycle.onRestart();
+    }
+
+    @Override
+    public void disconnect() {
+        if (status == ConnectionStatus.DISCONNECTED)
+            throw new DatabaseExceptionBase("No active connection to disconnect.");
+
+        cycle.onDisconnecting();
+        for (Database<?> shard : shardMap.getShards())
+            disconnectQuietly(shard);
+        updateConnectionStatus(ConnectionStatus.DISCONNECTED);
+        cycle.onDisconnect();
+    }
+
+    /**
+     * Serves a query on the shard owning its key.
+     * 
+     * @throws DatabaseExceptionBase if the query has no shard key.
+     */
+    @Override
+    public <R> R serve(DatabaseQuery<R> query, ServiceCall call) {
+        if (!isConnected())
+            throw new IllegalStateException("Cannot serve this database!");
+
+        Object key = query.getShardKey();
+        if (key == null)
+            throw new DatabaseExceptionBase(
+                    query.getServiceType().getSimpleName() + " has no shard key, use fanOut to run it on every shard!");
+        return shardMap.shardFor(key).serve(query, call);
+    }
+
+    /**
+     * Serves a query on every shard in parallel.
+     * 
+     * @param <R>   the type of the results.
+     * @param query the query to serve; its shard key is ignored.
+     * @return the result of every shard, in the order of
+     *         {@link ShardMap#getShards()}.
+     */
+    public <R> List<R> fanOut(DatabaseQuery<R> query) {
+        if (!isConnected())
+            throw new IllegalStateException("Cannot serve this database!");
+        return onEveryShard(shard -> shard.serve(query), result -> {
+        });
+    }
+
+    /**
+     * Serves a query on every shard in parallel and merges the sorted rows.
+     * <p>
+     * Every shard must return its rows sorted by {@code order}. To push the limit
+     * down, the query should itself limit its rows (e.g. {@code ORDER BY score
+     * DESC LIMIT 10}): no shard can contribute more than {@code limit} rows to
+     * the merged result.
+     * </p>
+     * 
+     * @param <T>   the type of the rows.
+     * @param query the query returning the sorted rows of one shard.
+     * @param order the order of the rows.
+     * @param limit the maximum number of rows to return, or 0 for no limit.
+     * @return the merged rows.
+     */
+    public <T> List<T> fanOut(DatabaseQuery<? extends List<T>> query, Comparator<? super T> order, int limit) {
+        List<? extends List<T>> results = fanOut(query);
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, results.size()),
+                (a, b) -> order.compare(a.row, b.row));
+        int size = 0;
+        for (List<T> result : results) {
+            size += result.size();
+            Iterator<T> rows = result.iterator();
+            if (rows.hasNext())
+                heads.add(new Head<>(rows, rows.next()));
+        }
+
+        List<T> merged = new ArrayList<>(limit > 0 ? Math.min(limit, size) : size);
+        while (!heads.isEmpty() && (limit <= 0 || merged.size() < limit)) {
+            Head<T> head = heads.poll();
+            merged.add(head.row);
+            if (head.rows.hasNext()) {
+                head.row = head.rows.next();
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Opens the query on every shard and reads the shards one after the other.
+     */
+    @Override
+    public <T> RowCursor<T> openCursor(StreamingQuery<T> query) {
+        return openCursor(query, null, 0);
+    }
+
+    /**
+     * Opens the query on every shard in parallel and merges the rows lazily.
+     * <p>
+     * The limit is pushed down to every shard as the maximum number of rows of
+     * the query, so no shard transfers more rows than the merge can use.
+     * </p>
+     * 
+     * @param <T>   the type of the rows.
+     * @param query the query; with an order it must sort its rows by it.
+     * @param order the order of the rows, or null to read the shards one after
+     *              the other.
+     * @param limit the maximum number of rows to read, or 0 for no limit.
+     * @return a cursor over the rows of every shard.
+     */
+    public <T> RowCursor<T> openCursor(StreamingQuery<T> query, Comparator<? super T> order, int limit) {
+        if (!isConnected())
+            throw new IllegalStateException("Cannot serve this database!");
+
+        StreamingQuery<T> shardQuery = limit > 0 && (query.getMaxRows() <= 0 || query.getMaxRows() > limit)
+                ? query.withMaxRows(limit)
+                : query;
+        List<RowCursor<T>> cursors = onEveryShard(shard -> shard.openCursor(shardQuery), RowCursor::close);
+        return new MergedCursor<>(cursors, order, limit);
+    }
+
+    /**
+     * Runs a task on every shard, all but the first on the executor and the first
+     * on the calling thread. If a task fails, the results of the others are passed
+     * to {@code discard} before the failure is rethrown.
+     */
+    private <R> List<R> onEveryShard(Function<Database<?>, R> task, Consumer<R> discard) {
+        List<Database<?>> shards = new ArrayList<>(shardMap.getShards());
+        if (shards.isEmpty())
+            return new ArrayList<>();
+
+        List<CompletableFuture<R>> futures = new ArrayList<>(shards.size());
+        futures.add(null);
+        for (int index = 1; index < shards.size(); index++) {
+            Database<?> shard = shards.get(index);
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(shard), executor));
+        }
+
+        List<R> results = new ArrayList<>(shards.size());
+        RuntimeException failure = null;
+        try {
+            results.add(task.apply(shards.get(0)));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (int index = 1; index < futures.size(); index++) {
+            try {
+                results.add(futures.get(index).join());
+            } catch (CompletionException e) {
+                if (failure == null)
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        if (failure != null) {
+            for (R result : results)
+                discard.accept(result);
+            throw failure;
+        }
+        return results;
+    }
+
+    private static void disconnectQuietly(Database<?> shard) {
+        try {
+            if (shard.getStatus() != ConnectionStatus.DISCONNECTED)
+                shard.disconnect();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to disconnect shard " + shard.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The next unmerged row of a shard.
+     */
+    private static final class Head<T> {
+        private final Iterator<T> rows;
+        private T row;
+
+        private Head(Iterator<T> rows, T row) {
+            this.rows = rows;
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package me.a8kj.zobrelib.database.routing.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.routing.ShardMap;
+
+/**
+ * A {@link ShardMap} placing shards on a consistent hash ring.
+ * <p>
+ * Every shard owns a number of virtual nodes hashed from its name, and a key
+ * belongs to the first virtual node at or after the hash of its string form.
+ * Adding a shard only moves the keys falling between its virtual nodes and
+ * their predecessors, roughly {@code 1 / shards} of all keys, and removing one
+ * only moves the keys it owned. Since placement depends on the shard names
+ * alone, shards must keep their names across restarts.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class ConsistentHashShardMap implements ShardMap {
+
+    /**
+     * The number of virtual nodes per shard used when none is given.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    @Getter
+    private final int virtualNodes;
+    private volatile NavigableMap<Long, Database<?>> ring = new TreeMap<>();
+    private volatile List<Database<?>> shards = Collections.emptyList();
+
+    /**
+     * Creates an empty ring with {@link #DEFAULT_VIRTUAL_NODES} virtual nodes per
+     * shard.
+     */
+    public ConsistentHashShardMap() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates an empty ring.
+     * 
+     * @param virtualNodes the number of virtual nodes per shard; more nodes give a
+     *                     more even distribution at the cost of a larger ring.
+     */
+    public ConsistentHashShardMap(int virtualNodes) {
+        if (virtualNodes <= 0)
+            throw new IllegalArgumentException("Virtual nodes must be positive!");
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Adds a shard to the ring.
+     * 
+     * @param shard the shard database, identified by its name.
+     * @throws IllegalArgumentException if a shard with the same name exists.
+     */
+    public synchronized void addShard(Database<?> shard) {
+        for (Database<?> existing : shards)
+            if (existing.getName().equals(shard.getName()))
+                throw new IllegalArgumentException("Shard " + shard.getName() + " already exists!");
+
+        NavigableMap<Long, Database<?>> updated = new TreeMap<>(ring);
+        for (int node = 0; node < virtualNodes; node++)
+            updated.putIfAbsent(hash(shard.getName() + "#" + node), shard);
+        List<Database<?>> updatedShards = new ArrayList<>(shards);
+        updatedShards.add(shard);
+
+        ring = updated;
+        shards = Collections.unmodifiableList(updatedShards);
+    }
+
+    /**
+     * Removes a shard from the ring. Its keys move to the following shards.
+     * 
+     * @param shard the shard database.
+     * @return true if the shard was removed.
+     */
+    public synchronized boolean removeShard(Database<?> shard) {
+        if (!shards.contains(shard))
+            return false;
+
+        NavigableMap<Long, Database<?>> updated = new TreeMap<>(ring);
+        updated.values().removeIf(owner -> owner == shard);
+        List<Database<?>> updatedShards = new ArrayList<>(shards);
+        updatedShards.remove(shard);
+
+        ring = updated;
+        shards = Collections.unmodifiableList(updatedShards);
+        return true;
+    }
+
+    @Override
+    public Database<?> shardFor(Object key) {
+        NavigableMap<Long, Database<?>> current = ring;
+        if (current.isEmpty())
+            throw new DatabaseExceptionBase("No shard available for key " + key + "!");
+
+        Map.Entry<Long, Database<?>> owner = current.ceilingEntry(hash(String.valueOf(key)));
+        return (owner == null ? current.firstEntry() : owner).getValue();
+    }
+
+    @Override
+    public Collection<Database<?>> getShards() {
+        return shards;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so
+     * that similar keys spread over the whole ring. Unlike
+     * {@link Object#hashCode()} the result is stable across JVMs.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
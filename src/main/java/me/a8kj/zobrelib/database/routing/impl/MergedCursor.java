@@ -0,0 +1,151 @@
+package me.a8kj.zobrelib.database.routing.impl;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import me.a8kj.zobrelib.database.stream.RowCursor;
+
+/**
+ * A {@link RowCursor} combining the cursors opened on several shards.
+ * <p>
+ * Without an order the shard cursors are read one after the other. With an
+ * order every shard cursor must already be sorted by it, and rows are merged
+ * lazily with a heap holding one row per shard, so the merge never buffers
+ * more than one row per shard. Reading stops after the limit, closing every
+ * shard cursor.
+ * </p>
+ * 
+ * @param <T> the type of the rows.
+ * @author a8kj7sea
+ */
+public class MergedCursor<T> implements RowCursor<T> {
+
+    private final List<RowCursor<T>> cursors;
+    private final PriorityQueue<Head<T>> heads;
+    private final long limit;
+
+    private int current;
+    private boolean started;
+    private boolean closed;
+    private long rowCount;
+
+    /**
+     * Creates a merged cursor.
+     * 
+     * @param cursors the shard cursors, owned by the merged cursor.
+     * @param order   the order every shard cursor is sorted by, or null to
+     *                concatenate them.
+     * @param limit   the maximum number of rows to read, or 0 for no limit.
+     */
+    public MergedCursor(List<RowCursor<T>> cursors, Comparator<? super T> order, long limit) {
+        this.cursors = cursors;
+        this.heads = order == null ? null
+                : new PriorityQueue<>(Math.max(1, cursors.size()), (a, b) -> order.compare(a.row, b.row));
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed)
+            return false;
+        if (limit > 0 && rowCount >= limit) {
+            close();
+            return false;
+        }
+
+        boolean more;
+        try {
+            more = heads == null ? advanceConcatenated() : advanceMerged();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        if (!more)
+            close();
+        return more;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        rowCount++;
+        if (heads == null)
+            return cursors.get(current).next();
+
+        Head<T> head = heads.poll();
+        T row = head.row;
+        try {
+            if (head.cursor.hasNext()) {
+                head.row = head.cursor.next();
+                heads.add(head);
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        return row;
+    }
+
+    private boolean advanceConcatenated() {
+        while (current < cursors.size()) {
+            if (cursors.get(current).hasNext())
+                return true;
+            current++;
+        }
+        return false;
+    }
+
+    private boolean advanceMerged() {
+        if (!started) {
+            started = true;
+            for (RowCursor<T> cursor : cursors)
+                if (cursor.hasNext())
+                    heads.add(new Head<>(cursor, cursor.next()));
+        }
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        RuntimeException failure = null;
+        for (RowCursor<T> cursor : cursors) {
+            try {
+                cursor.close();
+            } catch (RuntimeException e) {
+                if (failure == null)
+                    failure = e;
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * The next unread row of a shard cursor.
+     */
+    private static final class Head<T> {
+        private final RowCursor<T> cursor;
+        private T row;
+
+        private Head(RowCursor<T> cursor, T row) {
+            this.cursor = cursor;
+            this.row = row;
+        }
+    }
+}
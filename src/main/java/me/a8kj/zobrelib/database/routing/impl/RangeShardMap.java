@@ -0,0 +1,83 @@
+package me.a8kj.zobrelib.database.routing.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.routing.ShardMap;
+
+/**
+ * A {@link ShardMap} assigning contiguous key ranges to shards.
+ * <p>
+ * Each range starts at its lower bound (inclusive) and ends at the lower bound
+ * of the next range; the last range is unbounded. Splitting a range with
+ * {@link #addRange(Comparable, Database)} only moves the keys above the new
+ * bound within that range.
+ * </p>
+ *
+ * <pre>
+ * RangeShardMap&lt;Long&gt; map = new RangeShardMap&lt;&gt;();
+ * map.addRange(0L, shardA);
+ * map.addRange(10_000_000L, shardB);
+ * </pre>
+ * 
+ * @param <K> the type of the shard keys.
+ * @author a8kj7sea
+ */
+public class RangeShardMap<K extends Comparable<? super K>> implements ShardMap {
+
+    private volatile NavigableMap<K, Database<?>> ranges = new TreeMap<>();
+
+    /**
+     * Assigns the keys from a lower bound up to the next range to a shard,
+     * replacing the range starting at the same bound if any.
+     * 
+     * @param lowerBound the first key of the range.
+     * @param shard      the shard owning the range.
+     */
+    public synchronized void addRange(K lowerBound, Database<?> shard) {
+        NavigableMap<K, Database<?>> updated = new TreeMap<>(ranges);
+        updated.put(lowerBound, shard);
+        ranges = updated;
+    }
+
+    /**
+     * Removes the range starting at a lower bound; its keys move to the
+     * preceding range.
+     * 
+     * @param lowerBound the first key of the range.
+     * @return true if the range was removed.
+     */
+    public synchronized boolean removeRange(K lowerBound) {
+        if (!ranges.containsKey(lowerBound))
+            return false;
+        NavigableMap<K, Database<?>> updated = new TreeMap<>(ranges);
+        updated.remove(lowerBound);
+        ranges = updated;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Database<?> shardFor(Object key) {
+        Map.Entry<K, Database<?>> range = ranges.floorEntry((K) key);
+        if (range == null)
+            throw new DatabaseExceptionBase("No shard range covers key " + key + "!");
+        return range.getValue();
+    }
+
+    @Override
+    public Collection<Database<?>> getShards() {
+        List<Database<?>> shards = new ArrayList<>();
+        for (Database<?> shard : ranges.values())
+            if (!shards.contains(shard))
+                shards.add(shard);
+        return Collections.unmodifiableList(shards);
+    }
+}
@@ -0,0 +1,319 @@
+package me.a8kj.zobrelib.database.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.cache.TableWriter;
+import me.a8kj.zobrelib.database.enums.ConnectionMessages;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.retry.RetryClassifier;
+
+/**
+ * Service that accumulates parameter sets for a single SQL statement and
+ * writes them with JDBC batching.
+ * <p>
+ * Parameter sets are queued through {@link #add(Object...)}. Serving the
+ * service flushes every pending set through
+ * {@link PreparedStatement#addBatch()} / {@link PreparedStatement#executeBatch()}
+ * in chunks of {@code flushSize}, all wrapped in a single transaction, or in
+ * the enclosing one when served inside a transaction. A flush is due once
+ * {@code flushSize} sets are pending or the oldest pending set is older than
+ * the flush interval; {@link #scheduleFlush(Database)} enforces the time
+ * threshold in the background.
+ * </p>
+ * <p>
+ * If a flush fails, its transaction is rolled back. After a transient failure,
+ * such as a deadlock or a lost connection, the drained parameter sets are
+ * queued again ahead of the sets added meanwhile, so a retry writes the same
+ * rows; after a permanent one, such as a constraint violation, they are
+ * dropped so that they cannot block every later flush. Either way the failure
+ * is reported through the thrown {@link DatabaseExceptionBase}. Failures of
+ * scheduled flushes are handed to the handler set with
+ * {@link #onFlushFailure(Consumer)}.
+ * </p>
+ *
+ * <pre>
+ * BatchWriteService batch = new BatchWriteService("INSERT INTO test (name) VALUES (?)", 500, 1, TimeUnit.SECONDS);
+ * if (batch.add("zobre"))
+ *     batch.serveAsync(database);
+ * </pre>
+ *
+ * @author a8kj7sea
+ */
+public class BatchWriteService implements DatabaseService, TableWriter, StatementDeclarer {
+
+    @Getter
+    private final String sql;
+    @Getter
+    private final int flushSize;
+    @Getter
+    private final long flushInterval;
+    @Getter
+    private final TimeUnit unit;
+    @Getter
+    private final Collection<String> writtenTables;
+
+    private final Object lock = new Object();
+    private List<Object[]> pending = new ArrayList<>();
+    private long oldestPendingNanos;
+    private volatile Consumer<Throwable> flushFailureHandler;
+
+    /**
+     * Creates a new batch write service.
+     *
+     * @param sql           the parameterized SQL statement to execute for every
+     *                      parameter set.
+     * @param flushSize     the number of pending parameter sets that triggers a
+     *                      flush, and the size of each JDBC batch.
+     * @param flushInterval the maximum age of the oldest pending parameter set
+     *                      before a flush is due.
+     * @param unit          the time unit of the flush interval.
+     * @throws IllegalArgumentException if {@code flushSize} or
+     *                                  {@code flushInterval} is not positive.
+     */
+    public BatchWriteService(String sql, int flushSize, long flushInterval, TimeUnit unit) {
+        if (flushSize <= 0 || flushInterval <= 0)
+            throw new IllegalArgumentException("Flush size and interval must be positive!");
+        this.sql = sql;
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        this.unit = unit;
+        this.writtenTables = TableWriter.tablesOf(sql);
+    }
+
+    /**
+     * Queues a parameter set to be written on the next flush.
+     *
+     * @param parameters the statement parameters, in placeholder order.
+     * @return true if a flush is due after adding the parameter set.
+     */
+    public boolean add(Object... parameters) {
+        synchronized (lock) {
+            if (pending.isEmpty())
+                oldestPendingNanos = System.nanoTime();
+            pending.add(parameters);
+            return pending.size() >= flushSize;
+        }
+    }
+
+    /**
+     * Sets the handler receiving the failures of flushes started by
+     * {@link #scheduleFlush(Database)}. Without a handler they are reported as
+     * {@link ConnectionMessages#FAILED_FLUSH}.
+     *
+     * @param handler the handler receiving the failures, or null to report
+     *                them.
+     * @return this service.
+     */
+    public BatchWriteService onFlushFailure(Consumer<Throwable> handler) {
+        this.flushFailureHandler = handler;
+        return this;
+    }
+
+    /**
+     * Retrieves the number of parameter sets waiting for a flush.
+     *
+     * @return the number of pending parameter sets.
+     */
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Checks whether either the size or the time threshold has been reached.
+     *
+     * @return true if pending parameter sets should be flushed.
+     */
+    public boolean isFlushDue() {
+        synchronized (lock) {
+            return !pending.isEmpty() && (pending.size() >= flushSize
+                    || System.nanoTime() - oldestPendingNanos >= unit.toNanos(flushInterval));
+        }
+    }
+
+    /**
+     * Periodically serves this service on the given database whenever a flush is
+     * due, checking once per flush interval on the shared
+     * {@link ServiceScheduler}.
+     *
+     * @param database the database to flush into.
+     * @return the scheduled task; cancel it to stop time-based flushing.
+     */
+    public ScheduledFuture<?> scheduleFlush(Database<?> database) {
+        return ServiceScheduler.scheduleWithFixedDelay(() -> flushIfDue(database), flushInterval, unit);
+    }
+
+    /**
+     * Periodically serves this service on the given database whenever a flush is
+     * due, checking once per flush interval.
+     *
+     * @param database  the database to flush into.
+     * @param scheduler the scheduler driving the periodic check.
+     * @return the scheduled task; cancel it to stop time-based flushing.
+     */
+    public ScheduledFuture<?> scheduleFlush(Database<?> database, ScheduledExecutorService scheduler) {
+        return scheduler.scheduleWithFixedDelay(() -> flushIfDue(database), flushInterval, flushInterval, unit);
+    }
+
+    /**
+     * Flushes all pending parameter sets in a single transaction.
+     *
+     * @param database the database to flush into.
+     * @throws IllegalStateException If the database is not connected.
+     * @throws DatabaseExceptionBase If the batch could not be written.
+     */
+    @Override
+    public void serve(Database<?> database) {
+        if (!canServe(database)) {
+            throw new IllegalStateException("Cannot flush batch. Database is not connected.");
+        }
+
+        List<Object[]> rows;
+        long oldestNanos;
+        synchronized (lock) {
+            rows = pending;
+            oldestNanos = oldestPendingNanos;
+            pending = new ArrayList<>();
+        }
+        if (rows.isEmpty())
+            return;
+
+        Connection connection = (Connection) database.getConnectionContainer().getConnection();
+        // inside an enclosing transaction the batch joins it and leaves
+        // committing or rolling back to its owner
+        boolean ownsTransaction = false;
+        try {
+            ownsTransaction = connection.getAutoCommit();
+            if (ownsTransaction)
+                connection.setAutoCommit(false);
+            write(connection, rows);
+            if (ownsTransaction)
+                connection.commit();
+        } catch (SQLException e) {
+            abort(connection, ownsTransaction, e);
+            if (!requeueIfTransient(rows, oldestNanos, e))
+                throw new DatabaseExceptionBase("Dropped batch of " + rows.size()
+                        + " row(s) after a permanent failure: " + e.getMessage(), e);
+            throw new DatabaseExceptionBase(
+                    "Failed to flush batch of " + rows.size() + " row(s): " + e.getMessage(), e);
+        } catch (RuntimeException | Error e) {
+            abort(connection, ownsTransaction, e);
+            requeueIfTransient(rows, oldestNanos, e);
+            throw e;
+        }
+
+        // the rows are committed, so failing from here on must not queue them again
+        if (ownsTransaction) {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                throw new DatabaseExceptionBase("Flushed batch of " + rows.size()
+                        + " row(s) but failed to restore auto-commit: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private void write(Connection connection, List<Object[]> rows) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int offset = 0; offset < rows.size(); offset += flushSize) {
+                int end = Math.min(offset + flushSize, rows.size());
+                for (Object[] parameters : rows.subList(offset, end)) {
+                    for (int index = 0; index < parameters.length; index++) {
+                        statement.setObject(index + 1, parameters[index]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the batched statement, so that it can be prepared ahead.
+     *
+     * @return a singleton holding the statement.
+     */
+    @Override
+    public Collection<String> getDeclaredStatements() {
+        return Collections.singleton(sql);
+    }
+
+    /**
+     * Checks if the database is connected and the batch can be flushed.
+     *
+     * @param database the database to check.
+     * @return true if the database is connected, otherwise false.
+     */
+    @Override
+    public boolean canServe(Database<?> database) {
+        return database.isConnected();
+    }
+
+    private void flushIfDue(Database<?> database) {
+        if (isFlushDue() && canServe(database)) {
+            serveAsync(database).whenComplete((ignored, error) -> {
+                if (error == null)
+                    return;
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                Consumer<Throwable> handler = flushFailureHandler;
+                if (handler != null)
+                    handler.accept(cause);
+                else
+                    System.out.println(ConnectionMessages.FAILED_FLUSH.format(database.getName(), getSql(),
+                            cause.getMessage()));
+            });
+        }
+    }
+
+    /**
+     * Rolls back an owned transaction and restores auto-commit after a failed
+     * flush, recording any further failure on the original one.
+     */
+    private static void abort(Connection connection, boolean ownsTransaction, Throwable failure) {
+        if (!ownsTransaction)
+            return;
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Puts the rows of a failed flush back ahead of the rows added since, unless
+     * the failure is permanent: rows rejected for good (constraint violations,
+     * bad parameters, ...) would fail every later flush too.
+     *
+     * @return true if the rows were queued again.
+     */
+    private boolean requeueIfTransient(List<Object[]> rows, long oldestNanos, Throwable failure) {
+        if (!RetryClassifier.isRetryable(failure))
+            return false;
+        synchronized (lock) {
+            if (!pending.isEmpty())
+                rows.addAll(pending);
+            pending = rows;
+            oldestPendingNanos = oldestNanos;
+        }
+        return true;
+    }
+}
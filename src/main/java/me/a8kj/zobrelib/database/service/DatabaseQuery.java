@@ -0,0 +1,137 @@
+package me.a8kj.zobrelib.database.service;
+
+import java.util.concurrent.*;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.service.impl.ServiceQueryAdapter;
+
+/**
+ * Interface for defining database queries that produce a result.
+ * <p>
+ * A database query is the result-returning counterpart of
+ * {@link DatabaseService}. The query defines whether it can be executed on a
+ * particular database through the {@link #canServe(Database)} method and
+ * computes its result using the {@link #serve(Database)} method. The
+ * asynchronous variants complete their {@link CompletableFuture} with that
+ * result, so callers can compose on it instead of blocking.
+ * </p>
+ *
+ * @param <R> the type of the result produced by the query.
+ * @author a8kj7sea
+ */
+public interface DatabaseQuery<R> {
+
+    /**
+     * Executes the query synchronously on the provided database.
+     *
+     * @param database the database on which the query will operate.
+     * @return the result of the query.
+     */
+    R serve(Database<?> database);
+
+    /**
+     * Executes the query asynchronously on the provided database using the
+     * database's executor (see {@link Database#executorFor(DatabaseQuery)}). The query runs on a connection leased through
+     * {@link Database#serve(DatabaseQuery)}.
+     *
+     * @param database the database on which the query will operate.
+     * @return a CompletableFuture completed with the result of the query.
+     */
+    default CompletableFuture<R> serveAsync(Database<?> database) {
+        return database.submit(this, () -> database.serve(this));
+    }
+
+    /**
+     * Executes the query asynchronously with a timeout.
+     * <p>
+     * The timeout is tracked on the shared {@link ServiceScheduler} without
+     * holding a thread. It is also applied to the leased connection (e.g. as a
+     * JDBC query timeout), and once it elapses the work running on the lease is
+     * cancelled, so the connection is freed instead of staying busy behind an
+     * abandoned future.
+     * </p>
+     *
+     * @param database the database on which the query will operate.
+     * @param timeout  the maximum execution time.
+     * @param unit     the time unit of the timeout.
+     * @return a CompletableFuture completed with the result of the query, or
+     *         exceptionally with a {@link TimeoutException}.
+     */
+    default CompletableFuture<R> serveAsyncWithTimeout(Database<?> database, long timeout, TimeUnit unit) {
+        ServiceCall call = ServiceCall.withTimeout(timeout, unit);
+        CompletableFuture<R> future = database.submit(this, () -> database.serve(this, call));
+
+        ScheduledFuture<?> timer = ServiceScheduler.schedule(() -> {
+            if (future.completeExceptionally(new TimeoutException("Service execution timed out"))) {
+                call.cancel();
+                database.getMetrics().incrementTimeout(database.getName(), getServiceType());
+            }
+        }, timeout, unit);
+        future.whenComplete((result, error) -> timer.cancel(false));
+        return future;
+    }
+
+    /**
+     * Executes the query asynchronously with retry logic.
+     *
+     * @param database   the database on which the query will operate.
+     * @param maxRetries the maximum number of attempts.
+     * @param retryDelay the delay before the first retry.
+     * @param unit       the time unit of the retry delay.
+     * @return a CompletableFuture completed with the result of the query.
+     * @see Database#serveAsyncWithRetry(DatabaseQuery, int, long, TimeUnit)
+     */
+    default CompletableFuture<R> serveAsyncWithRetry(Database<?> database, int maxRetries, long retryDelay,
+            TimeUnit unit) {
+        return database.serveAsyncWithRetry(this, maxRetries, retryDelay, unit);
+    }
+
+    /**
+     * Checks whether this query can be performed on the provided database.
+     *
+     * @param database the database to check compatibility with.
+     * @return true if the query can be executed on the database, false otherwise.
+     */
+    boolean canServe(Database<?> database);
+
+    /**
+     * Retrieves the type this query is isolated and reported under, e.g. when
+     * looking up its bulkhead.
+     *
+     * @return the service type of this query.
+     */
+    default Class<?> getServiceType() {
+        return getClass();
+    }
+
+    /**
+     * Checks whether this query only reads data, which lets routing databases
+     * serve it from a read replica.
+     *
+     * @return true if the query does not write, false by default.
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Retrieves the key selecting the shard this query runs on when it is served
+     * by a sharded database.
+     *
+     * @return the shard key, or null if the query is not bound to one shard.
+     */
+    default Object getShardKey() {
+        return null;
+    }
+
+    /**
+     * Adapts a {@link DatabaseService} to a query that completes with
+     * {@code null}.
+     *
+     * @param service the service to adapt.
+     * @return a query running the given service.
+     */
+    static DatabaseQuery<Void> of(DatabaseService service) {
+        return new ServiceQueryAdapter(service);
+    }
+}
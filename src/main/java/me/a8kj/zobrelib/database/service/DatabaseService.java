@@ -10,12 +10,18 @@ import me.a8kj.zobrelib.database.Database;
  * The service defines whether it can be executed on a particular database
  * through the {@link #canServe(Database)} method
  * and performs its actions using the {@link #serve(Database)} method.
+ * Services that produce a result should implement {@link DatabaseQuery}
+ * instead.
  * </p>
  *
  * @author a8kj7sea
  */
 public interface DatabaseService {
 
+    /**
+     * The executor shared by every database that does not configure its own (see
+     * {@link Database#getExecutor()}).
+     */
     ExecutorService EXECUTOR = Executors.newFixedThreadPool(
             Runtime.getRuntime().availableProcessors() * 2);
 
@@ -27,14 +33,15 @@ public interface DatabaseService {
     void serve(Database<?> database);
 
     /**
-     * Executes the service asynchronously on the provided database using a custom
-     * thread pool.
+     * Executes the service asynchronously on the provided database using the
+     * database's executor. The service runs on a connection leased through
+     * {@link Database#serve(DatabaseService)}.
      *
      * @param database the database on which the service will operate.
      * @return a CompletableFuture representing the service execution.
      */
     default CompletableFuture<Void> serveAsync(Database<?> database) {
-        return CompletableFuture.runAsync(() -> serve(database), EXECUTOR);
+        return DatabaseQuery.of(this).serveAsync(database);
     }
 
     /**
@@ -46,20 +53,7 @@ public interface DatabaseService {
      * @return a CompletableFuture representing the service execution.
      */
     default CompletableFuture<Void> serveAsyncWithTimeout(Database<?> database, long timeout, TimeUnit unit) {
-        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> serve(database), EXECUTOR);
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-
-        return future.applyToEither(
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        Thread.sleep(unit.toMillis(timeout));
-                        if (!future.isDone()) {
-                            future.completeExceptionally(new TimeoutException("Service execution timed out"));
-                        }
-                    } catch (InterruptedException ignored) {
-                    }
-                }, scheduler),
-                res -> res);
+        return DatabaseQuery.of(this).serveAsyncWithTimeout(database, timeout, unit);
     }
 
     /**
@@ -73,25 +67,7 @@ public interface DatabaseService {
      */
     default CompletableFuture<Void> serveAsyncWithRetry(Database<?> database, int maxRetries, long retryDelay,
             TimeUnit unit) {
-        return CompletableFuture.runAsync(() -> {
-            int attempts = 0;
-            while (attempts < maxRetries) {
-                try {
-                    serve(database);
-                    return;
-                } catch (Exception e) {
-                    attempts++;
-                    if (attempts >= maxRetries) {
-                        throw new CompletionException("Service failed after " + maxRetries + " attempts", e);
-                    }
-                    try {
-                        // hoon lw 9ar backoff
-                        Thread.sleep(unit.toMillis(retryDelay) * attempts);
-                    } catch (InterruptedException ignored) {
-                    }
-                }
-            }
-        }, EXECUTOR);
+        return DatabaseQuery.of(this).serveAsyncWithRetry(database, maxRetries, retryDelay, unit);
     }
 
     /**
@@ -101,4 +77,24 @@ public interface DatabaseService {
      * @return true if the service can be executed on the database, false otherwise.
      */
     boolean canServe(Database<?> database);
+
+    /**
+     * Checks whether this service only reads data, which lets routing databases
+     * serve it from a read replica.
+     *
+     * @return true if the service does not write, false by default.
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Retrieves the key selecting the shard this service runs on when it is
+     * served by a sharded database.
+     *
+     * @return the shard key, or null if the service is not bound to one shard.
+     */
+    default Object getShardKey() {
+        return null;
+    }
 }
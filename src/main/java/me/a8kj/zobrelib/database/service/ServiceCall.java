@@ -0,0 +1,106 @@
+package me.a8kj.zobrelib.database.service;
+
+import java.util.concurrent.TimeUnit;
+
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+
+/**
+ * Tracks a single execution of a service or query.
+ * <p>
+ * A call optionally carries a deadline. While the call runs, the connection
+ * lease it executes on is attached to it, so that the call can be cancelled
+ * from another thread (e.g. a timeout timer) by cancelling the work running on
+ * that lease.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class ServiceCall {
+
+    private final long deadlineNanos;
+    private volatile ConnectionLease<?> lease;
+    private volatile boolean cancelled;
+
+    private ServiceCall(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Creates a call without a deadline.
+     * 
+     * @return a new call.
+     */
+    public static ServiceCall unbounded() {
+        return new ServiceCall(0);
+    }
+
+    /**
+     * Creates a call that must finish within the given timeout.
+     * 
+     * @param timeout the maximum execution time.
+     * @param unit    the time unit of the timeout.
+     * @return a new call.
+     */
+    public static ServiceCall withTimeout(long timeout, TimeUnit unit) {
+        return new ServiceCall(System.nanoTime() + Math.max(1, unit.toNanos(timeout)));
+    }
+
+    /**
+     * Checks whether this call has a deadline.
+     * 
+     * @return true if the call has a deadline.
+     */
+    public boolean hasDeadline() {
+        return deadlineNanos != 0;
+    }
+
+    /**
+     * Retrieves the time left until the deadline.
+     * 
+     * @return the remaining time in nanoseconds, or {@link Long#MAX_VALUE} if the
+     *         call has no deadline.
+     */
+    public long remainingNanos() {
+        return hasDeadline() ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Checks whether this call has been cancelled.
+     * 
+     * @return true if the call has been cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Attaches the lease the call executes on, applying the remaining time as the
+     * lease timeout.
+     * 
+     * @param lease the lease the call executes on.
+     */
+    public void attach(ConnectionLease<?> lease) {
+        this.lease = lease;
+        if (hasDeadline())
+            lease.setTimeout(Math.max(1, remainingNanos()), TimeUnit.NANOSECONDS);
+        if (cancelled)
+            lease.cancel();
+    }
+
+    /**
+     * Detaches the lease once the call has finished executing.
+     */
+    public void detach() {
+        this.lease = null;
+    }
+
+    /**
+     * Cancels the call and any work running on its attached lease.
+     */
+    public void cancel() {
+        cancelled = true;
+        ConnectionLease<?> current = lease;
+        if (current != null)
+            current.cancel();
+    }
+}
@@ -0,0 +1,78 @@
+package me.a8kj.zobrelib.database.service;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared scheduler for timed work of the service layer, such as timeouts and
+ * delayed retries.
+ * <p>
+ * A single daemon thread dispatches every timer. Timers only complete futures
+ * or hand work over to an executor, so they never block the scheduler thread;
+ * the {@link me.a8kj.zobrelib.database.service.executor.RejectionPolicy
+ * rejection policies} of bounded executors reject work handed over from it
+ * instead of blocking or running it inline.
+ * Cancelled timers are removed from the queue immediately, which keeps the
+ * queue small when most timeouts are cancelled because the work finished in
+ * time.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class ServiceScheduler {
+
+    private static final ScheduledThreadPoolExecutor SCHEDULER;
+    private static final ThreadLocal<Boolean> SCHEDULER_THREAD = ThreadLocal.withInitial(() -> false);
+
+    static {
+        AtomicInteger count = new AtomicInteger();
+        SCHEDULER = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(() -> {
+                SCHEDULER_THREAD.set(true);
+                runnable.run();
+            }, "zobrelib-scheduler-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    private ServiceScheduler() {
+    }
+
+    /**
+     * Checks whether the calling thread is the scheduler thread, which must
+     * never block or run database work.
+     * 
+     * @return true if called from a timer of the scheduler.
+     */
+    public static boolean isSchedulerThread() {
+        return SCHEDULER_THREAD.get();
+    }
+
+    /**
+     * Schedules a task to run once after the given delay.
+     * 
+     * @param task  the task to run; it must not block.
+     * @param delay the delay before running the task.
+     * @param unit  the time unit of the delay.
+     * @return the scheduled task, which can be cancelled.
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return SCHEDULER.schedule(task, delay, unit);
+    }
+
+    /**
+     * Schedules a task to run repeatedly with the given delay between runs.
+     * 
+     * @param task  the task to run; it must not block.
+     * @param delay the initial delay and the delay between runs.
+     * @param unit  the time unit of the delay.
+     * @return the scheduled task, which can be cancelled.
+     */
+    public static ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay, TimeUnit unit) {
+        return SCHEDULER.scheduleWithFixedDelay(task, delay, delay, unit);
+    }
+}
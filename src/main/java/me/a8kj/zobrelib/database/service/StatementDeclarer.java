@@ -0,0 +1,23 @@
+package me.a8kj.zobrelib.database.service;
+
+import java.util.Collection;
+
+/**
+ * Implemented by services that know the SQL statements they prepare.
+ * <p>
+ * Registering such a service with a database before it connects lets the
+ * database prepare the statements on its pooled connections during startup,
+ * so the first calls do not pay for parsing and planning them.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public interface StatementDeclarer {
+
+    /**
+     * Retrieves the SQL text of the statements this service prepares.
+     * 
+     * @return the declared statements.
+     */
+    Collection<String> getDeclaredStatements();
+}
@@ -0,0 +1,194 @@
+package me.a8kj.zobrelib.database.service.breaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+import me.a8kj.zobrelib.database.enums.ConnectionStatus;
+import me.a8kj.zobrelib.database.exception.impl.CircuitOpenException;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+
+/**
+ * Circuit breaker guarding the services of a {@link Database}.
+ * <p>
+ * While closed, the breaker records the outcome of every call in a sliding
+ * window. When the failure rate configured in the {@link CircuitBreakerPolicy}
+ * is reached, it opens: the database status becomes
+ * {@link ConnectionStatus#ERROR} and every call is rejected immediately with a
+ * {@link CircuitOpenException}. After the open duration the breaker
+ * half-opens and probes the database by borrowing and validating connections;
+ * once enough probes succeed it closes and the status returns to
+ * {@link ConnectionStatus#CONNECTED}, otherwise it opens again. Status changes
+ * are reported through
+ * {@link me.a8kj.zobrelib.database.cycle.DatabaseCycle#onStatusChange(ConnectionStatus, ConnectionStatus)}.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class CircuitBreaker {
+
+    /**
+     * Enum representing the states of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Calls pass and their outcomes are recorded.
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected until the next probe.
+         */
+        OPEN,
+
+        /**
+         * Calls are rejected while the database is being probed.
+         */
+        HALF_OPEN
+    }
+
+    private static final int PROBE_TIMEOUT_SECONDS = 5;
+
+    @Getter
+    private final Database<?> database;
+    @Getter
+    private final CircuitBreakerPolicy policy;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final boolean[] window;
+    private int windowIndex;
+    private int recorded;
+    private int failures;
+
+    /**
+     * Creates a closed circuit breaker for the given database.
+     * 
+     * @param database the database the breaker guards.
+     * @param policy   the policy deciding when the breaker opens and closes.
+     */
+    public CircuitBreaker(Database<?> database, CircuitBreakerPolicy policy) {
+        this.database = database;
+        this.policy = policy;
+        this.window = new boolean[policy.getWindowSize()];
+    }
+
+    /**
+     * Retrieves the current state of the breaker.
+     * 
+     * @return the current state.
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Checks whether a call may proceed.
+     * 
+     * @throws CircuitOpenException if the breaker is not closed.
+     */
+    public void acquirePermission() {
+        if (state.get() != State.CLOSED)
+            throw new CircuitOpenException("Circuit breaker of " + database.getName() + " is open.");
+    }
+
+    /**
+     * Records a successful call.
+     */
+    public void onSuccess() {
+        if (state.get() == State.CLOSED)
+            record(false);
+    }
+
+    /**
+     * Records a failed call. Failures not recorded by the policy count as
+     * successful calls, since the database did respond.
+     * 
+     * @param failure the failure of the call.
+     */
+    public void onFailure(Throwable failure) {
+        if (state.get() == State.CLOSED && record(policy.isRecorded(failure)))
+            open();
+    }
+
+    /**
+     * Closes the breaker and clears the recorded outcomes.
+     */
+    public void reset() {
+        state.set(State.CLOSED);
+        clearWindow();
+    }
+
+    private boolean record(boolean failed) {
+        synchronized (window) {
+            if (recorded == window.length) {
+                if (window[windowIndex])
+                    failures--;
+            } else {
+                recorded++;
+            }
+            window[windowIndex] = failed;
+            if (failed)
+                failures++;
+            windowIndex = (windowIndex + 1) % window.length;
+            return recorded >= policy.getMinimumCalls()
+                    && failures >= policy.getFailureRateThreshold() * recorded;
+        }
+    }
+
+    private void clearWindow() {
+        synchronized (window) {
+            windowIndex = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+
+    private void open() {
+        if (!state.compareAndSet(State.CLOSED, State.OPEN))
+            return;
+        clearWindow();
+        database.compareAndSetStatus(ConnectionStatus.CONNECTED, ConnectionStatus.ERROR);
+        scheduleProbe();
+    }
+
+    private void scheduleProbe() {
+        ServiceScheduler.schedule(() -> {
+            try {
+                database.getExecutor().execute(this::probe);
+            } catch (RuntimeException e) {
+                scheduleProbe();
+            }
+        }, policy.getOpenDurationNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void probe() {
+        ConnectionStatus status = database.getStatus();
+        if (status == ConnectionStatus.DISCONNECTED || status == ConnectionStatus.IDLE) {
+            // the database was shut down while open, nothing left to guard
+            reset();
+            return;
+        }
+
+        state.set(State.HALF_OPEN);
+        for (int probe = 0; probe < policy.getProbesToClose(); probe++) {
+            if (!isHealthy()) {
+                state.set(State.OPEN);
+                scheduleProbe();
+                return;
+            }
+        }
+
+        reset();
+        database.compareAndSetStatus(ConnectionStatus.ERROR, ConnectionStatus.CONNECTED);
+    }
+
+    private boolean isHealthy() {
+        try (ConnectionLease<?> lease = database.borrowConnection()) {
+            return lease.isValid(PROBE_TIMEOUT_SECONDS);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package me.a8kj.zobrelib.database.service.breaker;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import lombok.Getter;
+import lombok.With;
+import me.a8kj.zobrelib.database.service.retry.RetryClassifier;
+
+/**
+ * Immutable description of when a {@link CircuitBreaker} opens and closes.
+ * <p>
+ * The breaker keeps the outcomes of the last {@code windowSize} calls. Once at
+ * least {@code minimumCalls} outcomes are recorded and the share of failures
+ * reaches {@code failureRateThreshold}, the breaker opens. After
+ * {@code openDuration} it half-opens and probes the database;
+ * {@code probesToClose} consecutive successful probes close it again. Only
+ * failures accepted by {@code recordFailure} count, so that e.g. constraint
+ * violations do not open the breaker.
+ * </p>
+ * <p>
+ * Every value is validated when the policy is created, including through the
+ * {@code with} methods, which throw {@link IllegalArgumentException} for values
+ * out of range.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+@Getter
+@With
+public final class CircuitBreakerPolicy {
+
+    private final double failureRateThreshold;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int probesToClose;
+    private final Predicate<Throwable> recordFailure;
+
+    private CircuitBreakerPolicy(double failureRateThreshold, int windowSize, int minimumCalls,
+            long openDurationNanos, int probesToClose, Predicate<Throwable> recordFailure) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1)
+            throw new IllegalArgumentException("Failure rate threshold must be in (0, 1]!");
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize)
+            throw new IllegalArgumentException("Window size must be positive and minimum calls in [1, window size]!");
+        if (openDurationNanos < 0 || probesToClose <= 0)
+            throw new IllegalArgumentException("Open duration must not be negative and probes must be positive!");
+        if (recordFailure == null)
+            throw new IllegalArgumentException("Failure classifier must not be null!");
+        this.failureRateThreshold = failureRateThreshold;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.openDurationNanos = openDurationNanos;
+        this.probesToClose = probesToClose;
+        this.recordFailure = recordFailure;
+    }
+
+    /**
+     * Creates a policy opening at the given failure rate over the last 100 calls
+     * (at least 20 recorded), probing every {@code openDuration} and closing
+     * after 3 successful probes. Only failures caused by a transient or
+     * connection-class {@link SQLException} accepted by {@link RetryClassifier}
+     * (connection errors, lock timeouts, deadlocks, ...) are recorded; programming
+     * errors such as {@link NullPointerException} are not.
+     * 
+     * @param failureRateThreshold the failure rate that opens the breaker, in
+     *                             {@code (0, 1]}.
+     * @param openDuration         the time to stay open before probing.
+     * @param unit                 the time unit of the open duration.
+     * @return a new policy.
+     * @throws IllegalArgumentException if the failure rate is out of range or
+     *                                  the open duration is negative.
+     */
+    public static CircuitBreakerPolicy of(double failureRateThreshold, long openDuration, TimeUnit unit) {
+        return new CircuitBreakerPolicy(failureRateThreshold, 100, 20, unit.toNanos(openDuration), 3,
+                CircuitBreakerPolicy::isTransient);
+    }
+
+    /**
+     * Checks whether the given failure counts towards the failure rate.
+     * 
+     * @param failure the failure of a call.
+     * @return true if the failure is recorded.
+     */
+    public boolean isRecorded(Throwable failure) {
+        return recordFailure.test(failure);
+    }
+
+    private static boolean isTransient(Throwable failure) {
+        SQLException exception = RetryClassifier.findSQLException(failure);
+        return exception != null && RetryClassifier.isRetryable(exception);
+    }
+}
@@ -0,0 +1,255 @@
+package me.a8kj.zobrelib.database.service.bulkhead;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.exception.impl.BulkheadFullException;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+import me.a8kj.zobrelib.database.service.executor.ServiceExecutors;
+
+/**
+ * Limits how many tasks of one kind run concurrently.
+ * <p>
+ * A bulkhead holds a fixed number of permits. A task submitted while a permit
+ * is free is dispatched to the underlying executor right away; otherwise it
+ * waits in a queue of at most {@code queueDepth} tasks without holding a
+ * thread, and is dispatched once a running task finishes. When the queue is
+ * full, the submission fails fast with a {@link BulkheadFullException}.
+ * </p>
+ * <p>
+ * Queued tasks are handed over to the underlying executor without blocking
+ * the thread releasing the permit and are never run on it. If the executor is
+ * saturated, the task stays first in line and is dispatched again shortly.
+ * </p>
+ * <p>
+ * The bulkhead records how long tasks waited for a permit separately from how
+ * long they ran, which is what its permits and queue depth are sized from.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class Bulkhead {
+
+    private static final long REDISPATCH_DELAY_MILLIS = 10;
+
+    @Getter
+    private final String name;
+    @Getter
+    private final int permits;
+    @Getter
+    private final int queueDepth;
+
+    private final Semaphore available;
+    private final Deque<BooleanSupplier> queue = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean redispatchScheduled = new AtomicBoolean();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final LongAdder totalExecutionNanos = new LongAdder();
+    private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxExecutionNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a new bulkhead.
+     * 
+     * @param name       the name of the bulkhead, used in rejection messages.
+     * @param permits    the maximum number of concurrently running tasks.
+     * @param queueDepth the maximum number of tasks waiting for a permit.
+     * @throws IllegalArgumentException if {@code permits} is not positive or
+     *                                  {@code queueDepth} is negative.
+     */
+    public Bulkhead(String name, int permits, int queueDepth) {
+        if (permits <= 0 || queueDepth < 0)
+            throw new IllegalArgumentException("Permits must be positive and queue depth must not be negative!");
+        this.name = name;
+        this.permits = permits;
+        this.queueDepth = queueDepth;
+        this.available = new Semaphore(permits);
+    }
+
+    /**
+     * Creates a view of this bulkhead that dispatches admitted tasks to the
+     * given executor.
+     * 
+     * @param delegate the executor running admitted tasks.
+     * @return an executor limited by this bulkhead.
+     */
+    public Executor executor(Executor delegate) {
+        return task -> execute(task, delegate);
+    }
+
+    /**
+     * Submits a task, dispatching it to the given executor once a permit is free.
+     * 
+     * @param task     the task to run.
+     * @param delegate the executor running the task.
+     * @throws BulkheadFullException if no permit is free and the queue is full.
+     */
+    public void execute(Runnable task, Executor delegate) {
+        long enqueuedNanos = System.nanoTime();
+        Runnable measured = () -> run(task, enqueuedNanos);
+        submitted.increment();
+
+        if (available.tryAcquire()) {
+            try {
+                delegate.execute(measured);
+            } catch (RejectedExecutionException e) {
+                release();
+                throw e;
+            }
+            return;
+        }
+
+        if (queued.incrementAndGet() > queueDepth) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new BulkheadFullException("Bulkhead " + name + " is full (" + permits + " running, "
+                    + queueDepth + " queued).");
+        }
+        queue.add(() -> ServiceExecutors.tryExecute(delegate, measured));
+        drain();
+    }
+
+    /**
+     * Retrieves the number of tasks currently running.
+     * 
+     * @return the number of held permits.
+     */
+    public int getActiveCount() {
+        return permits - available.availablePermits();
+    }
+
+    /**
+     * Retrieves the number of tasks waiting for a permit.
+     * 
+     * @return the queue length.
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * Retrieves the number of submitted tasks, including rejected ones.
+     * 
+     * @return the number of submissions.
+     */
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    /**
+     * Retrieves the number of tasks rejected because the queue was full.
+     * 
+     * @return the number of rejections.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Retrieves the number of tasks that finished running.
+     * 
+     * @return the number of completed tasks.
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * Retrieves the average time completed tasks waited before running.
+     * 
+     * @return the average queue time in nanoseconds.
+     */
+    public long getAverageQueueNanos() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalQueueNanos.sum() / count;
+    }
+
+    /**
+     * Retrieves the longest time a task waited before running.
+     * 
+     * @return the maximum queue time in nanoseconds.
+     */
+    public long getMaxQueueNanos() {
+        return maxQueueNanos.get();
+    }
+
+    /**
+     * Retrieves the average time completed tasks ran.
+     * 
+     * @return the average execution time in nanoseconds.
+     */
+    public long getAverageExecutionNanos() {
+        long count = completed.sum();
+        return count == 0 ? 0 : totalExecutionNanos.sum() / count;
+    }
+
+    /**
+     * Retrieves the longest time a task ran.
+     * 
+     * @return the maximum execution time in nanoseconds.
+     */
+    public long getMaxExecutionNanos() {
+        return maxExecutionNanos.get();
+    }
+
+    private void run(Runnable task, long enqueuedNanos) {
+        long startNanos = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            long endNanos = System.nanoTime();
+            totalQueueNanos.add(startNanos - enqueuedNanos);
+            maxQueueNanos.accumulate(startNanos - enqueuedNanos);
+            totalExecutionNanos.add(endNanos - startNanos);
+            maxExecutionNanos.accumulate(endNanos - startNanos);
+            completed.increment();
+            release();
+        }
+    }
+
+    private void release() {
+        available.release();
+        drain();
+    }
+
+    private void drain() {
+        while (!queue.isEmpty() && available.tryAcquire()) {
+            BooleanSupplier next = queue.poll();
+            if (next == null) {
+                available.release();
+                return;
+            }
+            if (!next.getAsBoolean()) {
+                // the task already left the caller, so keep it rather than lose it
+                queue.addFirst(next);
+                available.release();
+                scheduleRedispatch();
+                return;
+            }
+            queued.decrementAndGet();
+        }
+    }
+
+    private void scheduleRedispatch() {
+        if (!redispatchScheduled.compareAndSet(false, true))
+            return;
+        ServiceScheduler.schedule(() -> {
+            redispatchScheduled.set(false);
+            drain();
+        }, REDISPATCH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,124 @@
+package me.a8kj.zobrelib.database.service.bulkhead;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the bulkheads isolating services from each other.
+ * <p>
+ * Bulkheads are keyed by database name ({@code Database#getName()}) and
+ * service type. A bulkhead configured for a service type applies to that type
+ * only; a bulkhead configured without a service type applies to every other
+ * service of the database. Services without a matching bulkhead run directly
+ * on the database executor.
+ * </p>
+ *
+ * <pre>
+ * Bulkheads.configure("mariadb", ReportQuery.class, 2, 10); // scans cannot starve the rest
+ * Bulkheads.configure("mariadb", 16, 1000);
+ * </pre>
+ * 
+ * @author a8kj7sea
+ */
+public final class Bulkheads {
+
+    private static final Map<Key, Bulkhead> BULKHEADS = new ConcurrentHashMap<>();
+
+    private Bulkheads() {
+    }
+
+    /**
+     * Configures the bulkhead shared by every service of a database that has no
+     * bulkhead of its own, replacing any previous one.
+     * 
+     * @param database   the name of the database.
+     * @param permits    the maximum number of concurrently running services.
+     * @param queueDepth the maximum number of services waiting for a permit.
+     * @return the new bulkhead.
+     */
+    public static Bulkhead configure(String database, int permits, int queueDepth) {
+        return configure(database, null, permits, queueDepth);
+    }
+
+    /**
+     * Configures the bulkhead of one service type on a database, replacing any
+     * previous one.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the service type, or null for the database-wide
+     *                    bulkhead.
+     * @param permits     the maximum number of concurrently running services.
+     * @param queueDepth  the maximum number of services waiting for a permit.
+     * @return the new bulkhead.
+     */
+    public static Bulkhead configure(String database, Class<?> serviceType, int permits, int queueDepth) {
+        String name = serviceType == null ? database : database + "/" + serviceType.getSimpleName();
+        Bulkhead bulkhead = new Bulkhead(name, permits, queueDepth);
+        BULKHEADS.put(new Key(database, serviceType), bulkhead);
+        return bulkhead;
+    }
+
+    /**
+     * Removes the bulkhead of a service type on a database.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the service type, or null for the database-wide
+     *                    bulkhead.
+     */
+    public static void remove(String database, Class<?> serviceType) {
+        BULKHEADS.remove(new Key(database, serviceType));
+    }
+
+    /**
+     * Finds the bulkhead a service runs in.
+     * 
+     * @param database    the name of the database.
+     * @param serviceType the service type.
+     * @return the bulkhead of the service type, else the database-wide
+     *         bulkhead, else null.
+     */
+    public static Bulkhead find(String database, Class<?> serviceType) {
+        if (BULKHEADS.isEmpty())
+            return null;
+        Bulkhead bulkhead = BULKHEADS.get(new Key(database, serviceType));
+        return bulkhead != null ? bulkhead : BULKHEADS.get(new Key(database, null));
+    }
+
+    /**
+     * Retrieves every configured bulkhead, e.g. to export their metrics.
+     * 
+     * @return an unmodifiable view of the configured bulkheads.
+     */
+    public static Collection<Bulkhead> all() {
+        return Collections.unmodifiableCollection(BULKHEADS.values());
+    }
+
+    /**
+     * Identifies a bulkhead by database name and service type.
+     */
+    private static final class Key {
+        private final String database;
+        private final Class<?> serviceType;
+
+        private Key(String database, Class<?> serviceType) {
+            this.database = database;
+            this.serviceType = serviceType;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return database.equals(key.database) && serviceType == key.serviceType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(database, serviceType);
+        }
+    }
+}
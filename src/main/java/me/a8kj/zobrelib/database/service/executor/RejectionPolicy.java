@@ -0,0 +1,71 @@
+package me.a8kj.zobrelib.database.service.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+
+/**
+ * Enum representing what a bounded service executor does with a task once its
+ * queue is full.
+ * <p>
+ * Policies that silently drop tasks are deliberately not offered, since a
+ * dropped task would leave its {@link java.util.concurrent.CompletableFuture}
+ * incomplete forever.
+ * </p>
+ * <p>
+ * Work handed over from the {@link ServiceScheduler} thread, such as delayed
+ * retries, circuit breaker probes and health checks, is never run inline or
+ * waited for, since that would stall every other timer: {@link #CALLER_RUNS}
+ * and {@link #BLOCK} reject it like {@link #ABORT} once the queue is full, and
+ * the submitter fails its future or tries again later. The same applies to
+ * tasks handed over through
+ * {@link ServiceExecutors#tryExecute(java.util.concurrent.Executor, Runnable)}.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+@RequiredArgsConstructor
+@Getter
+public enum RejectionPolicy {
+
+    /**
+     * Fails fast by throwing a {@link RejectedExecutionException}.
+     */
+    ABORT(new ThreadPoolExecutor.AbortPolicy()),
+
+    /**
+     * Runs the task on the submitting thread, slowing the producer down.
+     */
+    CALLER_RUNS((task, executor) -> {
+        if (executor.isShutdown())
+            throw new RejectedExecutionException("Executor has been shut down");
+        if (ServiceExecutors.mustNotBlock())
+            throw new RejectedExecutionException("Executor queue is full, not running the task inline");
+        task.run();
+    }),
+
+    /**
+     * Blocks the submitting thread until the queue has room for the task.
+     */
+    BLOCK((task, executor) -> {
+        if (executor.isShutdown())
+            throw new RejectedExecutionException("Executor has been shut down");
+        if (ServiceExecutors.mustNotBlock()) {
+            if (!executor.getQueue().offer(task))
+                throw new RejectedExecutionException("Executor queue is full, not blocking the caller");
+            return;
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+        }
+    });
+
+    private final RejectedExecutionHandler handler;
+}
@@ -0,0 +1,173 @@
+package me.a8kj.zobrelib.database.service.executor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.exception.impl.BulkheadFullException;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+
+/**
+ * Factory methods for the executors services run on.
+ * <p>
+ * An executor is assigned per {@link me.a8kj.zobrelib.database.Database}
+ * instance (see {@code SQLDatabase#setExecutor}). Bounded platform-thread pools
+ * work on every supported Java version. On Java 21 and later, executors
+ * starting a virtual thread per task are available as well; they are looked
+ * up reflectively so the library still targets Java 8.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class ServiceExecutors {
+
+    // Thread.ofVirtual is a preview API on Java 19 and 20, unusable without --enable-preview
+    private static final Method THREAD_OF_VIRTUAL = featureVersion() >= 21 ? findMethod(Thread.class, "ofVirtual")
+            : null;
+    private static final ThreadLocal<Boolean> NON_BLOCKING = ThreadLocal.withInitial(() -> false);
+
+    private ServiceExecutors() {
+    }
+
+    /**
+     * Creates a fixed-size pool of daemon platform threads with a bounded queue.
+     * 
+     * @param name          the prefix of the thread names.
+     * @param threads       the number of threads.
+     * @param queueCapacity the maximum number of queued tasks.
+     * @param policy        what to do with tasks once the queue is full.
+     * @return a new executor.
+     */
+    public static ExecutorService bounded(String name, int threads, int queueCapacity, RejectionPolicy policy) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), factory, policy.getHandler());
+    }
+
+    /**
+     * Checks whether the running JVM supports virtual threads.
+     * 
+     * @return true on Java 21 and later.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return THREAD_OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * 
+     * @param name the prefix of the thread names.
+     * @return a new executor.
+     * @throws DatabaseExceptionBase if the running JVM does not support virtual
+     *                               threads.
+     */
+    public static ExecutorService virtualThreadPerTask(String name) {
+        if (!isVirtualThreadSupported())
+            throw new DatabaseExceptionBase("Virtual threads require Java 21 or later.");
+        try {
+            Object builder = THREAD_OF_VIRTUAL.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new DatabaseExceptionBase("Failed to create a virtual thread executor: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates an executor suited to a database with the given connection pool
+     * size: a virtual thread per task where supported, where concurrency is
+     * bounded by the connection pool itself, and otherwise (or if creating the
+     * virtual thread executor fails) a bounded pool with one platform thread per
+     * pooled connection that blocks producers once {@code queueCapacity} tasks
+     * are waiting. Work handed over from the
+     * {@link me.a8kj.zobrelib.database.service.ServiceScheduler} thread is
+     * rejected instead of blocking it (see {@link RejectionPolicy#BLOCK}).
+     * 
+     * @param name          the prefix of the thread names.
+     * @param poolSize      the size of the database connection pool.
+     * @param queueCapacity the maximum number of queued tasks for the platform
+     *                      thread fallback.
+     * @return a new executor.
+     */
+    public static ExecutorService forConnectionPool(String name, int poolSize, int queueCapacity) {
+        if (isVirtualThreadSupported()) {
+            try {
+                return virtualThreadPerTask(name);
+            } catch (DatabaseExceptionBase e) {
+                // the JVM refused to create virtual threads, use platform threads instead
+            }
+        }
+        return bounded(name, poolSize, queueCapacity, RejectionPolicy.BLOCK);
+    }
+
+    /**
+     * Hands a task over to an executor without blocking the calling thread or
+     * running the task on it: a full executor with the {@link RejectionPolicy#BLOCK}
+     * or {@link RejectionPolicy#CALLER_RUNS} policy rejects the task instead.
+     * 
+     * @param executor the executor to run the task on.
+     * @param task     the task to run.
+     * @return true if the executor accepted the task, false if it rejected it.
+     */
+    public static boolean tryExecute(Executor executor, Runnable task) {
+        boolean nested = NON_BLOCKING.get();
+        NON_BLOCKING.set(true);
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException | BulkheadFullException e) {
+            return false;
+        } finally {
+            if (!nested)
+                NON_BLOCKING.set(false);
+        }
+    }
+
+    /**
+     * Checks whether the calling thread must not block or run a rejected task
+     * itself, i.e. it is the {@link ServiceScheduler} thread or inside
+     * {@link #tryExecute(Executor, Runnable)}.
+     */
+    static boolean mustNotBlock() {
+        return NON_BLOCKING.get() || ServiceScheduler.isSchedulerThread();
+    }
+
+    /**
+     * Retrieves the feature version of the running JVM, e.g. 8 for
+     * {@code 1.8} and 21 for {@code 21}.
+     */
+    private static int featureVersion() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        if (version.startsWith("1."))
+            version = version.substring(2);
+        try {
+            return Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 8;
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
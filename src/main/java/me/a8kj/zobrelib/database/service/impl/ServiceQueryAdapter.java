@@ -0,0 +1,62 @@
+package me.a8kj.zobrelib.database.service.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.cache.TableWriter;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+
+/**
+ * Adapts a {@link DatabaseService} to the {@link DatabaseQuery} interface.
+ * <p>
+ * The adapted query runs the wrapped service and completes with {@code null},
+ * which lets void services share the execution paths of result-returning
+ * queries. Tables written by the service are reported through
+ * {@link TableWriter} so that cached results can be invalidated.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+@RequiredArgsConstructor
+@Getter
+public class ServiceQueryAdapter implements DatabaseQuery<Void>, TableWriter {
+
+    private final DatabaseService service;
+
+    @Override
+    public Void serve(Database<?> database) {
+        service.serve(database);
+        return null;
+    }
+
+    @Override
+    public Class<?> getServiceType() {
+        return service.getClass();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return service.isReadOnly();
+    }
+
+    @Override
+    public Object getShardKey() {
+        return service.getShardKey();
+    }
+
+    @Override
+    public Collection<String> getWrittenTables() {
+        if (service instanceof TableWriter)
+            return ((TableWriter) service).getWrittenTables();
+        return Collections.emptySet();
+    }
+
+    @Override
+    public boolean canServe(Database<?> database) {
+        return service.canServe(database);
+    }
+}
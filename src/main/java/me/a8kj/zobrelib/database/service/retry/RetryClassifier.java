@@ -0,0 +1,122 @@
+package me.a8kj.zobrelib.database.service.retry;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientException;
+
+import me.a8kj.zobrelib.database.exception.impl.BulkheadFullException;
+import me.a8kj.zobrelib.database.exception.impl.CircuitOpenException;
+
+/**
+ * Classifies failures as retryable or fatal.
+ * <p>
+ * The cause chain of a failure is searched for a {@link SQLException}. If one
+ * is found, it is classified by its SQLState and vendor error code:
+ * serialization failures and deadlocks, lock wait timeouts, connection
+ * exceptions and transient driver exceptions are retryable, everything else
+ * (constraint violations, syntax errors, authentication failures, cancelled
+ * statements, ...) is fatal. Failures without a {@link SQLException} in their
+ * cause chain, such as programming errors, are fatal as well.
+ * </p>
+ * <p>
+ * Rejections by a {@link CircuitOpenException circuit breaker} or a
+ * {@link BulkheadFullException bulkhead} are never retryable: they signal an
+ * overloaded or failing database, which immediate retries would only load
+ * further.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class RetryClassifier {
+
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int MYSQL_SERVER_GONE_AWAY = 2006;
+    private static final int MYSQL_SERVER_LOST = 2013;
+
+    private RetryClassifier() {
+    }
+
+    /**
+     * Checks whether the given failure is worth retrying.
+     * 
+     * @param failure the failure to classify.
+     * @return true if the failure is retryable, false if it is fatal.
+     */
+    public static boolean isRetryable(Throwable failure) {
+        if (isRejection(failure))
+            return false;
+        SQLException exception = findSQLException(failure);
+        return exception != null && isRetryable(exception);
+    }
+
+    /**
+     * Checks whether the given SQL exception is worth retrying.
+     * 
+     * @param exception the exception to classify.
+     * @return true if the exception is retryable, false if it is fatal.
+     */
+    public static boolean isRetryable(SQLException exception) {
+        switch (exception.getErrorCode()) {
+            case MYSQL_LOCK_WAIT_TIMEOUT:
+            case MYSQL_DEADLOCK:
+            case MYSQL_SERVER_GONE_AWAY:
+            case MYSQL_SERVER_LOST:
+                return true;
+            default:
+                break;
+        }
+
+        String state = exception.getSQLState();
+        if (state != null) {
+            // 40001 serialization failure / deadlock, 40P01 deadlock detected
+            if (state.equals("40001") || state.equals("40P01"))
+                return true;
+            // class 08: connection exception (e.g. 08S01 communication link failure)
+            if (state.startsWith("08"))
+                return true;
+            // HYT00 / HYT01: timeout expired while waiting for a lock or connection
+            if (state.equals("HYT00") || state.equals("HYT01"))
+                return true;
+        }
+
+        // a statement timeout is our own deadline expiring, retrying cannot help
+        if (exception instanceof SQLTimeoutException)
+            return false;
+        return exception instanceof SQLRecoverableException || exception instanceof SQLTransientException;
+    }
+
+    /**
+     * Checks whether a failure, or one of its causes, is a rejection by a
+     * circuit breaker or a bulkhead.
+     * 
+     * @param failure the failure to inspect.
+     * @return true if the failure is a rejection.
+     */
+    public static boolean isRejection(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof CircuitOpenException || current instanceof BulkheadFullException)
+                return true;
+            if (current.getCause() == current)
+                break;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the first {@link SQLException} in the cause chain of a failure.
+     * 
+     * @param failure the failure to inspect.
+     * @return the SQL exception, or null if the chain contains none.
+     */
+    public static SQLException findSQLException(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof SQLException)
+                return (SQLException) current;
+            if (current.getCause() == current)
+                break;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+package me.a8kj.zobrelib.database.service.retry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import me.a8kj.zobrelib.database.exception.impl.RetryExhaustedException;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+
+/**
+ * Runs work with retries according to a {@link RetryPolicy}.
+ * <p>
+ * Every attempt runs on the given executor. Between attempts no thread is
+ * held: the next attempt is armed as a timer on the shared
+ * {@link ServiceScheduler}, which hands it back to the executor once the
+ * backoff delay has elapsed.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class RetryEngine {
+
+    private RetryEngine() {
+    }
+
+    /**
+     * Runs the given work with retries.
+     * 
+     * @param <R>      the type of the result.
+     * @param work     the work to attempt.
+     * @param executor the executor running each attempt.
+     * @param policy   the retry policy.
+     * @return a future completed with the result of the first successful attempt,
+     *         exceptionally with the failure if it is not retryable, or with a
+     *         {@link RetryExhaustedException} once the policy gives up.
+     */
+    public static <R> CompletableFuture<R> execute(Supplier<R> work, Executor executor, RetryPolicy policy) {
+        return execute(work, executor, policy, failure -> {
+        });
+    }
+
+    /**
+     * Runs the given work with retries, notifying a listener before each retry is
+     * scheduled.
+     * 
+     * @param <R>      the type of the result.
+     * @param work     the work to attempt.
+     * @param executor the executor running each attempt.
+     * @param policy   the retry policy.
+     * @param onRetry  receives the failure of every attempt that is retried.
+     * @return a future completed with the result of the first successful attempt,
+     *         exceptionally with the failure if it is not retryable, or with a
+     *         {@link RetryExhaustedException} once the policy gives up.
+     */
+    public static <R> CompletableFuture<R> execute(Supplier<R> work, Executor executor, RetryPolicy policy,
+            Consumer<Throwable> onRetry) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        new Attempt<>(work, executor, policy, onRetry, future).submit();
+        return future;
+    }
+
+    /**
+     * A retrying execution, re-submitted after each retryable failure.
+     */
+    private static final class Attempt<R> implements Runnable {
+
+        private final Supplier<R> work;
+        private final Executor executor;
+        private final RetryPolicy policy;
+        private final Consumer<Throwable> onRetry;
+        private final CompletableFuture<R> future;
+        private final long startNanos = System.nanoTime();
+        private int attempts;
+
+        private Attempt(Supplier<R> work, Executor executor, RetryPolicy policy, Consumer<Throwable> onRetry,
+                CompletableFuture<R> future) {
+            this.work = work;
+            this.executor = executor;
+            this.policy = policy;
+            this.onRetry = onRetry;
+            this.future = future;
+        }
+
+        private void submit() {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                // rejected, e.g. by a full executor queue or bulkhead
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone())
+                return;
+            try {
+                future.complete(work.get());
+            } catch (Throwable e) {
+                onFailure(unwrap(e));
+            }
+        }
+
+        private void onFailure(Throwable failure) {
+            attempts++;
+            if (!policy.isRetryable(failure)) {
+                future.completeExceptionally(failure);
+                return;
+            }
+
+            long delay = policy.delayNanos(attempts);
+            long elapsed = System.nanoTime() - startNanos;
+            if (attempts >= policy.getMaxAttempts() || delay > policy.getMaxElapsedNanos() - elapsed) {
+                future.completeExceptionally(
+                        new RetryExhaustedException("Service failed after " + attempts + " attempts", failure));
+                return;
+            }
+            onRetry.accept(failure);
+            ServiceScheduler.schedule(this::submit, delay, TimeUnit.NANOSECONDS);
+        }
+
+        private static Throwable unwrap(Throwable failure) {
+            while ((failure instanceof CompletionException || failure instanceof ExecutionException)
+                    && failure.getCause() != null)
+                failure = failure.getCause();
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package me.a8kj.zobrelib.database.service.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import lombok.Getter;
+import lombok.With;
+
+/**
+ * Immutable description of how failed services are retried.
+ * <p>
+ * The delay before retry {@code n} (starting at 1) is
+ * {@code initialDelay * multiplier^(n - 1)}, capped at {@code maxDelay}, of
+ * which up to a {@code jitter} fraction is randomly removed to spread retries
+ * of concurrent callers. Retrying stops after {@code maxAttempts} attempts, when
+ * the next attempt would start after {@code maxElapsed} since the first one, or
+ * when a failure is not accepted by the {@code retryable} classifier.
+ * </p>
+ * <p>
+ * Every value is validated when the policy is created, including through the
+ * {@code with} methods, which throw {@link IllegalArgumentException} for values
+ * out of range.
+ * </p>
+ *
+ * <pre>
+ * RetryPolicy policy = RetryPolicy.exponential(5, 50, TimeUnit.MILLISECONDS)
+ *         .withMaxDelayNanos(TimeUnit.SECONDS.toNanos(2))
+ *         .withMaxElapsedNanos(TimeUnit.SECONDS.toNanos(10));
+ * </pre>
+ * 
+ * @author a8kj7sea
+ */
+@Getter
+@With
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialDelayNanos;
+    private final double multiplier;
+    private final long maxDelayNanos;
+    private final double jitter;
+    private final long maxElapsedNanos;
+    private final Predicate<Throwable> retryable;
+
+    private RetryPolicy(int maxAttempts, long initialDelayNanos, double multiplier, long maxDelayNanos,
+            double jitter, long maxElapsedNanos, Predicate<Throwable> retryable) {
+        if (maxAttempts <= 0 || initialDelayNanos < 0)
+            throw new IllegalArgumentException("Attempts must be positive and delay must not be negative!");
+        if (multiplier < 1 || maxDelayNanos < 0 || maxElapsedNanos < 0)
+            throw new IllegalArgumentException(
+                    "Multiplier must be at least 1 and the delay and elapsed limits must not be negative!");
+        if (jitter < 0 || jitter > 1)
+            throw new IllegalArgumentException("Jitter must be in [0, 1]!");
+        if (retryable == null)
+            throw new IllegalArgumentException("Retry classifier must not be null!");
+        this.maxAttempts = maxAttempts;
+        this.initialDelayNanos = initialDelayNanos;
+        this.multiplier = multiplier;
+        this.maxDelayNanos = maxDelayNanos;
+        this.jitter = jitter;
+        this.maxElapsedNanos = maxElapsedNanos;
+        this.retryable = retryable;
+    }
+
+    /**
+     * Creates a policy with exponential backoff (multiplier 2, 20% jitter), no
+     * delay cap and no elapsed time limit, retrying failures accepted by
+     * {@link RetryClassifier}.
+     * 
+     * @param maxAttempts  the maximum number of attempts, including the first.
+     * @param initialDelay the delay before the first retry.
+     * @param unit         the time unit of the initial delay.
+     * @return a new policy.
+     * @throws IllegalArgumentException if {@code maxAttempts} is not positive or
+     *                                  {@code initialDelay} is negative.
+     */
+    public static RetryPolicy exponential(int maxAttempts, long initialDelay, TimeUnit unit) {
+        return new RetryPolicy(maxAttempts, unit.toNanos(initialDelay), 2.0, Long.MAX_VALUE, 0.2,
+                Long.MAX_VALUE, RetryClassifier::isRetryable);
+    }
+
+    /**
+     * Creates a policy with a constant delay between attempts and no jitter.
+     * 
+     * @param maxAttempts the maximum number of attempts, including the first.
+     * @param delay       the delay between attempts.
+     * @param unit        the time unit of the delay.
+     * @return a new policy.
+     * @throws IllegalArgumentException if {@code maxAttempts} is not positive or
+     *                                  {@code delay} is negative.
+     */
+    public static RetryPolicy fixed(int maxAttempts, long delay, TimeUnit unit) {
+        return exponential(maxAttempts, delay, unit).withMultiplier(1.0).withJitter(0.0);
+    }
+
+    /**
+     * Checks whether the given failure may be retried under this policy.
+     * 
+     * @param failure the failure of the last attempt.
+     * @return true if the failure is retryable.
+     */
+    public boolean isRetryable(Throwable failure) {
+        return retryable.test(failure);
+    }
+
+    /**
+     * Computes the delay before the given retry.
+     * 
+     * @param retry the number of the retry, starting at 1.
+     * @return the delay in nanoseconds.
+     */
+    public long delayNanos(int retry) {
+        double delay = initialDelayNanos * Math.pow(multiplier, retry - 1);
+        delay = Math.min(delay, maxDelayNanos);
+        if (jitter > 0)
+            delay -= delay * jitter * ThreadLocalRandom.current().nextDouble();
+        return (long) delay;
+    }
+}
@@ -0,0 +1,35 @@
+package me.a8kj.zobrelib.database.service.transaction;
+
+import java.sql.Connection;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The isolation level a {@link TransactionQuery} runs with.
+ * 
+ * @author a8kj7sea
+ */
+@RequiredArgsConstructor
+public enum IsolationLevel {
+
+    /**
+     * Keeps the isolation level of the connection, i.e. the server or pool
+     * default.
+     */
+    DEFAULT(-1),
+
+    READ_UNCOMMITTED(Connection.TRANSACTION_READ_UNCOMMITTED),
+
+    READ_COMMITTED(Connection.TRANSACTION_READ_COMMITTED),
+
+    REPEATABLE_READ(Connection.TRANSACTION_REPEATABLE_READ),
+
+    SERIALIZABLE(Connection.TRANSACTION_SERIALIZABLE);
+
+    /**
+     * The JDBC constant of the level, or -1 for {@link #DEFAULT}.
+     */
+    @Getter
+    private final int level;
+}
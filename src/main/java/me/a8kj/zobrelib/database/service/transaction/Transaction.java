@@ -0,0 +1,99 @@
+package me.a8kj.zobrelib.database.service.transaction;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+
+/**
+ * A running transaction, handed to the {@link TransactionWork} of a
+ * {@link TransactionQuery}.
+ * <p>
+ * Every service and query served through the transaction runs on the
+ * transaction's connection and is committed or rolled back with it. A
+ * transaction must not be used after its work returns, nor from another
+ * thread.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public interface Transaction {
+
+    /**
+     * Retrieves the database the transaction runs on.
+     * 
+     * @return the database.
+     */
+    Database<?> getDatabase();
+
+    /**
+     * Retrieves the connection of the transaction, with auto-commit disabled.
+     * 
+     * @return the connection.
+     */
+    Connection getConnection();
+
+    /**
+     * Serves a service inside the transaction.
+     * 
+     * @param service the service to serve.
+     * @throws IllegalStateException if the service cannot be served on the
+     *                               database.
+     */
+    void serve(DatabaseService service);
+
+    /**
+     * Serves a query inside the transaction.
+     * 
+     * @param <R>   the type of the query result.
+     * @param query the query to serve.
+     * @return the result of the query.
+     * @throws IllegalStateException if the query cannot be served on the
+     *                               database.
+     */
+    <R> R serve(DatabaseQuery<R> query);
+
+    /**
+     * Sets an unnamed savepoint.
+     * 
+     * @return the savepoint.
+     */
+    Savepoint savepoint();
+
+    /**
+     * Sets a named savepoint.
+     * 
+     * @param name the name of the savepoint.
+     * @return the savepoint.
+     */
+    Savepoint savepoint(String name);
+
+    /**
+     * Undoes the work done after a savepoint, keeping the transaction open.
+     * 
+     * @param savepoint the savepoint to roll back to.
+     */
+    void rollbackTo(Savepoint savepoint);
+
+    /**
+     * Releases a savepoint that is no longer needed.
+     * 
+     * @param savepoint the savepoint to release.
+     */
+    void release(Savepoint savepoint);
+
+    /**
+     * Marks the transaction to be rolled back instead of committed once its work
+     * returns. The work still returns its result normally.
+     */
+    void setRollbackOnly();
+
+    /**
+     * Checks whether the transaction will be rolled back.
+     * 
+     * @return true if {@link #setRollbackOnly()} was called.
+     */
+    boolean isRollbackOnly();
+}
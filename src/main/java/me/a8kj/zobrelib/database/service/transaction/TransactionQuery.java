@@ -0,0 +1,188 @@
+package me.a8kj.zobrelib.database.service.transaction;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.cache.QueryResultCache;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.database.service.transaction.impl.JdbcTransaction;
+
+/**
+ * A query running a unit of work in one transaction on one leased connection.
+ * <p>
+ * The work is committed once it returns and rolled back if it throws, so a
+ * group of writes costs a single commit instead of one per statement. Being a
+ * {@link DatabaseQuery}, a transaction is served like any other query, including
+ * every {@link me.a8kj.zobrelib.database.service.ServiceWithType} mode; a
+ * retried transaction reruns its whole work on a fresh connection, which is
+ * what deadlock and serialization failures require.
+ * </p>
+ * <p>
+ * The isolation level, read-only flag and auto-commit mode of the connection
+ * are restored before it returns to the pool.
+ * </p>
+ * <p>
+ * Served on a connection that is already in a transaction (auto-commit off),
+ * the query joins it instead: the work runs after a savepoint, which is
+ * released on success and rolled back to on failure, and the enclosing
+ * transaction keeps its own settings and is committed by its owner.
+ * </p>
+ *
+ * <pre>
+ * TransactionQuery&lt;Void&gt; transfer = TransactionQuery.&lt;Void&gt;of(transaction -&gt; {
+ *     transaction.serve(withdraw);
+ *     Savepoint beforeBonus = transaction.savepoint();
+ *     try {
+ *         transaction.serve(bonus);
+ *     } catch (DatabaseExceptionBase e) {
+ *         transaction.rollbackTo(beforeBonus);
+ *     }
+ *     transaction.serve(deposit);
+ *     return null;
+ * }).withIsolation(IsolationLevel.REPEATABLE_READ);
+ * database.serve(transfer, ServiceWithType.RETRY, 0, TimeUnit.MILLISECONDS, 3, 50);
+ * </pre>
+ * 
+ * @param <R> the type of the result.
+ * @author a8kj7sea
+ */
+@Getter
+@With
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TransactionQuery<R> implements DatabaseQuery<R> {
+
+    private final TransactionWork<R> work;
+    private final IsolationLevel isolation;
+    /**
+     * Whether the transaction only reads, which lets the driver optimise it and
+     * routing databases serve it from a replica.
+     */
+    private final boolean readOnly;
+    /**
+     * The key of the shard the transaction runs on, or null.
+     */
+    private final Object shardKey;
+
+    /**
+     * Creates a transaction running a unit of work with the default isolation
+     * level.
+     * 
+     * @param <R>  the type of the result.
+     * @param work the unit of work.
+     * @return a new transaction query.
+     */
+    public static <R> TransactionQuery<R> of(TransactionWork<R> work) {
+        return new TransactionQuery<>(work, IsolationLevel.DEFAULT, false, null);
+    }
+
+    /**
+     * Creates a transaction serving services one after the other.
+     * 
+     * @param services the services to serve.
+     * @return a new transaction query.
+     */
+    public static TransactionQuery<Void> of(DatabaseService... services) {
+        return of(transaction -> {
+            for (DatabaseService service : services)
+                transaction.serve(service);
+            return null;
+        });
+    }
+
+    @Override
+    public R serve(Database<?> database) {
+        if (!(database.getConnectionContainer().getConnection() instanceof Connection))
+            throw new DatabaseExceptionBase("Transactions require a JDBC connection!");
+        Connection connection = (Connection) database.getConnectionContainer().getConnection();
+
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            if (!autoCommit) {
+                // already inside a transaction: its owner commits, and its settings apply
+                return run(database, connection, connection.setSavepoint());
+            }
+            boolean wasReadOnly = connection.isReadOnly();
+            int previousIsolation = connection.getTransactionIsolation();
+            try {
+                if (isolation != IsolationLevel.DEFAULT && isolation.getLevel() != previousIsolation)
+                    connection.setTransactionIsolation(isolation.getLevel());
+                if (readOnly != wasReadOnly)
+                    connection.setReadOnly(readOnly);
+                connection.setAutoCommit(false);
+                return run(database, connection, null);
+            } finally {
+                connection.setAutoCommit(true);
+                if (readOnly != wasReadOnly)
+                    connection.setReadOnly(wasReadOnly);
+                if (isolation != IsolationLevel.DEFAULT && isolation.getLevel() != previousIsolation)
+                    connection.setTransactionIsolation(previousIsolation);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Transaction failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs the work and ends it: the transaction is committed or rolled back,
+     * or, when joining an enclosing transaction, the savepoint set before the
+     * work is released or rolled back to.
+     */
+    private R run(Database<?> database, Connection connection, Savepoint savepoint) throws SQLException {
+        JdbcTransaction transaction = new JdbcTransaction(database, connection);
+        R result;
+        try {
+            result = work.run(transaction);
+        } catch (SQLException | RuntimeException | Error e) {
+            rollbackQuietly(connection, savepoint, e);
+            throw e;
+        }
+
+        if (transaction.isRollbackOnly()) {
+            if (savepoint == null)
+                connection.rollback();
+            else
+                connection.rollback(savepoint);
+            return result;
+        }
+        if (savepoint != null) {
+            connection.releaseSavepoint(savepoint);
+        } else {
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                // leave nothing pending for the auto-commit switch to commit
+                rollbackQuietly(connection, null, e);
+                throw e;
+            }
+        }
+
+        QueryResultCache cache = database.getResultCache();
+        if (cache != null)
+            cache.invalidate(transaction.getWrittenTables());
+        return result;
+    }
+
+    private static void rollbackQuietly(Connection connection, Savepoint savepoint, Throwable failure) {
+        try {
+            if (savepoint == null)
+                connection.rollback();
+            else
+                connection.rollback(savepoint);
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    @Override
+    public boolean canServe(Database<?> database) {
+        return database.isConnected();
+    }
+}
@@ -0,0 +1,22 @@
+package me.a8kj.zobrelib.database.service.transaction;
+
+import java.sql.SQLException;
+
+/**
+ * The unit of work run inside a transaction.
+ * 
+ * @param <R> the type of the result.
+ * @author a8kj7sea
+ */
+@FunctionalInterface
+public interface TransactionWork<R> {
+
+    /**
+     * Runs the work. Throwing rolls the whole transaction back.
+     * 
+     * @param transaction the running transaction.
+     * @return the result of the transaction.
+     * @throws SQLException if a statement fails.
+     */
+    R run(Transaction transaction) throws SQLException;
+}
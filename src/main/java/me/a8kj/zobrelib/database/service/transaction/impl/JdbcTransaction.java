@@ -0,0 +1,121 @@
+package me.a8kj.zobrelib.database.service.transaction.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.cache.TableWriter;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.database.service.transaction.Transaction;
+
+/**
+ * A {@link Transaction} over a JDBC connection.
+ * <p>
+ * Tables written by {@link TableWriter} services served through the
+ * transaction are collected so that cached results are only invalidated once
+ * the transaction commits.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class JdbcTransaction implements Transaction {
+
+    @Getter
+    private final Database<?> database;
+    @Getter
+    private final Connection connection;
+    private final Set<String> writtenTables = new HashSet<>();
+    @Getter
+    private boolean rollbackOnly;
+
+    /**
+     * Creates a transaction over a connection whose auto-commit is already
+     * disabled.
+     * 
+     * @param database   the database the connection belongs to.
+     * @param connection the connection of the transaction.
+     */
+    public JdbcTransaction(Database<?> database, Connection connection) {
+        this.database = database;
+        this.connection = connection;
+    }
+
+    @Override
+    public void serve(DatabaseService service) {
+        if (!service.canServe(database))
+            throw new IllegalStateException("Cannot serve this database!");
+        service.serve(database);
+        collectWrites(service);
+    }
+
+    @Override
+    public <R> R serve(DatabaseQuery<R> query) {
+        if (!query.canServe(database))
+            throw new IllegalStateException("Cannot serve this database!");
+        R result = query.serve(database);
+        collectWrites(query);
+        return result;
+    }
+
+    @Override
+    public Savepoint savepoint() {
+        try {
+            return connection.setSavepoint();
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Failed to set savepoint: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Savepoint savepoint(String name) {
+        try {
+            return connection.setSavepoint(name);
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Failed to set savepoint " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void rollbackTo(Savepoint savepoint) {
+        try {
+            connection.rollback(savepoint);
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Failed to roll back to savepoint: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void release(Savepoint savepoint) {
+        try {
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Failed to release savepoint: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void setRollbackOnly() {
+        rollbackOnly = true;
+    }
+
+    /**
+     * Retrieves the tables written by the services of the transaction.
+     * 
+     * @return the written tables.
+     */
+    public Collection<String> getWrittenTables() {
+        return writtenTables;
+    }
+
+    private void collectWrites(Object service) {
+        if (service instanceof TableWriter)
+            writtenTables.addAll(((TableWriter) service).getWrittenTables());
+    }
+}
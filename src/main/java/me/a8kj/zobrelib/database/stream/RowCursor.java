@@ -0,0 +1,70 @@
+package me.a8kj.zobrelib.database.stream;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import me.a8kj.zobrelib.database.stream.impl.CursorSubscription;
+
+/**
+ * A forward-only cursor over the rows of a {@link StreamingQuery}.
+ * <p>
+ * Rows are read and mapped lazily as the cursor advances. The cursor holds a
+ * leased connection until it is closed, which happens automatically once the
+ * last row has been read or reading failed; a consumer that stops early must
+ * close the cursor (or the stream obtained from it) itself.
+ * </p>
+ * 
+ * @param <T> the type of the rows.
+ * @author a8kj7sea
+ */
+public interface RowCursor<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * Checks whether the cursor has been closed.
+     * 
+     * @return true if the cursor is closed.
+     */
+    boolean isClosed();
+
+    /**
+     * Retrieves the number of rows read so far.
+     * 
+     * @return the number of rows read.
+     */
+    long getRowCount();
+
+    /**
+     * Closes the cursor, cancelling the query if rows remain, and returns the
+     * leased connection. Calling this method more than once has no effect.
+     */
+    @Override
+    void close();
+
+    /**
+     * Exposes the remaining rows as a sequential stream. Closing the stream
+     * closes the cursor, so the stream should be used in a try-with-resources
+     * block.
+     * 
+     * @return a lazy stream over the remaining rows.
+     */
+    default Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Delivers the remaining rows to a subscriber on the given executor, reading
+     * only as many rows as the subscriber has requested.
+     * 
+     * @param subscriber the subscriber receiving the rows.
+     * @param executor   the executor reading and delivering the rows.
+     */
+    default void subscribe(RowSubscriber<? super T> subscriber, Executor executor) {
+        new CursorSubscription<>(this, subscriber, executor).start();
+    }
+}
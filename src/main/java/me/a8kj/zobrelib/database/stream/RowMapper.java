@@ -0,0 +1,27 @@
+package me.a8kj.zobrelib.database.stream;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a {@link ResultSet} to an object.
+ * <p>
+ * Mappers must only read the current row and must not move the cursor of the
+ * result set.
+ * </p>
+ * 
+ * @param <T> the type of the mapped rows.
+ * @author a8kj7sea
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the current row.
+     * 
+     * @param resultSet the result set positioned on the row to map.
+     * @return the mapped row.
+     * @throws SQLException if a column cannot be read.
+     */
+    T map(ResultSet resultSet) throws SQLException;
+}
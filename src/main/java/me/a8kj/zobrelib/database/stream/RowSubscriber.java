@@ -0,0 +1,43 @@
+package me.a8kj.zobrelib.database.stream;
+
+/**
+ * Receives the rows of a {@link RowCursor} as it demands them.
+ * <p>
+ * This mirrors the Reactive Streams subscriber contract on Java 8: rows are
+ * only delivered after being requested through the {@link RowSubscription},
+ * signals are sent sequentially, and the stream ends with exactly one of
+ * {@link #onComplete()} or {@link #onError(Throwable)} unless it was
+ * cancelled.
+ * </p>
+ * 
+ * @param <T> the type of the rows.
+ * @author a8kj7sea
+ */
+public interface RowSubscriber<T> {
+
+    /**
+     * Called once before any other signal.
+     * 
+     * @param subscription the subscription used to request rows.
+     */
+    void onSubscribe(RowSubscription subscription);
+
+    /**
+     * Called for every delivered row.
+     * 
+     * @param row the row.
+     */
+    void onNext(T row);
+
+    /**
+     * Called when reading or mapping rows failed.
+     * 
+     * @param failure the failure.
+     */
+    void onError(Throwable failure);
+
+    /**
+     * Called once every row has been delivered.
+     */
+    void onComplete();
+}
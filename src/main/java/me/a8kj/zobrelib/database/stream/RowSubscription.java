@@ -0,0 +1,24 @@
+package me.a8kj.zobrelib.database.stream;
+
+/**
+ * Controls the delivery of rows to a {@link RowSubscriber}.
+ * 
+ * @author a8kj7sea
+ */
+public interface RowSubscription {
+
+    /**
+     * Requests up to {@code n} more rows. Demand accumulates until it is
+     * satisfied by delivered rows.
+     * 
+     * @param n the number of additional rows, must be positive.
+     */
+    void request(long n);
+
+    /**
+     * Stops the delivery of rows and releases the underlying cursor. No further
+     * signals are sent to the subscriber, apart from a row that may already be in
+     * flight.
+     */
+    void cancel();
+}
@@ -0,0 +1,62 @@
+package me.a8kj.zobrelib.database.stream;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+
+/**
+ * Immutable description of a query whose rows are streamed from the database
+ * instead of being materialised at once.
+ * <p>
+ * The fetch size is the number of rows the driver is asked to transfer per
+ * round trip. Drivers that buffer whole results by default are switched to
+ * streaming when the query is opened (see
+ * {@link me.a8kj.zobrelib.database.Database#openCursor(StreamingQuery)}).
+ * </p>
+ *
+ * <pre>
+ * StreamingQuery&lt;String&gt; names = StreamingQuery.of("SELECT name FROM users WHERE age &gt; ?",
+ *         resultSet -&gt; resultSet.getString(1), 18).withFetchSize(500);
+ * </pre>
+ * 
+ * @param <T> the type of the mapped rows.
+ * @author a8kj7sea
+ */
+@Getter
+@With
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StreamingQuery<T> {
+
+    /**
+     * The fetch size used when none is given.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final String sql;
+    private final List<Object> parameters;
+    private final int fetchSize;
+    /**
+     * The maximum number of rows the database returns, or 0 for no limit.
+     */
+    private final int maxRows;
+    private final RowMapper<T> mapper;
+
+    /**
+     * Creates a streaming query with the default fetch size.
+     * 
+     * @param <T>        the type of the mapped rows.
+     * @param sql        the SQL text of the query.
+     * @param mapper     maps every row of the result.
+     * @param parameters the parameters bound to the query, in placeholder order.
+     * @return a new streaming query.
+     */
+    public static <T> StreamingQuery<T> of(String sql, RowMapper<T> mapper, Object... parameters) {
+        return new StreamingQuery<>(sql, Collections.unmodifiableList(Arrays.asList(parameters)),
+                DEFAULT_FETCH_SIZE, 0, mapper);
+    }
+}
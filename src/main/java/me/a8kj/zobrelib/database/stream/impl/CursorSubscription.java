@@ -0,0 +1,151 @@
+package me.a8kj.zobrelib.database.stream.impl;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import me.a8kj.zobrelib.database.stream.RowCursor;
+import me.a8kj.zobrelib.database.stream.RowSubscriber;
+import me.a8kj.zobrelib.database.stream.RowSubscription;
+
+/**
+ * Delivers the rows of a {@link RowCursor} to a {@link RowSubscriber} with
+ * demand-based backpressure.
+ * <p>
+ * Rows are only read from the cursor while there is outstanding demand, so a
+ * slow subscriber holds back the driver rather than accumulating rows in
+ * memory. Reading happens in a single drain task at a time on the given
+ * executor, which is also where the cursor is closed on completion, failure or
+ * cancellation.
+ * </p>
+ * 
+ * @param <T> the type of the rows.
+ * @author a8kj7sea
+ */
+public class CursorSubscription<T> implements RowSubscription {
+
+    private final RowCursor<? extends T> cursor;
+    private final RowSubscriber<? super T> subscriber;
+    private final Executor executor;
+
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger work = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+    private boolean done;
+
+    /**
+     * Creates a new subscription; rows flow once {@link #start()} is called and
+     * the subscriber requests them.
+     * 
+     * @param cursor     the cursor to read.
+     * @param subscriber the subscriber receiving the rows.
+     * @param executor   the executor reading and delivering the rows.
+     */
+    public CursorSubscription(RowCursor<? extends T> cursor, RowSubscriber<? super T> subscriber,
+            Executor executor) {
+        this.cursor = cursor;
+        this.subscriber = subscriber;
+        this.executor = executor;
+    }
+
+    /**
+     * Signals {@link RowSubscriber#onSubscribe(RowSubscription)} to the
+     * subscriber.
+     */
+    public void start() {
+        subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            invalidRequest = new IllegalArgumentException("Requested rows must be positive!");
+            cancelled = true;
+        } else {
+            long current;
+            do {
+                current = demand.get();
+                if (current == Long.MAX_VALUE)
+                    break;
+            } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+        }
+        schedule();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        schedule();
+    }
+
+    private void schedule() {
+        if (work.getAndIncrement() != 0)
+            return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            done = true;
+            cursor.close();
+            subscriber.onError(e);
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            if (done)
+                return;
+
+            long requested = demand.get();
+            long emitted = 0;
+            while (emitted != requested) {
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+
+                T row;
+                try {
+                    if (!cursor.hasNext()) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    row = cursor.next();
+                } catch (RuntimeException e) {
+                    done = true;
+                    cursor.close();
+                    subscriber.onError(e);
+                    return;
+                }
+
+                try {
+                    subscriber.onNext(row);
+                } catch (RuntimeException e) {
+                    done = true;
+                    cursor.close();
+                    subscriber.onError(e);
+                    return;
+                }
+                emitted++;
+            }
+
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (requested != Long.MAX_VALUE)
+                demand.addAndGet(-emitted);
+            missed = work.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void terminate() {
+        done = true;
+        cursor.close();
+        if (invalidRequest != null)
+            subscriber.onError(invalidRequest);
+    }
+}
@@ -0,0 +1,197 @@
+package me.a8kj.zobrelib.database.stream.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.stream.RowCursor;
+import me.a8kj.zobrelib.database.stream.RowMapper;
+import me.a8kj.zobrelib.database.stream.StreamingQuery;
+
+/**
+ * A {@link RowCursor} reading a JDBC {@link ResultSet} on a leased connection.
+ * <p>
+ * The statement is opened forward-only and read-only with the fetch size of
+ * the query, adjusted for drivers that would otherwise buffer the whole result:
+ * MySQL Connector/J streams rows one by one ({@link Integer#MIN_VALUE}) unless
+ * {@code useCursorFetch=true} is part of the JDBC URL, and PostgreSQL only
+ * honours the fetch size outside auto-commit mode.
+ * </p>
+ * 
+ * @param <T> the type of the rows.
+ * @author a8kj7sea
+ */
+public class ResultSetCursor<T> implements RowCursor<T> {
+
+    private final ConnectionLease<?> lease;
+    private final Connection connection;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> mapper;
+    private final boolean restoreAutoCommit;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private boolean fetched;
+    private boolean exhausted;
+    private long rowCount;
+
+    private ResultSetCursor(ConnectionLease<?> lease, Connection connection, PreparedStatement statement,
+            ResultSet resultSet, RowMapper<T> mapper, boolean restoreAutoCommit) {
+        this.lease = lease;
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.mapper = mapper;
+        this.restoreAutoCommit = restoreAutoCommit;
+    }
+
+    /**
+     * Executes a streaming query on a leased connection.
+     * <p>
+     * On success the cursor takes ownership of the lease and unbinds it from the
+     * current thread, so it can be closed from any thread. On failure the lease
+     * is left to the caller.
+     * </p>
+     * 
+     * @param <T>   the type of the rows.
+     * @param lease the lease holding a JDBC connection.
+     * @param query the query to execute.
+     * @return an open cursor positioned before the first row.
+     * @throws DatabaseExceptionBase if the query cannot be executed.
+     */
+    public static <T> ResultSetCursor<T> open(ConnectionLease<?> lease, StreamingQuery<T> query) {
+        if (!(lease.getConnection() instanceof Connection))
+            throw new DatabaseExceptionBase("Streaming queries require a JDBC connection!");
+        Connection connection = (Connection) lease.getConnection();
+
+        PreparedStatement statement = null;
+        boolean restoreAutoCommit = false;
+        try {
+            String url = connection.getMetaData().getURL();
+            if (url != null && url.startsWith("jdbc:postgresql:") && connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+
+            statement = connection.prepareStatement(query.getSql(), ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSizeFor(url, query.getFetchSize()));
+            if (query.getMaxRows() > 0)
+                statement.setMaxRows(query.getMaxRows());
+            List<Object> parameters = query.getParameters();
+            for (int index = 0; index < parameters.size(); index++)
+                statement.setObject(index + 1, parameters.get(index));
+
+            ResultSet resultSet = statement.executeQuery();
+            lease.unbind();
+            return new ResultSetCursor<>(lease, connection, statement, resultSet, query.getMapper(),
+                    restoreAutoCommit);
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            if (restoreAutoCommit)
+                resetAutoCommit(connection);
+            throw new DatabaseExceptionBase("Failed to open streaming query: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Resolves the fetch size to request from the driver behind the given URL.
+     * 
+     * @param url       the JDBC URL of the connection, may be null.
+     * @param requested the fetch size requested by the query.
+     * @return the fetch size to set on the statement.
+     */
+    public static int fetchSizeFor(String url, int requested) {
+        if (url != null && url.startsWith("jdbc:mysql:") && !url.contains("useCursorFetch=true"))
+            return Integer.MIN_VALUE;
+        return requested;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed.get())
+            return false;
+        if (fetched)
+            return true;
+
+        try {
+            fetched = resultSet.next();
+        } catch (SQLException e) {
+            close();
+            throw new DatabaseExceptionBase("Failed to read the next row: " + e.getMessage(), e);
+        }
+        if (!fetched) {
+            exhausted = true;
+            close();
+        }
+        return fetched;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        fetched = false;
+        rowCount++;
+
+        try {
+            return mapper.map(resultSet);
+        } catch (SQLException e) {
+            close();
+            throw new DatabaseExceptionBase("Failed to map row " + rowCount + ": " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true))
+            return;
+
+        try {
+            if (!exhausted)
+                statement.cancel();
+        } catch (SQLException ignored) {
+        }
+        closeQuietly(resultSet);
+        closeQuietly(statement);
+        if (restoreAutoCommit)
+            resetAutoCommit(connection);
+        lease.close();
+    }
+
+    private static void resetAutoCommit(Connection connection) {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null)
+            return;
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+        }
+    }
+}
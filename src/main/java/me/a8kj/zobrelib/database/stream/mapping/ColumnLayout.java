@@ -0,0 +1,90 @@
+package me.a8kj.zobrelib.database.stream.mapping;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * The columns of a result set, resolved once from its
+ * {@link ResultSetMetaData}.
+ * <p>
+ * Resolving labels to indexes up front lets row access use plain indexes
+ * instead of by-name lookups on every row.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class ColumnLayout {
+
+    @Getter
+    private final int columnCount;
+    private final String[] labels;
+    private final ColumnType[] types;
+    private final Map<String, Integer> indexes;
+
+    private ColumnLayout(String[] labels, ColumnType[] types) {
+        this.columnCount = labels.length;
+        this.labels = labels;
+        this.types = types;
+        this.indexes = new HashMap<>(labels.length * 2);
+        for (int index = labels.length - 1; index >= 0; index--)
+            indexes.put(labels[index].toLowerCase(Locale.ROOT), index + 1);
+    }
+
+    /**
+     * Resolves the layout of a result set.
+     * 
+     * @param metaData the metadata of the result set.
+     * @return the resolved layout.
+     * @throws SQLException if the metadata cannot be read.
+     */
+    public static ColumnLayout of(ResultSetMetaData metaData) throws SQLException {
+        int count = metaData.getColumnCount();
+        String[] labels = new String[count];
+        ColumnType[] types = new ColumnType[count];
+        for (int column = 1; column <= count; column++) {
+            labels[column - 1] = metaData.getColumnLabel(column);
+            types[column - 1] = ColumnType.of(metaData, column);
+        }
+        return new ColumnLayout(labels, types);
+    }
+
+    /**
+     * Resolves the index of a column label, ignoring case. If several columns
+     * share the label, the first one is returned.
+     * 
+     * @param label the column label.
+     * @return the column index, starting at 1.
+     * @throws IllegalArgumentException if no column has the label.
+     */
+    public int indexOf(String label) {
+        Integer index = indexes.get(label.toLowerCase(Locale.ROOT));
+        if (index == null)
+            throw new IllegalArgumentException("Unknown column: " + label);
+        return index;
+    }
+
+    /**
+     * Retrieves the label of a column.
+     * 
+     * @param column the column index, starting at 1.
+     * @return the column label.
+     */
+    public String getLabel(int column) {
+        return labels[column - 1];
+    }
+
+    /**
+     * Retrieves the storage of a column.
+     * 
+     * @param column the column index, starting at 1.
+     * @return the column storage.
+     */
+    public ColumnType getType(int column) {
+        return types[column - 1];
+    }
+}
@@ -0,0 +1,73 @@
+package me.a8kj.zobrelib.database.stream.mapping;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * The storage used for a column in a {@link RowBuffer}.
+ * 
+ * @author a8kj7sea
+ */
+public enum ColumnType {
+
+    /**
+     * Stored in an {@code int[]}; integer types up to 32 bits and booleans.
+     */
+    INT,
+    /**
+     * Stored in a {@code long[]}; 64-bit integers and exact decimals without
+     * fraction that fit in a long.
+     */
+    LONG,
+    /**
+     * Stored in a {@code double[]}; floating point types.
+     */
+    DOUBLE,
+    /**
+     * Stored as dictionary codes in an {@code int[]}; character types.
+     */
+    STRING,
+    /**
+     * Stored as objects; every other type.
+     */
+    OBJECT;
+
+    /**
+     * Resolves the storage of a result set column.
+     * 
+     * @param metaData the metadata of the result set.
+     * @param column   the column index, starting at 1.
+     * @return the storage of the column.
+     * @throws SQLException if the metadata cannot be read.
+     */
+    public static ColumnType of(ResultSetMetaData metaData, int column) throws SQLException {
+        switch (metaData.getColumnType(column)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return metaData.isSigned(column) || metaData.getColumnType(column) != Types.INTEGER ? INT : LONG;
+            case Types.BIGINT:
+                return LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return metaData.getScale(column) == 0 && metaData.getPrecision(column) > 0
+                        && metaData.getPrecision(column) <= 18 ? LONG : OBJECT;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return STRING;
+            default:
+                return OBJECT;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package me.a8kj.zobrelib.database.stream.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * A reusable batch of rows stored column by column in primitive arrays.
+ * <p>
+ * Integer, long and floating point columns are read with the primitive
+ * getters of the result set into {@code int[]}, {@code long[]} and
+ * {@code double[]} buffers, and character columns are stored as codes into a
+ * per-column string dictionary, so filling the buffer boxes nothing apart from
+ * columns of {@link ColumnType#OBJECT other types}. Rows are read through a
+ * single {@link RowView} that is repositioned for every row.
+ * </p>
+ * <p>
+ * Dictionary codes stay stable across batches until a dictionary grows past
+ * its limit, in which case it is reset at the start of the next
+ * {@link #fill(ResultSet)}.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class RowBuffer {
+
+    /**
+     * The number of distinct strings after which a column dictionary is reset.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    @Getter
+    private final ColumnLayout layout;
+    @Getter
+    private final int capacity;
+    private int size;
+
+    final ColumnType[] types;
+    final int[][] ints;
+    final long[][] longs;
+    final double[][] doubles;
+    final Object[][] objects;
+    final boolean[][] nulls;
+    final StringDictionary[] dictionaries;
+    private final RowView view = new RowView(this);
+
+    /**
+     * Creates a buffer for the given layout.
+     * 
+     * @param layout   the layout of the rows to buffer.
+     * @param capacity the maximum number of rows per batch.
+     * @throws IllegalArgumentException if {@code capacity} is not positive.
+     */
+    public RowBuffer(ColumnLayout layout, int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive!");
+        this.layout = layout;
+        this.capacity = capacity;
+
+        int columns = layout.getColumnCount();
+        this.types = new ColumnType[columns];
+        this.ints = new int[columns][];
+        this.longs = new long[columns][];
+        this.doubles = new double[columns][];
+        this.objects = new Object[columns][];
+        this.nulls = new boolean[columns][capacity];
+        this.dictionaries = new StringDictionary[columns];
+        for (int index = 0; index < columns; index++) {
+            types[index] = layout.getType(index + 1);
+            switch (types[index]) {
+                case INT:
+                    ints[index] = new int[capacity];
+                    break;
+                case LONG:
+                    longs[index] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    doubles[index] = new double[capacity];
+                    break;
+                case STRING:
+                    ints[index] = new int[capacity];
+                    dictionaries[index] = new StringDictionary();
+                    break;
+                default:
+                    objects[index] = new Object[capacity];
+            }
+        }
+    }
+
+    /**
+     * Replaces the buffered rows with up to {@link #getCapacity()} rows read from
+     * the result set.
+     * 
+     * @param resultSet the result set to read, laid out as this buffer.
+     * @return the number of rows read; fewer than the capacity means the result
+     *         set is exhausted.
+     * @throws SQLException if the rows cannot be read.
+     */
+    public int fill(ResultSet resultSet) throws SQLException {
+        for (int index = 0; index < types.length; index++) {
+            if (objects[index] != null)
+                Arrays.fill(objects[index], 0, size, null);
+            if (dictionaries[index] != null && dictionaries[index].size() > MAX_DICTIONARY_SIZE)
+                dictionaries[index].clear();
+        }
+
+        int row = 0;
+        while (row < capacity && resultSet.next()) {
+            for (int index = 0; index < types.length; index++)
+                read(resultSet, index, row);
+            row++;
+        }
+        size = row;
+        return row;
+    }
+
+    private void read(ResultSet resultSet, int index, int row) throws SQLException {
+        int column = index + 1;
+        switch (types[index]) {
+            case INT: {
+                int value = resultSet.getInt(column);
+                ints[index][row] = value;
+                nulls[index][row] = value == 0 && resultSet.wasNull();
+                break;
+            }
+            case LONG: {
+                long value = resultSet.getLong(column);
+                longs[index][row] = value;
+                nulls[index][row] = value == 0 && resultSet.wasNull();
+                break;
+            }
+            case DOUBLE: {
+                double value = resultSet.getDouble(column);
+                doubles[index][row] = value;
+                nulls[index][row] = value == 0 && resultSet.wasNull();
+                break;
+            }
+            case STRING: {
+                String value = resultSet.getString(column);
+                ints[index][row] = value == null ? -1 : dictionaries[index].encode(value);
+                nulls[index][row] = value == null;
+                break;
+            }
+            default: {
+                Object value = resultSet.getObject(column);
+                objects[index][row] = value;
+                nulls[index][row] = value == null;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of rows read by the last {@link #fill(ResultSet)}.
+     * 
+     * @return the number of buffered rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Positions the shared row view on a buffered row.
+     * 
+     * @param row the row index, from 0 to {@link #size()} exclusive.
+     * @return the shared view, positioned on the row.
+     * @throws IndexOutOfBoundsException if the row is not buffered.
+     */
+    public RowView row(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        view.position(row);
+        return view;
+    }
+}
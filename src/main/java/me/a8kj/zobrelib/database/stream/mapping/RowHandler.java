@@ -0,0 +1,18 @@
+package me.a8kj.zobrelib.database.stream.mapping;
+
+/**
+ * Handles the rows of a scan one at a time.
+ * 
+ * @author a8kj7sea
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Handles one row. The view is reused for the next row and must not be
+     * retained.
+     * 
+     * @param row the view positioned on the current row.
+     */
+    void handle(RowView row);
+}
@@ -0,0 +1,39 @@
+package me.a8kj.zobrelib.database.stream.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Scans result sets through a reusable {@link RowBuffer}.
+ * 
+ * @author a8kj7sea
+ */
+public final class RowScanner {
+
+    private RowScanner() {
+    }
+
+    /**
+     * Scans the remaining rows of a result set. The layout is resolved once from
+     * the result set metadata, and a single buffer and row view are reused for
+     * every batch.
+     * 
+     * @param resultSet the result set to scan.
+     * @param batchSize the number of rows buffered at a time.
+     * @param handler   handles every row.
+     * @return the number of scanned rows.
+     * @throws SQLException if the rows cannot be read.
+     */
+    public static long scan(ResultSet resultSet, int batchSize, RowHandler handler) throws SQLException {
+        RowBuffer buffer = new RowBuffer(ColumnLayout.of(resultSet.getMetaData()), batchSize);
+        long count = 0;
+        int filled;
+        do {
+            filled = buffer.fill(resultSet);
+            for (int row = 0; row < filled; row++)
+                handler.handle(buffer.row(row));
+            count += filled;
+        } while (filled == batchSize);
+        return count;
+    }
+}
@@ -0,0 +1,201 @@
+package me.a8kj.zobrelib.database.stream.mapping;
+
+/**
+ * A mutable view of one row held in a {@link RowBuffer}.
+ * <p>
+ * The same view instance is repositioned for every row, so it must not be
+ * retained past the callback it was handed to; copy the values that should
+ * outlive the row. Columns are addressed by index (starting at 1), resolved
+ * once with {@link #indexOf(String)}. Numeric getters convert between the
+ * numeric storages and return 0 for SQL NULL, which {@link #isNull(int)}
+ * distinguishes.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public final class RowView {
+
+    private final RowBuffer buffer;
+    private int row;
+
+    RowView(RowBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    void position(int row) {
+        this.row = row;
+    }
+
+    /**
+     * Retrieves the layout of the row.
+     * 
+     * @return the column layout.
+     */
+    public ColumnLayout getLayout() {
+        return buffer.getLayout();
+    }
+
+    /**
+     * Resolves the index of a column label.
+     * 
+     * @param label the column label.
+     * @return the column index, starting at 1.
+     * @throws IllegalArgumentException if no column has the label.
+     */
+    public int indexOf(String label) {
+        return buffer.getLayout().indexOf(label);
+    }
+
+    /**
+     * Checks whether a column of the row is SQL NULL.
+     * 
+     * @param column the column index.
+     * @return true if the value is NULL.
+     */
+    public boolean isNull(int column) {
+        return buffer.nulls[column - 1][row];
+    }
+
+    /**
+     * Reads a column as an int.
+     * 
+     * @param column the column index.
+     * @return the value, or 0 if NULL.
+     * @throws IllegalStateException if the column is not numeric.
+     */
+    public int getInt(int column) {
+        int index = column - 1;
+        switch (buffer.types[index]) {
+            case INT:
+                return buffer.ints[index][row];
+            case LONG:
+                return (int) buffer.longs[index][row];
+            case DOUBLE:
+                return (int) buffer.doubles[index][row];
+            default:
+                throw notNumeric(column);
+        }
+    }
+
+    /**
+     * Reads a column as a long.
+     * 
+     * @param column the column index.
+     * @return the value, or 0 if NULL.
+     * @throws IllegalStateException if the column is not numeric.
+     */
+    public long getLong(int column) {
+        int index = column - 1;
+        switch (buffer.types[index]) {
+            case INT:
+                return buffer.ints[index][row];
+            case LONG:
+                return buffer.longs[index][row];
+            case DOUBLE:
+                return (long) buffer.doubles[index][row];
+            default:
+                throw notNumeric(column);
+        }
+    }
+
+    /**
+     * Reads a column as a double.
+     * 
+     * @param column the column index.
+     * @return the value, or 0 if NULL.
+     * @throws IllegalStateException if the column is not numeric.
+     */
+    public double getDouble(int column) {
+        int index = column - 1;
+        switch (buffer.types[index]) {
+            case INT:
+                return buffer.ints[index][row];
+            case LONG:
+                return buffer.longs[index][row];
+            case DOUBLE:
+                return buffer.doubles[index][row];
+            default:
+                throw notNumeric(column);
+        }
+    }
+
+    /**
+     * Reads a column as a boolean.
+     * 
+     * @param column the column index.
+     * @return true if the value is non-zero.
+     * @throws IllegalStateException if the column is not numeric.
+     */
+    public boolean getBoolean(int column) {
+        return getLong(column) != 0;
+    }
+
+    /**
+     * Reads a character column as its dictionary code. Equal strings of the same
+     * column share a code for as long as the dictionary is not reset, which
+     * allows comparing and grouping values without touching the strings.
+     * 
+     * @param column the column index.
+     * @return the dictionary code, or -1 if NULL.
+     * @throws IllegalStateException if the column is not a character column.
+     */
+    public int getStringCode(int column) {
+        int index = column - 1;
+        if (buffer.types[index] != ColumnType.STRING)
+            throw new IllegalStateException("Column " + column + " is not a character column!");
+        return buffer.ints[index][row];
+    }
+
+    /**
+     * Reads a column as a string. Character columns return the shared
+     * dictionary instance; other columns are converted.
+     * 
+     * @param column the column index.
+     * @return the value, or null if NULL.
+     */
+    public String getString(int column) {
+        int index = column - 1;
+        if (buffer.nulls[index][row])
+            return null;
+        switch (buffer.types[index]) {
+            case STRING:
+                return buffer.dictionaries[index].get(buffer.ints[index][row]);
+            case INT:
+                return Integer.toString(buffer.ints[index][row]);
+            case LONG:
+                return Long.toString(buffer.longs[index][row]);
+            case DOUBLE:
+                return Double.toString(buffer.doubles[index][row]);
+            default:
+                return String.valueOf(buffer.objects[index][row]);
+        }
+    }
+
+    /**
+     * Reads a column as an object, boxing primitive storages.
+     * 
+     * @param column the column index.
+     * @return the value, or null if NULL.
+     */
+    public Object getObject(int column) {
+        int index = column - 1;
+        if (buffer.nulls[index][row])
+            return null;
+        switch (buffer.types[index]) {
+            case INT:
+                return buffer.ints[index][row];
+            case LONG:
+                return buffer.longs[index][row];
+            case DOUBLE:
+                return buffer.doubles[index][row];
+            case STRING:
+                return buffer.dictionaries[index].get(buffer.ints[index][row]);
+            default:
+                return buffer.objects[index][row];
+        }
+    }
+
+    private static IllegalStateException notNumeric(int column) {
+        return new IllegalStateException("Column " + column + " is not numeric!");
+    }
+}
@@ -0,0 +1,97 @@
+package me.a8kj.zobrelib.database.stream.mapping;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.stream.StreamingQuery;
+import me.a8kj.zobrelib.database.stream.impl.ResultSetCursor;
+
+/**
+ * Query that scans its rows through a {@link RowHandler} with
+ * {@link RowScanner}, and completes with the number of scanned rows.
+ * <p>
+ * Rows are fetched with the same driver-specific fetch size as
+ * {@link StreamingQuery streaming queries} and buffered {@code batchSize} rows
+ * at a time, so large tables are scanned in constant memory with close to no
+ * garbage per row.
+ * </p>
+ *
+ * <pre>
+ * long[] total = new long[1];
+ * database.serve(ScanQuery.of("SELECT id, score FROM players", row -&gt; total[0] += row.getLong(2)));
+ * </pre>
+ * 
+ * @author a8kj7sea
+ */
+@Getter
+@With
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ScanQuery implements DatabaseQuery<Long> {
+
+    /**
+     * The number of rows buffered at a time when none is given.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final String sql;
+    private final List<Object> parameters;
+    private final int fetchSize;
+    private final int batchSize;
+    private final RowHandler handler;
+
+    /**
+     * Creates a scan with the default fetch and batch sizes.
+     * 
+     * @param sql        the SQL text of the query.
+     * @param handler    handles every row.
+     * @param parameters the parameters bound to the query, in placeholder order.
+     * @return a new scan query.
+     */
+    public static ScanQuery of(String sql, RowHandler handler, Object... parameters) {
+        return new ScanQuery(sql, Collections.unmodifiableList(Arrays.asList(parameters)),
+                StreamingQuery.DEFAULT_FETCH_SIZE, DEFAULT_BATCH_SIZE, handler);
+    }
+
+    @Override
+    public Long serve(Database<?> database) {
+        if (!canServe(database)) {
+            throw new IllegalStateException("Cannot perform scan operation. Database is not connected.");
+        }
+
+        Connection connection = (Connection) database.getConnectionContainer().getConnection();
+        try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(ResultSetCursor.fetchSizeFor(connection.getMetaData().getURL(), fetchSize));
+            for (int index = 0; index < parameters.size(); index++)
+                statement.setObject(index + 1, parameters.get(index));
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return RowScanner.scan(resultSet, batchSize, handler);
+            }
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Error executing scan: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean canServe(Database<?> database) {
+        return database.isConnected();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -0,0 +1,64 @@
+package me.a8kj.zobrelib.database.trace;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An immutable copy of a {@link QueryTrace} kept by a {@link SlowQueryLog}.
+ * 
+ * @author a8kj7sea
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class QueryRecord {
+
+    private final long timestampMillis;
+    private final boolean slow;
+    private final String database;
+    private final Class<?> serviceType;
+    private final String sql;
+    private final int bindCount;
+    private final int batchSize;
+    private final long rows;
+    private final long acquireNanos;
+    private final long executeNanos;
+    private final long fetchNanos;
+    private final Throwable failure;
+
+    /**
+     * Copies a trace.
+     * 
+     * @param trace the trace to copy.
+     * @param slow  whether the trace exceeded the slow query threshold.
+     * @return the record.
+     */
+    public static QueryRecord of(QueryTrace trace, boolean slow) {
+        return new QueryRecord(System.currentTimeMillis(), slow, trace.getDatabase(), trace.getServiceType(),
+                trace.getSql(), trace.getBindCount(), trace.getBatchSize(), trace.getRows(), trace.getAcquireNanos(),
+                trace.getExecuteNanos(), trace.getFetchNanos(), trace.getFailure());
+    }
+
+    /**
+     * Retrieves the total time of the execution.
+     * 
+     * @return the sum of the acquire, execute and fetch times in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return acquireNanos + executeNanos + fetchNanos;
+    }
+
+    @Override
+    public String toString() {
+        return (slow ? "Slow query on " : "Query on ") + database
+                + (serviceType == null ? "" : " by " + serviceType.getName())
+                + " took " + TimeUnit.NANOSECONDS.toMicros(getTotalNanos()) + "us (acquire "
+                + TimeUnit.NANOSECONDS.toMicros(acquireNanos) + "us, execute "
+                + TimeUnit.NANOSECONDS.toMicros(executeNanos) + "us, fetch "
+                + TimeUnit.NANOSECONDS.toMicros(fetchNanos) + "us), " + rows + " row(s), " + bindCount
+                + " bind(s)" + (batchSize > 0 ? ", batch of " + batchSize : "")
+                + (failure == null ? "" : ", failed: " + failure) + ": " + sql;
+    }
+}
@@ -0,0 +1,72 @@
+package me.a8kj.zobrelib.database.trace;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The measurements of one statement execution, handed to a
+ * {@link QueryTracer}.
+ * <p>
+ * Instances are mutable and reused for every execution of the same statement,
+ * so tracers must copy what they keep (see {@link QueryRecord#of(QueryTrace, boolean)})
+ * instead of retaining the trace itself.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+@Getter
+@Setter
+public final class QueryTrace {
+
+    /**
+     * The name of the database the statement ran on.
+     */
+    private String database;
+    /**
+     * The type of the service that ran the statement, or null if unknown.
+     */
+    private Class<?> serviceType;
+    /**
+     * The SQL text of the statement, as prepared (with placeholders).
+     */
+    private String sql;
+    /**
+     * The number of bound parameters.
+     */
+    private int bindCount;
+    /**
+     * The number of batched parameter sets, or 0 if the statement was not
+     * batched.
+     */
+    private int batchSize;
+    /**
+     * The number of rows fetched by a query, or affected by an update.
+     */
+    private long rows;
+    /**
+     * The time spent acquiring the connection, reported with the first statement
+     * of a lease and 0 for the following ones.
+     */
+    private long acquireNanos;
+    /**
+     * The time spent executing the statement.
+     */
+    private long executeNanos;
+    /**
+     * The time spent fetching the rows of a query.
+     */
+    private long fetchNanos;
+    /**
+     * The failure of the statement, or null if it succeeded.
+     */
+    private Throwable failure;
+
+    /**
+     * Retrieves the total time of the execution.
+     * 
+     * @return the sum of the acquire, execute and fetch times in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return acquireNanos + executeNanos + fetchNanos;
+    }
+}
@@ -0,0 +1,25 @@
+package me.a8kj.zobrelib.database.trace;
+
+/**
+ * Receives a {@link QueryTrace} for every statement executed on a traced
+ * database.
+ * <p>
+ * Tracers are called on the thread that ran the statement, right after it
+ * completed (for queries, once their result set is exhausted or closed), so
+ * they may be called concurrently. They must be cheap and must not block;
+ * failures thrown by a tracer are ignored.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+@FunctionalInterface
+public interface QueryTracer {
+
+    /**
+     * Called after a statement executed.
+     * 
+     * @param trace the measurements of the execution; reused once this method
+     *              returns.
+     */
+    void onQuery(QueryTrace trace);
+}
@@ -0,0 +1,155 @@
+package me.a8kj.zobrelib.database.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import lombok.Getter;
+
+/**
+ * A {@link QueryTracer} keeping the most recent slow queries and a sample of
+ * the others.
+ * <p>
+ * Executions taking at least the threshold are recorded as slow; the others
+ * are recorded with the given sample rate. Records are kept in two fixed-size,
+ * lock-free ring buffers that overwrite their oldest entries. Executions that
+ * are not recorded cost a comparison and, when sampling, one random number: no
+ * lock is taken and nothing is allocated or formatted.
+ * </p>
+ *
+ * <pre>
+ * SlowQueryLog log = new SlowQueryLog(256, 100, TimeUnit.MILLISECONDS, 0.001)
+ *         .onSlowQuery(record -&gt; logger.warning(record.toString()));
+ * database.setTracer(log);
+ * </pre>
+ * 
+ * @author a8kj7sea
+ */
+public class SlowQueryLog implements QueryTracer {
+
+    @Getter
+    private final long thresholdNanos;
+    @Getter
+    private final double sampleRate;
+    private final Ring slowQueries;
+    private final Ring samples;
+    private volatile Consumer<QueryRecord> listener;
+
+    /**
+     * Creates a new log.
+     * 
+     * @param capacity   the number of records kept per ring buffer, rounded up to
+     *                   a power of two.
+     * @param threshold  the execution time from which a query is slow.
+     * @param unit       the time unit of the threshold.
+     * @param sampleRate the fraction of other queries to record, from 0 to 1.
+     * @throws IllegalArgumentException if {@code capacity} is not positive or
+     *                                  {@code sampleRate} is out of range.
+     */
+    public SlowQueryLog(int capacity, long threshold, TimeUnit unit, double sampleRate) {
+        if (capacity <= 0 || sampleRate < 0 || sampleRate > 1)
+            throw new IllegalArgumentException("Capacity must be positive and sample rate between 0 and 1!");
+        this.thresholdNanos = unit.toNanos(threshold);
+        this.sampleRate = sampleRate;
+        this.slowQueries = new Ring(capacity);
+        this.samples = new Ring(capacity);
+    }
+
+    /**
+     * Sets a listener called with every slow query as it is recorded, on the
+     * thread that ran it.
+     * 
+     * @param listener the listener, or null to remove it.
+     * @return this log.
+     */
+    public SlowQueryLog onSlowQuery(Consumer<QueryRecord> listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    @Override
+    public void onQuery(QueryTrace trace) {
+        if (trace.getTotalNanos() >= thresholdNanos) {
+            QueryRecord record = QueryRecord.of(trace, true);
+            slowQueries.add(record);
+            Consumer<QueryRecord> current = listener;
+            if (current != null)
+                current.accept(record);
+        } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            samples.add(QueryRecord.of(trace, false));
+        }
+    }
+
+    /**
+     * Retrieves the recorded slow queries.
+     * 
+     * @return the slow queries still in the buffer, oldest first.
+     */
+    public List<QueryRecord> getSlowQueries() {
+        return slowQueries.snapshot();
+    }
+
+    /**
+     * Retrieves the sampled queries.
+     * 
+     * @return the samples still in the buffer, oldest first.
+     */
+    public List<QueryRecord> getSamples() {
+        return samples.snapshot();
+    }
+
+    /**
+     * Retrieves the number of slow queries recorded so far, including those
+     * overwritten since.
+     * 
+     * @return the number of slow queries.
+     */
+    public long getSlowQueryCount() {
+        return slowQueries.cursor.get();
+    }
+
+    /**
+     * Retrieves the number of queries sampled so far, including those
+     * overwritten since.
+     * 
+     * @return the number of samples.
+     */
+    public long getSampleCount() {
+        return samples.cursor.get();
+    }
+
+    /**
+     * A fixed-size buffer overwriting its oldest record.
+     */
+    private static final class Ring {
+        private final AtomicReferenceArray<QueryRecord> slots;
+        private final AtomicLong cursor = new AtomicLong();
+        private final int mask;
+
+        private Ring(int capacity) {
+            int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+            this.slots = new AtomicReferenceArray<>(capacity == 1 ? 1 : size);
+            this.mask = slots.length() - 1;
+        }
+
+        private void add(QueryRecord record) {
+            slots.set((int) (cursor.getAndIncrement() & mask), record);
+        }
+
+        private List<QueryRecord> snapshot() {
+            long end = cursor.get();
+            long start = Math.max(0, end - slots.length());
+            List<QueryRecord> records = new ArrayList<>((int) (end - start));
+            for (long sequence = start; sequence < end; sequence++) {
+                QueryRecord record = slots.get((int) (sequence & mask));
+                if (record != null)
+                    records.add(record);
+            }
+            return records;
+        }
+    }
+}
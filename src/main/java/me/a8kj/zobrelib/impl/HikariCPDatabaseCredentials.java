@@ -22,6 +22,35 @@ import me.a8kj.zobrelib.database.attributes.CredentialsKey;
  * <li>{@link #PORT} - The port to connect to the database.</li>
  * </ul>
  * <p>
+ * The following credentials are optional and tune statement preparation:
+ * </p>
+ * <ul>
+ * <li>{@link #CACHE_PREP_STMTS} - Whether the driver caches prepared
+ * statements.</li>
+ * <li>{@link #PREP_STMT_CACHE_SIZE} - The size of the driver's prepared
+ * statement cache.</li>
+ * <li>{@link #PREP_STMT_CACHE_SQL_LIMIT} - The longest SQL text the driver
+ * caches.</li>
+ * <li>{@link #USE_SERVER_PREP_STMTS} - Whether the driver uses server-side
+ * prepared statements.</li>
+ * <li>{@link #STATEMENT_CACHE_SIZE} - The size of the client-side
+ * {@link PreparedStatementCache} per pooled connection.</li>
+ * </ul>
+ * <p>
+ * The following credentials are optional and tune how the pool starts:
+ * </p>
+ * <ul>
+ * <li>{@link #MINIMUM_IDLE} - The minimum number of idle connections the pool
+ * keeps.</li>
+ * <li>{@link #PREFILL_POOL} - Whether connecting waits until the pool holds its
+ * minimum idle connections.</li>
+ * </ul>
+ * <p>
+ * {@link WireDatabase} additionally reads
+ * {@link #ALLOW_PUBLIC_KEY_RETRIEVAL}, which lets it request the public key of
+ * the server over an unencrypted socket.
+ * </p>
+ * <p>
  * These credentials are typically passed to the {@link HikariCP} connection
  * pool
  * for establishing and managing database connections.
@@ -58,7 +87,55 @@ public enum HikariCPDatabaseCredentials implements CredentialsKey {
     /**
      * The port number used for connecting to the database.
      */
-    PORT("port");
+    PORT("port"),
+
+    /**
+     * Whether the JDBC driver caches prepared statements (Boolean, optional).
+     */
+    CACHE_PREP_STMTS("cachePrepStmts"),
+
+    /**
+     * The number of prepared statements the JDBC driver caches per connection
+     * (Integer, optional).
+     */
+    PREP_STMT_CACHE_SIZE("prepStmtCacheSize"),
+
+    /**
+     * The maximum length of SQL text the JDBC driver caches (Integer, optional;
+     * MySQL only).
+     */
+    PREP_STMT_CACHE_SQL_LIMIT("prepStmtCacheSqlLimit"),
+
+    /**
+     * Whether the JDBC driver uses server-side prepared statements (Boolean,
+     * optional).
+     */
+    USE_SERVER_PREP_STMTS("useServerPrepStmts"),
+
+    /**
+     * The number of prepared statements cached client-side per pooled connection
+     * (Integer, optional; disabled if absent).
+     */
+    STATEMENT_CACHE_SIZE("statementCacheSize"),
+
+    /**
+     * The minimum number of idle connections the pool keeps (Integer, optional;
+     * defaults to the maximum pool size).
+     */
+    MINIMUM_IDLE("minimumIdle"),
+
+    /**
+     * Whether connecting waits until the pool holds its minimum idle connections
+     * instead of filling it in the background (Boolean, optional).
+     */
+    PREFILL_POOL("prefillPool"),
+
+    /**
+     * Whether {@link WireDatabase} may request the RSA public key of the server
+     * over an unencrypted socket for {@code caching_sha2_password} full
+     * authentication (Boolean, optional; refused if absent).
+     */
+    ALLOW_PUBLIC_KEY_RETRIEVAL("allowPublicKeyRetrieval");
 
     private final String name;
 }
@@ -0,0 +1,26 @@
+package me.a8kj.zobrelib.impl;
+
+/**
+ * How {@link SQLDatabase#reconfigure} applied new credentials.
+ * 
+ * @author a8kj7sea
+ */
+public enum PoolReconfiguration {
+
+    /**
+     * No credential affecting the open pool changed, or no pool is open; the
+     * credentials apply from the next connect.
+     */
+    UNCHANGED,
+
+    /**
+     * Only the pool sizes changed and were applied to the open pool.
+     */
+    RESIZED,
+
+    /**
+     * A new pool was opened with the new credentials and replaced the previous
+     * one.
+     */
+    REPLACED;
+}
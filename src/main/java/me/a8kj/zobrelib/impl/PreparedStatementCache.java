@@ -0,0 +1,283 @@
+package me.a8kj.zobrelib.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+
+/**
+ * Client-side LRU cache of prepared statements, keyed by SQL text and scoped
+ * per physical connection.
+ * <p>
+ * Statements are prepared on the physical connection underneath the pool's
+ * connection proxy, so they survive the connection being returned to the pool
+ * between service calls. Services receive a proxy of the cached statement:
+ * closing it clears its parameters and hands it back to the cache instead of
+ * closing it. If the same SQL is prepared again while its cached statement is
+ * still open, an uncached statement is returned.
+ * </p>
+ * <p>
+ * Since cached statements bypass the pool's statement tracking, services that
+ * disable auto-commit must commit or roll back themselves before their call
+ * ends.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class PreparedStatementCache {
+
+    @Getter
+    private final int capacity;
+
+    private final Map<Connection, ConnectionStatements> caches = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache holding up to {@code capacity} statements per physical
+     * connection.
+     * 
+     * @param capacity the maximum number of statements per connection.
+     * @throws IllegalArgumentException if {@code capacity} is not positive.
+     */
+    public PreparedStatementCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Statement cache capacity must be positive!");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Prepares a statement through the cache.
+     * 
+     * @param physical the physical connection the statement belongs to.
+     * @param sql      the SQL text of the statement.
+     * @param owner    the connection returned by the statement's
+     *                 {@link PreparedStatement#getConnection()}.
+     * @return a cached statement proxy, or an uncached statement if the cached
+     *         one is in use.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    public PreparedStatement prepare(Connection physical, String sql, Connection owner) throws SQLException {
+        ConnectionStatements statements = caches.get(physical);
+        if (statements == null) {
+            purgeClosedConnections();
+            statements = caches.computeIfAbsent(physical, connection -> new ConnectionStatements());
+        }
+
+        synchronized (statements) {
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && cached.evicted)
+                cached = null;
+            if (cached != null) {
+                if (cached.inUse)
+                    return physical.prepareStatement(sql);
+                hits.increment();
+            } else {
+                misses.increment();
+                cached = new CachedStatement(statements, physical.prepareStatement(sql), owner);
+                statements.put(sql, cached);
+            }
+
+            cached.inUse = true;
+            cached.owner = owner;
+            return cached.proxy;
+        }
+    }
+
+    /**
+     * Hands every statement of the given connection still held by a service back
+     * to the cache, once the lease holding the connection ends.
+     * 
+     * @param physical the physical connection being returned to the pool.
+     */
+    public void releaseAll(Connection physical) {
+        ConnectionStatements statements = caches.get(physical);
+        if (statements == null)
+            return;
+        synchronized (statements) {
+            for (CachedStatement cached : statements.values())
+                cached.release();
+        }
+    }
+
+    /**
+     * Closes and removes every cached statement. A statement still held by a
+     * lease, e.g. one that outlived the drain of a retired pool, is closed once
+     * the lease hands it back.
+     */
+    public void invalidateAll() {
+        for (ConnectionStatements statements : caches.values()) {
+            synchronized (statements) {
+                for (CachedStatement cached : statements.values()) {
+                    if (cached.inUse)
+                        cached.evicted = true;
+                    else
+                        cached.closePhysical();
+                }
+                statements.clear();
+            }
+        }
+        caches.clear();
+    }
+
+    /**
+     * Retrieves the number of statements served from the cache.
+     * 
+     * @return the number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Retrieves the number of statements that had to be prepared and cached.
+     * 
+     * @return the number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Retrieves the number of statements evicted to respect the capacity.
+     * 
+     * @return the number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void purgeClosedConnections() {
+        caches.keySet().removeIf(connection -> {
+            try {
+                return connection.isClosed();
+            } catch (SQLException e) {
+                return true;
+            }
+        });
+    }
+
+    /**
+     * The statements cached for one physical connection, in access order.
+     * Guarded by its own monitor: the lease holding the connection uses it
+     * without contention, but a retiring pool may invalidate it concurrently.
+     */
+    private final class ConnectionStatements extends LinkedHashMap<String, CachedStatement> {
+
+        private static final long serialVersionUID = 1L;
+
+        private ConnectionStatements() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+            if (size() <= capacity)
+                return false;
+            evictions.increment();
+            CachedStatement cached = eldest.getValue();
+            if (cached.inUse) {
+                cached.evicted = true;
+            } else {
+                cached.closePhysical();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A cached statement and the proxy handed to services.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+
+        private final Object lock;
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private Connection owner;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(Object lock, PreparedStatement statement, Connection owner) {
+            this.lock = lock;
+            this.statement = statement;
+            this.owner = owner;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatementCache.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (lock) {
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    synchronized (lock) {
+                        return !inUse || statement.isClosed();
+                    }
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Hands the statement back. Callers hold the lock of the statements of
+         * its connection.
+         */
+        private void release() {
+            if (!inUse)
+                return;
+            inUse = false;
+            owner = null;
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+            try {
+                ResultSet resultSet = statement.getResultSet();
+                if (resultSet != null)
+                    resultSet.close();
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.setQueryTimeout(0);
+            } catch (SQLException e) {
+                // the statement cannot be reset, so it must not be reused
+                evicted = true;
+                closePhysical();
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // the connection is already gone
+            }
+        }
+    }
+}
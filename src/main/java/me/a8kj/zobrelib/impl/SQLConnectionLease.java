@@ -0,0 +1,199 @@
+package me.a8kj.zobrelib.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import me.a8kj.zobrelib.database.attributes.ConnectionContainer;
+import me.a8kj.zobrelib.database.attributes.lease.impl.SimpleConnectionLease;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.trace.QueryTracer;
+
+/**
+ * A lease on a pooled JDBC {@link Connection}.
+ * <p>
+ * Services receive a proxy of the pooled connection that keeps track of every
+ * {@link Statement} created through it. This lets the lease apply a query
+ * timeout to those statements through {@link Statement#setQueryTimeout(int)}
+ * and cancel them through {@link Statement#cancel()}. Calls to
+ * {@link Connection#close()} on the proxy are ignored, since the connection is
+ * returned to the pool when the lease is closed. Statements can optionally be
+ * prepared through a {@link PreparedStatementCache}, and their executions
+ * reported to a {@link QueryTracer}.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class SQLConnectionLease extends SimpleConnectionLease<Connection> {
+
+    private final StatementTracker tracker;
+
+    private SQLConnectionLease(ConnectionContainer<Connection> container, Connection proxy,
+            StatementTracker tracker) {
+        super(container, proxy, connection -> tracker.release());
+        this.tracker = tracker;
+    }
+
+    /**
+     * Creates a lease on the given pooled connection and binds it to the current
+     * thread.
+     * 
+     * @param container the container the connection is bound to.
+     * @param pooled    the connection borrowed from the pool.
+     * @return a new lease.
+     */
+    public static SQLConnectionLease of(ConnectionContainer<Connection> container, Connection pooled) {
+        try {
+            return of(container, pooled, null);
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Failed to lease the connection: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a lease on the given pooled connection that prepares single-argument
+     * {@link Connection#prepareStatement(String)} calls through the given cache,
+     * and binds it to the current thread.
+     * 
+     * @param container the container the connection is bound to.
+     * @param pooled    the connection borrowed from the pool.
+     * @param cache     the statement cache, or null to disable caching.
+     * @return a new lease.
+     * @throws SQLException if the physical connection cannot be unwrapped.
+     */
+    public static SQLConnectionLease of(ConnectionContainer<Connection> container, Connection pooled,
+            PreparedStatementCache cache) throws SQLException {
+        Connection physical = cache == null ? null : pooled.unwrap(Connection.class);
+        StatementTracker tracker = new StatementTracker(pooled, physical, cache);
+        Connection proxy = (Connection) Proxy.newProxyInstance(SQLConnectionLease.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, tracker);
+        return new SQLConnectionLease(container, proxy, tracker);
+    }
+
+    /**
+     * Reports the executions of every statement created from now on to a tracer.
+     * 
+     * @param tracer       the tracer receiving the executions.
+     * @param database     the name of the database the lease belongs to.
+     * @param acquireNanos the time it took to acquire the pooled connection.
+     */
+    public void trace(QueryTracer tracer, String database, long acquireNanos) {
+        tracker.tracing = new StatementTracing(tracer, database, acquireNanos);
+    }
+
+    @Override
+    public void setServiceType(Class<?> serviceType) {
+        StatementTracing tracing = tracker.tracing;
+        if (tracing != null)
+            tracing.setServiceType(serviceType);
+    }
+
+    @Override
+    public boolean isValid(int timeoutSeconds) {
+        try {
+            return !isClosed() && tracker.pooled.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void setTimeout(long timeout, TimeUnit unit) {
+        tracker.queryTimeoutSeconds = (int) Math.max(1, (unit.toMillis(timeout) + 999) / 1000);
+    }
+
+    @Override
+    public void cancel() {
+        for (Statement statement : tracker.statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException ignored) {
+                // the statement is already closed or the driver cannot cancel it
+            }
+        }
+    }
+
+    /**
+     * Handles the calls made on the leased connection proxy.
+     */
+    private static final class StatementTracker implements InvocationHandler {
+
+        private final Connection pooled;
+        private final Connection physical;
+        private final PreparedStatementCache cache;
+        private final Queue<Statement> statements = new ConcurrentLinkedQueue<>();
+        private volatile int queryTimeoutSeconds;
+        private volatile StatementTracing tracing;
+
+        private StatementTracker(Connection pooled, Connection physical, PreparedStatementCache cache) {
+            this.pooled = pooled;
+            this.physical = physical;
+            this.cache = cache;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "isClosed":
+                    return pooled.isClosed();
+                case "unwrap":
+                    return ((Class<?>) args[0]).isInstance(proxy) ? proxy : pooled.unwrap((Class<?>) args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy) || pooled.isWrapperFor((Class<?>) args[0]);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            Object result;
+            if (cache != null && args != null && args.length == 1 && method.getName().equals("prepareStatement")) {
+                result = cache.prepare(physical, (String) args[0], (Connection) proxy);
+            } else {
+                try {
+                    result = method.invoke(pooled, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+            if (result instanceof Statement) {
+                Statement statement = (Statement) result;
+                int timeout = queryTimeoutSeconds;
+                if (timeout > 0)
+                    statement.setQueryTimeout(timeout);
+                statements.add(statement);
+
+                StatementTracing current = tracing;
+                if (current != null) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+                            : null;
+                    result = current.wrap(statement, sql);
+                }
+            }
+            return result;
+        }
+
+        private void release() {
+            statements.clear();
+            if (cache != null)
+                cache.releaseAll(physical);
+            try {
+                pooled.close();
+            } catch (SQLException e) {
+                throw new DatabaseExceptionBase("Failed to return a connection to the pool: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -1,22 +1,54 @@
 package me.a8kj.zobrelib.impl;
 
 import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariConfigMXBean;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import me.a8kj.zobrelib.database.Database;
 import me.a8kj.zobrelib.database.attributes.ConnectionContainer;
 import me.a8kj.zobrelib.database.attributes.CredentialsKey;
 import me.a8kj.zobrelib.database.attributes.DatabaseCredentials;
 import me.a8kj.zobrelib.database.attributes.DatabaseCredentialsImpl;
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+import me.a8kj.zobrelib.database.attributes.value.CredentialsValue;
+import me.a8kj.zobrelib.database.cache.QueryResultCache;
 import me.a8kj.zobrelib.database.cycle.DatabaseCycle;
+import me.a8kj.zobrelib.database.cycle.StartupTimings;
 import me.a8kj.zobrelib.database.enums.ConnectionMessages;
 import me.a8kj.zobrelib.database.enums.ConnectionStatus;
 import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
 import me.a8kj.zobrelib.database.exception.impl.InvalidPropertiesException;
+import me.a8kj.zobrelib.database.health.HealthMonitor;
+import me.a8kj.zobrelib.database.metrics.MetricsRecorder;
+import me.a8kj.zobrelib.database.pipeline.QueryPipeline;
+import me.a8kj.zobrelib.database.trace.QueryTracer;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+import me.a8kj.zobrelib.database.service.StatementDeclarer;
+import me.a8kj.zobrelib.database.service.breaker.CircuitBreaker;
 
 /**
  * SQLDatabase class implements the Database interface and manages the
@@ -29,13 +61,40 @@ import me.a8kj.zobrelib.database.exception.impl.InvalidPropertiesException;
 @Getter
 public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle> {
 
+    /**
+     * How long a pool retired by disconnecting or restarting waits for running
+     * services by default before it is closed.
+     */
+    public static final long DEFAULT_DRAIN_TIMEOUT_SECONDS = 30;
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
     private final String name;
-    private ConnectionStatus status;
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<ConnectionStatus> status = new AtomicReference<>(ConnectionStatus.DISCONNECTED);
     private Cycle cycle;
     private ConnectionContainer<Connection> connectionContainer;
-    private DatabaseCredentials<HikariCPDatabaseCredentials> credentials;
-    private HikariDataSource hikariDataSource;
-    private Connection connection;
+    private volatile DatabaseCredentials<HikariCPDatabaseCredentials> credentials;
+    private volatile HikariDataSource hikariDataSource;
+    private volatile Connection connection;
+    @Setter
+    private ExecutorService executor = DatabaseService.EXECUTOR;
+    @Setter
+    private CircuitBreaker circuitBreaker;
+    @Setter
+    private QueryResultCache resultCache;
+    @Setter
+    private volatile HealthMonitor healthMonitor;
+    @Setter
+    private volatile QueryPipeline queryPipeline;
+    private volatile PreparedStatementCache statementCache;
+    @Getter(AccessLevel.NONE)
+    private volatile Map<HikariCPDatabaseCredentials, Object> poolSettings = Collections.emptyMap();
+    @Setter
+    private MetricsRecorder metrics = MetricsRecorder.NOOP;
+    @Setter
+    private volatile QueryTracer tracer;
+    private final Set<String> warmupStatements = Collections.synchronizedSet(new LinkedHashSet<>());
+    private volatile long drainTimeoutNanos = TimeUnit.SECONDS.toNanos(DEFAULT_DRAIN_TIMEOUT_SECONDS);
 
     /**
      * Constructor to initialize the SQLDatabase with the specified name and cycle.
@@ -46,21 +105,44 @@ public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle>
      */
     public SQLDatabase(String name, Cycle cycle) {
         this.name = name;
-        this.status = ConnectionStatus.DISCONNECTED;
         setCredentials(new DatabaseCredentialsImpl<HikariCPDatabaseCredentials>());
         this.cycle = cycle;
         this.cycle.setDatabase(this);
         this.connectionContainer = new ConnectionContainer<>();
     }
 
+    @Override
+    public ConnectionStatus getStatus() {
+        return status.get();
+    }
+
     /**
-     * Updates the connection status and prints the relevant message.
+     * Updates the connection status, prints the relevant message and notifies
+     * the cycle if the status changed.
      * 
      * @param status The new connection status to set.
      */
     @Override
     public void updateConnectionStatus(ConnectionStatus status) {
-        this.status = status;
+        announce(this.status.getAndSet(status), status);
+    }
+
+    /**
+     * Atomically updates the connection status if it still has the expected
+     * value, then prints and notifies like
+     * {@link #updateConnectionStatus(ConnectionStatus)}.
+     */
+    @Override
+    public boolean compareAndSetStatus(ConnectionStatus expected, ConnectionStatus status) {
+        if (!this.status.compareAndSet(expected, status))
+            return false;
+        announce(expected, status);
+        return true;
+    }
+
+    private void announce(ConnectionStatus previous, ConnectionStatus status) {
+        if (previous != status)
+            this.cycle.onStatusChange(previous, status);
         switch (status) {
             case CONNECTED:
                 System.out.println(ConnectionMessages.SUCCESSFULLY_CONNECTED.format(name));
@@ -71,6 +153,15 @@ public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle>
             case ERROR:
                 System.out.println(ConnectionMessages.FAILED_CONNECTION.format(name));
                 break;
+            case DRAINING:
+                System.out.println(ConnectionMessages.DRAINING.format(name));
+                break;
+            case RECONNECTING:
+                System.out.println(ConnectionMessages.RECONNECTING.format(name));
+                break;
+            case CONNECTING:
+            case DISCONNECTING:
+                break;
             default:
                 System.out.println("Unknown status");
                 break;
@@ -80,15 +171,54 @@ public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle>
     /**
      * Establishes a connection to the database using the provided credentials.
      * It checks if the credentials are not null or missing before proceeding.
+     * <p>
+     * The database is {@link ConnectionStatus#CONNECTING} while the pool is
+     * created; concurrent lifecycle calls fail instead of creating a second
+     * pool.
+     * </p>
      * 
      * @throws DatabaseExceptionBase If connection cannot be established or
      *                               credentials are invalid.
      */
     @Override
     public void connect() {
-        if (status == ConnectionStatus.CONNECTED) {
+        ConnectionStatus current = status.get();
+        if (current == ConnectionStatus.CONNECTED || current == ConnectionStatus.ERROR && hikariDataSource != null) {
             throw new DatabaseExceptionBase("Already connected to the database.");
         }
+        if (current.isTransitional() || !compareAndSetStatus(current, ConnectionStatus.CONNECTING)) {
+            throw new DatabaseExceptionBase("Cannot connect " + name + " while it is " + status.get() + ".");
+        }
+
+        Pool pool;
+        try {
+            pool = openPool();
+        } catch (InvalidPropertiesException e) {
+            compareAndSetStatus(ConnectionStatus.CONNECTING, current);
+            throw e;
+        } catch (RuntimeException e) {
+            updateConnectionStatus(ConnectionStatus.ERROR);
+            throw e;
+        }
+
+        install(pool);
+        registerGauges();
+        updateConnectionStatus(ConnectionStatus.CONNECTED);
+        this.cycle.onConnect(pool.timings);
+    }
+
+    /**
+     * Creates a connection pool from the current credentials, opens the
+     * connection held by this database and warms the pool up. The pool is
+     * closed again if any step fails.
+     * 
+     * @return the opened pool.
+     * @throws InvalidPropertiesException If required credentials are missing.
+     * @throws DatabaseExceptionBase      If the pool cannot be opened.
+     */
+    private Pool openPool() {
+        long startNanos = System.nanoTime();
+        Map<HikariCPDatabaseCredentials, Object> settings = settingsOf(credentials);
 
         String jdbcUrl = credentials.getCredential(HikariCPDatabaseCredentials.JDBC_URL, String.class);
         String username = credentials.getCredential(HikariCPDatabaseCredentials.USERNAME, String.class);
@@ -103,6 +233,8 @@ public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle>
                     "Missing required credentials: Please provide all the necessary credentials.");
         }
 
+        HikariDataSource dataSource = null;
+        Connection main = null;
         try {
 
             Class.forName(driverClassName);
@@ -113,60 +245,507 @@ public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle>
             hikariConfig.setPassword(password);
             hikariConfig.setDriverClassName(driverClassName);
             hikariConfig.setMaximumPoolSize(maxPoolSize);
+            Integer minimumIdle = credentials.getCredential(HikariCPDatabaseCredentials.MINIMUM_IDLE, Integer.class);
+            if (minimumIdle != null)
+                hikariConfig.setMinimumIdle(minimumIdle);
+            applyDriverProperties(hikariConfig, jdbcUrl);
 
-            hikariDataSource = new HikariDataSource(hikariConfig);
+            dataSource = new HikariDataSource(hikariConfig);
 
-            connection = hikariDataSource.getConnection();
-            connectionContainer.setConnection(connection);
-            updateConnectionStatus(ConnectionStatus.CONNECTED);
-            this.cycle.onConnect();
+            Integer statementCacheSize = credentials.getCredential(HikariCPDatabaseCredentials.STATEMENT_CACHE_SIZE,
+                    Integer.class);
+            PreparedStatementCache cache = statementCacheSize == null || statementCacheSize <= 0 ? null
+                    : new PreparedStatementCache(statementCacheSize);
+
+            main = dataSource.getConnection();
+            long poolNanos = System.nanoTime() - startNanos;
+
+            Boolean prefill = credentials.getCredential(HikariCPDatabaseCredentials.PREFILL_POOL, Boolean.class);
+            StartupTimings timings = warmUp(dataSource, cache, Boolean.TRUE.equals(prefill), poolNanos);
+            return new Pool(dataSource, main, cache, timings, settings);
 
         } catch (SQLException e) {
-            updateConnectionStatus(ConnectionStatus.ERROR);
+            closeQuietly(dataSource, main);
             throw new DatabaseExceptionBase("Failed to connect to the database: " + e.getMessage(), e);
-        } catch (InvalidPropertiesException e) {
-            updateConnectionStatus(ConnectionStatus.ERROR);
-            throw new DatabaseExceptionBase("Invalid credentials: " + e.getMessage(), e);
         } catch (ClassNotFoundException e) {
-            updateConnectionStatus(ConnectionStatus.ERROR);
-            e.printStackTrace();
+            throw new DatabaseExceptionBase("JDBC driver class not found: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            closeQuietly(dataSource, main);
+            throw e;
         }
     }
 
     /**
-     * Restarts the database connection by disconnecting and reconnecting.
+     * Publishes an opened pool to the services of this database.
+     * 
+     * @param pool the pool to serve with.
+     */
+    private void install(Pool pool) {
+        statementCache = pool.statementCache;
+        poolSettings = pool.settings;
+        connection = pool.connection;
+        connectionContainer.setConnection(pool.connection);
+        hikariDataSource = pool.dataSource;
+    }
+
+    /**
+     * Retires a pool: it is closed once the services running on it have returned
+     * their connections, or once the drain timeout has elapsed. An idle pool is
+     * closed right away; otherwise the wait happens on the
+     * {@link ServiceScheduler}, so the calling lifecycle transition does not
+     * block.
+     * 
+     * @param dataSource the pool to close.
+     * @param main       the connection held by this database on that pool.
+     * @param cache      the statement cache of that pool, may be null.
+     */
+    private void closePool(HikariDataSource dataSource, Connection main, PreparedStatementCache cache) {
+        if (main != null)
+            releaseConnection(main);
+        retire(dataSource, cache, System.nanoTime() + drainTimeoutNanos);
+    }
+
+    private void retire(HikariDataSource dataSource, PreparedStatementCache cache, long deadline) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        int active = pool == null ? 0 : pool.getActiveConnections();
+        if (active > 0 && System.nanoTime() - deadline < 0) {
+            ServiceScheduler.schedule(() -> retire(dataSource, cache, deadline), DRAIN_POLL_NANOS,
+                    TimeUnit.NANOSECONDS);
+            return;
+        }
+        if (active > 0)
+            System.out.println(ConnectionMessages.CLOSING_BUSY_POOL.format(name, active));
+
+        Runnable close = () -> {
+            if (cache != null)
+                cache.invalidateAll();
+            dataSource.close();
+        };
+        // closing a pool closes its connections, which must not hold up the scheduler
+        if (ServiceScheduler.isSchedulerThread())
+            ForkJoinPool.commonPool().execute(close);
+        else
+            close.run();
+    }
+
+    private static void closeQuietly(HikariDataSource dataSource, Connection main) {
+        if (main != null)
+            releaseConnection(main);
+        if (dataSource != null)
+            dataSource.close();
+    }
+
+    /**
+     * Sets how long a pool retired by disconnecting or restarting waits for
+     * running services to return their connections before it is closed.
+     * 
+     * @param timeout the drain timeout.
+     * @param unit    the time unit of the timeout.
+     */
+    public void setDrainTimeout(long timeout, TimeUnit unit) {
+        this.drainTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Registers the statements of a service to be prepared on the pooled
+     * connections every time the database connects.
+     * 
+     * @param service the service declaring its statements.
+     */
+    public void registerWarmup(StatementDeclarer service) {
+        warmupStatements.addAll(service.getDeclaredStatements());
+    }
+
+    /**
+     * Retrieves the statements prepared when the database connects.
+     * 
+     * @return a copy of the registered statements.
+     */
+    public Collection<String> getWarmupStatements() {
+        synchronized (warmupStatements) {
+            return new ArrayList<>(warmupStatements);
+        }
+    }
+
+    /**
+     * Fills the pool and prepares the registered statements before the database
+     * reports itself connected.
+     * <p>
+     * Filling holds as many leases at once as the pool should keep idle (leaving
+     * room for the connection held by this database), which makes the pool open
+     * them now rather than while the first services wait. The statements are then
+     * prepared on every leased connection, which fills the client-side statement
+     * cache and the driver or server caches behind it. Without prefilling they
+     * are prepared on a single connection. A statement that fails to prepare,
+     * e.g. because its table is created later, is skipped.
+     * </p>
+     * 
+     * @param dataSource the pool to warm up.
+     * @param cache      the statement cache of the pool, may be null.
+     * @param prefill    whether to fill the pool to its minimum idle connections.
+     * @param poolNanos  the time spent creating the pool.
+     * @return the timings of the startup.
+     * @throws SQLException if a connection cannot be obtained.
+     */
+    private StartupTimings warmUp(HikariDataSource dataSource, PreparedStatementCache cache, boolean prefill,
+            long poolNanos) throws SQLException {
+        Collection<String> statements = getWarmupStatements();
+        int target = prefill ? Math.min(dataSource.getMinimumIdle(), dataSource.getMaximumPoolSize() - 1)
+                : statements.isEmpty() ? 0 : 1;
+
+        long prefillStart = System.nanoTime();
+        List<ConnectionLease<Connection>> leases = new ArrayList<>(Math.max(target, 0));
+        try {
+            for (int index = 0; index < target; index++)
+                leases.add(lease(dataSource, cache));
+            long prefillNanos = prefill ? System.nanoTime() - prefillStart : 0;
+
+            long warmupStart = System.nanoTime();
+            int warmed = 0;
+            Set<String> skipped = new LinkedHashSet<>();
+            for (ConnectionLease<Connection> lease : leases) {
+                for (String sql : statements) {
+                    if (skipped.contains(sql))
+                        continue;
+                    try {
+                        // Only preparing matters; closing returns it to the cache
+                        lease.getConnection().prepareStatement(sql).close();
+                        warmed++;
+                    } catch (SQLException e) {
+                        skipped.add(sql);
+                        System.out.println(ConnectionMessages.SKIPPED_WARMUP.format(name, e.getMessage()));
+                    }
+                }
+            }
+            long warmupNanos = statements.isEmpty() ? 0 : System.nanoTime() - warmupStart;
+            return new StartupTimings(name, poolNanos, prefillNanos, warmupNanos, prefill ? leases.size() : 0,
+                    warmed);
+        } finally {
+            for (int index = leases.size() - 1; index >= 0; index--)
+                leases.get(index).close();
+        }
+    }
+
+    /**
+     * Registers the pool and executor gauges of this database with the metrics
+     * recorder. The gauges read the current pool and executor when sampled.
+     */
+    private void registerGauges() {
+        metrics.registerGauge(MetricsRecorder.POOL_ACTIVE, name, () -> poolGauge(HikariPoolMXBean::getActiveConnections));
+        metrics.registerGauge(MetricsRecorder.POOL_IDLE, name, () -> poolGauge(HikariPoolMXBean::getIdleConnections));
+        metrics.registerGauge(MetricsRecorder.POOL_PENDING, name,
+                () -> poolGauge(HikariPoolMXBean::getThreadsAwaitingConnection));
+        metrics.registerGauge(MetricsRecorder.POOL_TOTAL, name, () -> poolGauge(HikariPoolMXBean::getTotalConnections));
+        metrics.registerGauge(MetricsRecorder.EXECUTOR_QUEUE, name, () -> {
+            ExecutorService current = executor;
+            if (current instanceof ThreadPoolExecutor)
+                return ((ThreadPoolExecutor) current).getQueue().size();
+            if (current instanceof ForkJoinPool)
+                return ((ForkJoinPool) current).getQueuedSubmissionCount();
+            return 0;
+        });
+    }
+
+    private long poolGauge(ToIntFunction<HikariPoolMXBean> reading) {
+        HikariDataSource dataSource = hikariDataSource;
+        HikariPoolMXBean pool = dataSource == null || dataSource.isClosed() ? null : dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : reading.applyAsInt(pool);
+    }
+
+    /**
+     * Applies driver-specific data source properties based on the JDBC URL.
+     * <p>
+     * Enables client-side rewriting of batched statements into multi-row
+     * statements for MySQL Connector/J, and bulk execution of batches for the
+     * MariaDB driver. The optional prepared statement credentials are passed to
+     * the driver under their own names.
+     * </p>
+     * 
+     * @param hikariConfig The configuration to apply the properties to.
+     * @param jdbcUrl      The JDBC URL of the database.
+     */
+    private void applyDriverProperties(HikariConfig hikariConfig, String jdbcUrl) {
+        if (jdbcUrl.startsWith("jdbc:mysql:")) {
+            hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
+        } else if (jdbcUrl.startsWith("jdbc:mariadb:")) {
+            hikariConfig.addDataSourceProperty("useBulkStmts", "true");
+        }
+
+        HikariCPDatabaseCredentials[] driverKeys = { HikariCPDatabaseCredentials.CACHE_PREP_STMTS,
+                HikariCPDatabaseCredentials.PREP_STMT_CACHE_SIZE, HikariCPDatabaseCredentials.PREP_STMT_CACHE_SQL_LIMIT,
+                HikariCPDatabaseCredentials.USE_SERVER_PREP_STMTS };
+        for (HikariCPDatabaseCredentials key : driverKeys) {
+            CredentialsValue<?> value = credentials.getCredentials().get(key);
+            if (value != null)
+                hikariConfig.addDataSourceProperty(key.getName(), String.valueOf(value.getValue()));
+        }
+    }
+
+    /**
+     * Restarts the database connection.
+     * <p>
+     * While a pool is open, a new pool is created and warmed up while services
+     * keep running on the current one ({@link ConnectionStatus#RECONNECTING}).
+     * The new pool then replaces the current one, which is closed once the
+     * services running on it have finished, so no service fails because of the
+     * restart. If the new pool cannot be opened, the current one keeps serving.
+     * The cycle receives {@code onConnect} and {@code onRestart}, but no
+     * disconnect callbacks since the database never stops serving. Without an
+     * open pool the database is disconnected and connected again.
+     * </p>
      * 
      * @throws DatabaseExceptionBase If any error occurs while restarting the
      *                               connection.
      */
     @Override
     public void restart() {
-        disconnect();
-        connect();
+        ConnectionStatus current = status.get();
+        HikariDataSource previous = hikariDataSource;
+        if (previous == null || current != ConnectionStatus.CONNECTED && current != ConnectionStatus.ERROR) {
+            if (current.isTransitional())
+                throw new DatabaseExceptionBase("Cannot restart " + name + " while it is " + current + ".");
+            if (current != ConnectionStatus.DISCONNECTED && current != ConnectionStatus.IDLE)
+                disconnect();
+            connect();
+            this.cycle.onRestart();
+            return;
+        }
+
+        replacePool(current, previous, this.cycle::onConnect);
         this.cycle.onRestart();
     }
 
+    /**
+     * Applies new credentials without interrupting services.
+     * <p>
+     * If only {@code MAX_POOL_SIZE} or {@code MINIMUM_IDLE} changed, the open pool
+     * is resized in place through its {@link HikariConfigMXBean}; the pool grows
+     * in the background and shrinks as surplus connections are returned. If any
+     * other credential changed, e.g. a rotated {@code PASSWORD}, a new pool is
+     * opened and warmed up with the new credentials while the current one keeps
+     * serving, then traffic switches to it and the current pool is closed once its
+     * services have finished. If the new pool cannot be opened, the previous
+     * credentials are restored and the current pool keeps serving.
+     * </p>
+     * <p>
+     * Unlike {@link #setCredentials(DatabaseCredentials)}, which only takes effect
+     * on the next connect, this method applies the credentials right away when a
+     * pool is open. The cycle is not notified beyond status changes.
+     * </p>
+     * 
+     * @param credentials the new credentials.
+     * @return how the credentials were applied.
+     * @throws DatabaseExceptionBase If the new pool cannot be opened or another
+     *                               lifecycle transition is running.
+     */
+    @SuppressWarnings("unchecked")
+    public PoolReconfiguration reconfigure(DatabaseCredentials<? extends Enum<? extends CredentialsKey>> credentials) {
+        DatabaseCredentials<HikariCPDatabaseCredentials> previousCredentials = this.credentials;
+        DatabaseCredentials<HikariCPDatabaseCredentials> updated = (DatabaseCredentials<HikariCPDatabaseCredentials>) credentials;
+        Map<HikariCPDatabaseCredentials, Object> settings = settingsOf(updated);
+        ConnectionStatus current = status.get();
+        HikariDataSource previous = hikariDataSource;
+        if (previous == null || current != ConnectionStatus.CONNECTED && current != ConnectionStatus.ERROR) {
+            if (current.isTransitional())
+                throw new DatabaseExceptionBase("Cannot reconfigure " + name + " while it is " + current + ".");
+            this.credentials = updated;
+            return PoolReconfiguration.UNCHANGED;
+        }
+
+        // compare with the settings the open pool was created with, since the
+        // credentials object may have been modified in place
+        Map<HikariCPDatabaseCredentials, Object> applied = poolSettings;
+        boolean resized = false;
+        for (HikariCPDatabaseCredentials key : HikariCPDatabaseCredentials.values()) {
+            if (Objects.equals(applied.get(key), settings.get(key)))
+                continue;
+            if (key == HikariCPDatabaseCredentials.MAX_POOL_SIZE || key == HikariCPDatabaseCredentials.MINIMUM_IDLE)
+                resized = true;
+            else if (key != HikariCPDatabaseCredentials.PREFILL_POOL)
+                return replaceCredentials(current, previous, previousCredentials, updated);
+        }
+
+        if (!resized) {
+            this.credentials = updated;
+            return PoolReconfiguration.UNCHANGED;
+        }
+        return resizePool(current, previous, updated, settings);
+    }
+
+    /**
+     * Resizes the open pool in place. The pool is claimed with the same
+     * transition a replacement takes, so a concurrent restart cannot retire it
+     * meanwhile; the claim is not announced since the pool keeps serving
+     * unchanged.
+     */
+    private PoolReconfiguration resizePool(ConnectionStatus current, HikariDataSource previous,
+            DatabaseCredentials<HikariCPDatabaseCredentials> updated, Map<HikariCPDatabaseCredentials, Object> settings) {
+        if (!status.compareAndSet(current, ConnectionStatus.RECONNECTING))
+            throw new DatabaseExceptionBase("Cannot reconfigure " + name + " while it is " + status.get() + ".");
+        try {
+            if (hikariDataSource != previous)
+                throw new DatabaseExceptionBase("The pool of " + name + " was replaced while reconfiguring it.");
+            resize(previous, updated);
+            this.credentials = updated;
+            poolSettings = settings;
+        } finally {
+            status.compareAndSet(ConnectionStatus.RECONNECTING, current);
+        }
+        return PoolReconfiguration.RESIZED;
+    }
+
+    private PoolReconfiguration replaceCredentials(ConnectionStatus current, HikariDataSource previous,
+            DatabaseCredentials<HikariCPDatabaseCredentials> previousCredentials,
+            DatabaseCredentials<HikariCPDatabaseCredentials> updated) {
+        this.credentials = updated;
+        try {
+            replacePool(current, previous, timings -> {
+            });
+        } catch (RuntimeException e) {
+            this.credentials = previousCredentials;
+            throw e;
+        }
+        return PoolReconfiguration.REPLACED;
+    }
+
+    /**
+     * Applies the pool sizes of the credentials to an open pool. Without a
+     * {@code MINIMUM_IDLE} credential the pool keeps as many idle connections as
+     * its maximum size, like a newly created pool.
+     */
+    private static void resize(HikariDataSource dataSource,
+            DatabaseCredentials<HikariCPDatabaseCredentials> credentials) {
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        Integer maxPoolSize = credentials.getCredential(HikariCPDatabaseCredentials.MAX_POOL_SIZE, Integer.class);
+        Integer minimumIdle = credentials.getCredential(HikariCPDatabaseCredentials.MINIMUM_IDLE, Integer.class);
+        int maximum = maxPoolSize == null ? config.getMaximumPoolSize() : maxPoolSize;
+        int minimum = Math.min(minimumIdle == null ? maximum : minimumIdle, maximum);
+
+        // keep minimumIdle <= maximumPoolSize at every step
+        if (maximum >= config.getMaximumPoolSize()) {
+            config.setMaximumPoolSize(maximum);
+            config.setMinimumIdle(minimum);
+        } else {
+            config.setMinimumIdle(minimum);
+            config.setMaximumPoolSize(maximum);
+        }
+    }
+
+    /**
+     * Copies the values of credentials, so that later changes to the credentials
+     * object can be detected.
+     */
+    private static Map<HikariCPDatabaseCredentials, Object> settingsOf(
+            DatabaseCredentials<HikariCPDatabaseCredentials> credentials) {
+        Map<HikariCPDatabaseCredentials, Object> settings = new EnumMap<>(HikariCPDatabaseCredentials.class);
+        credentials.getCredentials().forEach((key, value) -> {
+            if (value != null && value.getValue() != null)
+                settings.put(key, value.getValue());
+        });
+        return settings;
+    }
+
+    /**
+     * Opens a new pool while the current one keeps serving, switches services to
+     * it and retires the current pool, which is closed in the background once
+     * its services have finished.
+     * 
+     * @param current     the status to restore if the new pool cannot be opened.
+     * @param previous    the pool to replace.
+     * @param onInstalled called with the startup timings of the new pool once it
+     *                    serves, before the previous pool is drained.
+     * @throws DatabaseExceptionBase If the new pool cannot be opened or another
+     *                               lifecycle transition is running.
+     */
+    private void replacePool(ConnectionStatus current, HikariDataSource previous,
+            Consumer<StartupTimings> onInstalled) {
+        if (!compareAndSetStatus(current, ConnectionStatus.RECONNECTING))
+            throw new DatabaseExceptionBase("Cannot replace the pool of " + name + " while it is " + status.get() + ".");
+        Pool pool;
+        try {
+            pool = openPool();
+        } catch (RuntimeException e) {
+            compareAndSetStatus(ConnectionStatus.RECONNECTING, current);
+            throw e;
+        }
+
+        Connection previousConnection = connection;
+        PreparedStatementCache previousCache = statementCache;
+        install(pool);
+        updateConnectionStatus(ConnectionStatus.CONNECTED);
+        onInstalled.accept(pool.timings);
+
+        closePool(previous, previousConnection, previousCache);
+    }
+
     /**
      * Disconnects from the database if connected.
+     * <p>
+     * The disconnect is claimed first: a connected database turns
+     * {@link ConnectionStatus#DISCONNECTING} and runs the cycle's
+     * {@code onDisconnecting} while services are still accepted, so racing
+     * lifecycle calls fail instead of running the hook too. The database then
+     * turns {@link ConnectionStatus#DRAINING}, rejecting new services, and
+     * retires its pool: the pool is closed in the background once the running services have returned their connections or
+     * the drain timeout has elapsed, while this method returns right away.
+     * </p>
      * 
-     * @throws DatabaseExceptionBase If no active connection exists to disconnect.
+     * @throws DatabaseExceptionBase If no active connection exists to disconnect,
+     *                               or another lifecycle transition is running.
      */
     @Override
     public void disconnect() {
-        if (status == ConnectionStatus.DISCONNECTED) {
+        ConnectionStatus current = status.get();
+        if (current == ConnectionStatus.DISCONNECTED || current == ConnectionStatus.IDLE) {
             throw new DatabaseExceptionBase("No active connection to disconnect.");
         }
+        if (current.isTransitional()) {
+            throw new DatabaseExceptionBase("Cannot disconnect " + name + " while it is " + current + ".");
+        }
 
+        beginDisconnect(current);
+
+        HikariDataSource dataSource = hikariDataSource;
+        Connection main = connection;
+        PreparedStatementCache cache = statementCache;
+        hikariDataSource = null;
+        connection = null;
+        statementCache = null;
+        connectionContainer.setConnection(null);
+
+        if (dataSource != null)
+            closePool(dataSource, main, cache);
+        metrics.removeGauges(name);
+        updateConnectionStatus(ConnectionStatus.DISCONNECTED);
+        if (dataSource != null)
+            this.cycle.onDisconnect();
+    }
+
+    /**
+     * Claims a disconnect before anything else runs, then turns
+     * {@link ConnectionStatus#DRAINING}. A connected database passes through
+     * {@link ConnectionStatus#DISCONNECTING} to run the cycle's
+     * {@code onDisconnecting} while still serving, and returns to
+     * {@link ConnectionStatus#CONNECTED} if the hook fails.
+     * 
+     * @param current the status the disconnect was requested in.
+     * @throws DatabaseExceptionBase If another lifecycle transition won the
+     *                               race.
+     */
+    private void beginDisconnect(ConnectionStatus current) {
+        boolean connected = current == ConnectionStatus.CONNECTED;
+        if (!compareAndSetStatus(current, connected ? ConnectionStatus.DISCONNECTING : ConnectionStatus.DRAINING)) {
+            throw new DatabaseExceptionBase("Cannot disconnect " + name + " while it is " + status.get() + ".");
+        }
+        if (!connected)
+            return;
         try {
-            if (isConnected()) {
-                connection.close();
-                connectionContainer.setConnection(null);
-                updateConnectionStatus(ConnectionStatus.DISCONNECTED);
-                this.cycle.onDisconnect();
-            }
-        } catch (SQLException e) {
-            throw new DatabaseExceptionBase("Failed to disconnect from the database: " + e.getMessage(), e);
+            this.cycle.onDisconnecting();
+        } catch (RuntimeException | Error e) {
+            compareAndSetStatus(ConnectionStatus.DISCONNECTING, ConnectionStatus.CONNECTED);
+            throw e;
         }
+        compareAndSetStatus(ConnectionStatus.DISCONNECTING, ConnectionStatus.DRAINING);
     }
 
     /**
@@ -177,7 +756,8 @@ public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle>
     @Override
     public boolean isConnected() {
         try {
-            return Database.super.isConnected() && connection != null && !connection.isClosed();
+            Connection main = connection;
+            return Database.super.isConnected() && main != null && !main.isClosed();
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -185,7 +765,81 @@ public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle>
     }
 
     /**
-     * Sets the credentials for the database connection.
+     * Borrows a dedicated connection from the HikariCP pool for a single service
+     * call. Closing the lease returns the connection to the pool. If a
+     * {@link QueryTracer} is set, the statements executed on the lease are
+     * reported to it.
+     * 
+     * @return An open {@link SQLConnectionLease} holding a pooled connection.
+     * @throws DatabaseExceptionBase If the pool is not available or no connection
+     *                               could be obtained.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <C> ConnectionLease<C> borrowConnection() {
+        HikariDataSource dataSource = hikariDataSource;
+        if (dataSource == null) {
+            throw new DatabaseExceptionBase(ConnectionMessages.NOT_CONNECTED.format(name));
+        }
+
+        QueryTracer currentTracer = tracer;
+        long startNanos = currentTracer == null ? 0 : System.nanoTime();
+        SQLConnectionLease lease;
+        try {
+            lease = lease(dataSource, statementCache);
+        } catch (SQLException e) {
+            // a restart may have closed the pool after it was read, retry on its replacement
+            HikariDataSource replacement = hikariDataSource;
+            if (replacement == null || replacement == dataSource)
+                throw new DatabaseExceptionBase("Failed to borrow a connection from the pool: " + e.getMessage(), e);
+            try {
+                lease = lease(replacement, statementCache);
+            } catch (SQLException retry) {
+                throw new DatabaseExceptionBase("Failed to borrow a connection from the pool: " + retry.getMessage(),
+                        retry);
+            }
+        }
+
+        if (currentTracer != null)
+            lease.trace(currentTracer, name, System.nanoTime() - startNanos);
+        return (ConnectionLease<C>) lease;
+    }
+
+    /**
+     * Leases a connection of a pool.
+     * 
+     * @param dataSource the pool to borrow from.
+     * @param cache      the statement cache of the pool, may be null.
+     * @return the lease, bound to the current thread.
+     * @throws SQLException if no connection could be obtained.
+     */
+    private SQLConnectionLease lease(HikariDataSource dataSource, PreparedStatementCache cache) throws SQLException {
+        Connection pooled = dataSource.getConnection();
+        try {
+            return SQLConnectionLease.of(connectionContainer, pooled, cache);
+        } catch (SQLException e) {
+            releaseConnection(pooled);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a pooled connection that could not be leased to the HikariCP pool.
+     * 
+     * @param connection The connection to return.
+     */
+    private static void releaseConnection(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // the pool evicts connections that fail to close
+        }
+    }
+
+    /**
+     * Sets the credentials for the database connection. They are used from the
+     * next connect or restart; see {@link #reconfigure(DatabaseCredentials)} to
+     * apply them to an open pool.
      * 
      * @param credentials The credentials to set for the connection.
      */
@@ -194,4 +848,24 @@ public class SQLDatabase<Cycle extends DatabaseCycle> implements Database<Cycle>
     public void setCredentials(DatabaseCredentials<? extends Enum<? extends CredentialsKey>> credentials) {
         this.credentials = (DatabaseCredentials<HikariCPDatabaseCredentials>) credentials;
     }
+
+    /**
+     * A connection pool opened by {@link #openPool()}.
+     */
+    private static final class Pool {
+        private final HikariDataSource dataSource;
+        private final Connection connection;
+        private final PreparedStatementCache statementCache;
+        private final StartupTimings timings;
+        private final Map<HikariCPDatabaseCredentials, Object> settings;
+
+        private Pool(HikariDataSource dataSource, Connection connection, PreparedStatementCache statementCache,
+                StartupTimings timings, Map<HikariCPDatabaseCredentials, Object> settings) {
+            this.dataSource = dataSource;
+            this.connection = connection;
+            this.statementCache = statementCache;
+            this.timings = timings;
+            this.settings = settings;
+        }
+    }
 }
@@ -0,0 +1,272 @@
+package me.a8kj.zobrelib.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import me.a8kj.zobrelib.database.trace.QueryTrace;
+import me.a8kj.zobrelib.database.trace.QueryTracer;
+
+/**
+ * Wraps the statements of a leased connection to report every execution to a
+ * {@link QueryTracer}.
+ * <p>
+ * Updates are reported as soon as they complete. Queries are reported once
+ * their result set is exhausted or closed, so that the number of rows and the
+ * time spent fetching them are included. The connection acquire time of the
+ * lease is attributed to its first reported statement.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+final class StatementTracing {
+
+    private final QueryTracer tracer;
+    private final String database;
+    private volatile Class<?> serviceType;
+    private final AtomicLong acquireNanos;
+
+    StatementTracing(QueryTracer tracer, String database, long acquireNanos) {
+        this.tracer = tracer;
+        this.database = database;
+        this.acquireNanos = new AtomicLong(acquireNanos);
+    }
+
+    void setServiceType(Class<?> serviceType) {
+        this.serviceType = serviceType;
+    }
+
+    /**
+     * Wraps a statement created on the leased connection.
+     * 
+     * @param statement the statement to trace.
+     * @param sql       the SQL text it was prepared with, or null for plain
+     *                  statements.
+     * @return a proxy reporting the executions of the statement.
+     */
+    Statement wrap(Statement statement, String sql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(StatementTracing.class.getClassLoader(), new Class<?>[] { type },
+                new TracedStatement(statement, sql));
+    }
+
+    private void report(QueryTrace trace) {
+        trace.setDatabase(database);
+        trace.setServiceType(serviceType);
+        trace.setAcquireNanos(acquireNanos.getAndSet(0));
+        try {
+            tracer.onQuery(trace);
+        } catch (RuntimeException ignored) {
+            // tracing must never fail the traced statement
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Handles the calls made on a traced statement.
+     */
+    private final class TracedStatement implements InvocationHandler {
+
+        private final Statement target;
+        private final String template;
+        private final QueryTrace trace = new QueryTrace();
+        private int bindCount;
+        private int batchSize;
+        private String pendingSql;
+        private long pendingExecuteNanos;
+        private TracedResultSet open;
+
+        private TracedStatement(Statement target, String template) {
+            this.target = target;
+            this.template = template;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute"))
+                return execute(proxy, method, args);
+
+            switch (name) {
+                case "addBatch":
+                    batchSize++;
+                    break;
+                case "clearBatch":
+                    batchSize = 0;
+                    break;
+                case "close":
+                    if (open != null)
+                        open.finish(null);
+                    break;
+                case "getResultSet": {
+                    ResultSet resultSet = (ResultSet) StatementTracing.invoke(target, method, args);
+                    String sql = pendingSql;
+                    pendingSql = null;
+                    return resultSet == null || sql == null ? resultSet
+                            : trace(proxy, resultSet, sql, pendingExecuteNanos);
+                }
+                case "unwrap":
+                    return ((Class<?>) args[0]).isInstance(proxy) ? proxy : target.unwrap((Class<?>) args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy) || target.isWrapperFor((Class<?>) args[0]);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer)
+                        bindCount = Math.max(bindCount, (Integer) args[0]);
+                    break;
+            }
+            return StatementTracing.invoke(target, method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : template;
+            int batched = method.getName().contains("Batch") ? batchSize : 0;
+            long startNanos = System.nanoTime();
+            Object result;
+            try {
+                result = StatementTracing.invoke(target, method, args);
+            } catch (Throwable e) {
+                finish(sql, batched, 0, System.nanoTime() - startNanos, 0, e);
+                throw e;
+            } finally {
+                if (batched > 0)
+                    batchSize = 0;
+            }
+            long executeNanos = System.nanoTime() - startNanos;
+
+            if (result instanceof ResultSet)
+                return trace(proxy, (ResultSet) result, sql, executeNanos);
+            if (Boolean.TRUE.equals(result)) {
+                pendingSql = sql;
+                pendingExecuteNanos = executeNanos;
+                return result;
+            }
+            finish(sql, batched, rowsOf(result), executeNanos, 0, null);
+            return result;
+        }
+
+        private long rowsOf(Object result) throws Exception {
+            if (result instanceof Number)
+                return ((Number) result).longValue();
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result)
+                    rows += Math.max(0, count);
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result)
+                    rows += Math.max(0, count);
+            } else {
+                rows = Math.max(0, target.getUpdateCount());
+            }
+            return rows;
+        }
+
+        private ResultSet trace(Object statement, ResultSet resultSet, String sql, long executeNanos) {
+            if (open != null)
+                open.finish(null);
+            open = new TracedResultSet(this, (Statement) statement, resultSet, sql, executeNanos);
+            return (ResultSet) Proxy.newProxyInstance(StatementTracing.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, open);
+        }
+
+        private void finish(String sql, int batched, long rows, long executeNanos, long fetchNanos,
+                Throwable failure) {
+            trace.setSql(sql);
+            trace.setBindCount(bindCount);
+            trace.setBatchSize(batched);
+            trace.setRows(rows);
+            trace.setExecuteNanos(executeNanos);
+            trace.setFetchNanos(fetchNanos);
+            trace.setFailure(failure);
+            report(trace);
+        }
+    }
+
+    /**
+     * Handles the calls made on the result set of a traced query, counting rows
+     * and fetch time until it is exhausted or closed.
+     */
+    private static final class TracedResultSet implements InvocationHandler {
+
+        private final TracedStatement owner;
+        private final Statement statement;
+        private final ResultSet target;
+        private final String sql;
+        private final long executeNanos;
+        private long rows;
+        private long fetchNanos;
+        private boolean finished;
+
+        private TracedResultSet(TracedStatement owner, Statement statement, ResultSet target, String sql,
+                long executeNanos) {
+            this.owner = owner;
+            this.statement = statement;
+            this.target = target;
+            this.sql = sql;
+            this.executeNanos = executeNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    long startNanos = System.nanoTime();
+                    boolean next;
+                    try {
+                        next = target.next();
+                    } catch (Throwable e) {
+                        fetchNanos += System.nanoTime() - startNanos;
+                        finish(e);
+                        throw e;
+                    }
+                    fetchNanos += System.nanoTime() - startNanos;
+                    if (next)
+                        rows++;
+                    else
+                        finish(null);
+                    return next;
+                }
+                case "close":
+                    finish(null);
+                    break;
+                case "getStatement":
+                    return statement;
+                case "unwrap":
+                    return ((Class<?>) args[0]).isInstance(proxy) ? proxy : target.unwrap((Class<?>) args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy) || target.isWrapperFor((Class<?>) args[0]);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return StatementTracing.invoke(target, method, args);
+        }
+
+        private void finish(Throwable failure) {
+            if (finished)
+                return;
+            finished = true;
+            owner.finish(sql, 0, rows, executeNanos, fetchNanos, failure);
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package me.a8kj.zobrelib.impl;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.attributes.ConnectionContainer;
+import me.a8kj.zobrelib.database.attributes.CredentialsKey;
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentials;
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentialsImpl;
+import me.a8kj.zobrelib.database.attributes.lease.ConnectionLease;
+import me.a8kj.zobrelib.database.attributes.lease.impl.SimpleConnectionLease;
+import me.a8kj.zobrelib.database.cache.QueryResultCache;
+import me.a8kj.zobrelib.database.cycle.DatabaseCycle;
+import me.a8kj.zobrelib.database.enums.ConnectionMessages;
+import me.a8kj.zobrelib.database.enums.ConnectionStatus;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.exception.impl.InvalidPropertiesException;
+import me.a8kj.zobrelib.database.health.HealthMonitor;
+import me.a8kj.zobrelib.database.metrics.MetricsRecorder;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+import me.a8kj.zobrelib.database.service.breaker.CircuitBreaker;
+import me.a8kj.zobrelib.database.service.executor.ServiceExecutors;
+import me.a8kj.zobrelib.database.service.retry.RetryClassifier;
+import me.a8kj.zobrelib.impl.wire.WireConnection;
+import me.a8kj.zobrelib.impl.wire.WireQuery;
+
+/**
+ * WireDatabase class implements the Database interface over a few non-blocking
+ * sockets speaking the MySQL/MariaDB protocol, without JDBC.
+ * <p>
+ * The database opens {@code MAX_POOL_SIZE} {@link WireConnection}s (4 by
+ * default) to the host, port and schema of the {@code JDBC_URL} credential
+ * ({@code jdbc:mysql://...} or {@code jdbc:mariadb://...}); a positive
+ * {@code PORT} credential overrides the port of the URL. The RSA public key
+ * exchange of {@code caching_sha2_password} is refused unless the
+ * {@code ALLOW_PUBLIC_KEY_RETRIEVAL} credential is true. Every connection
+ * pipelines any number of statements, so a handful of sockets carries
+ * thousands of queries in flight.
+ * </p>
+ * <p>
+ * {@link WireQuery} instances served asynchronously (e.g. through
+ * {@code serveAsync} or {@code ServiceWithType.ASYNC}) are sent from the
+ * calling thread and hold no thread while the server works; their futures are
+ * completed on the database's executor. Every other service and query, as well
+ * as synchronous serves, runs as usual on a leased connection: the lease binds
+ * the least busy socket to the calling thread, where services read it as a
+ * {@link WireConnection} from the connection container. Leases are not
+ * exclusive, so transactions are not supported.
+ * </p>
+ *
+ * @param <Cycle> The type of the cycle (DatabaseCycle).
+ * @author a8kj7sea
+ */
+@Getter
+public class WireDatabase<Cycle extends DatabaseCycle> implements Database<Cycle> {
+
+    /**
+     * How many sockets are opened if {@code MAX_POOL_SIZE} is not set.
+     */
+    public static final int DEFAULT_SOCKETS = 4;
+
+    /**
+     * How long connecting waits for the sockets to authenticate.
+     */
+    public static final long CONNECT_TIMEOUT_SECONDS = 10;
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final Pattern URL = Pattern
+            .compile("jdbc:(?:mysql|mariadb)://([^:/?]+)(?::(\\d+))?(?:/([^?;]*))?.*");
+
+    private final String name;
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<ConnectionStatus> status = new AtomicReference<>(ConnectionStatus.DISCONNECTED);
+    private Cycle cycle;
+    private ConnectionContainer<WireConnection> connectionContainer;
+    private volatile DatabaseCredentials<HikariCPDatabaseCredentials> credentials;
+    @Getter(AccessLevel.NONE)
+    private volatile WireConnection[] connections = new WireConnection[0];
+    @Setter
+    private ExecutorService executor = DatabaseService.EXECUTOR;
+    @Setter
+    private CircuitBreaker circuitBreaker;
+    @Setter
+    private QueryResultCache resultCache;
+    @Setter
+    private volatile HealthMonitor healthMonitor;
+    @Setter
+    private MetricsRecorder metrics = MetricsRecorder.NOOP;
+    private volatile long drainTimeoutNanos = TimeUnit.SECONDS.toNanos(SQLDatabase.DEFAULT_DRAIN_TIMEOUT_SECONDS);
+
+    /**
+     * Constructor to initialize the WireDatabase with the specified name and
+     * cycle.
+     *
+     * @param name  The name of the database.
+     * @param cycle The cycle object that defines actions during connection
+     *              lifecycle.
+     */
+    public WireDatabase(String name, Cycle cycle) {
+        this.name = name;
+        setCredentials(new DatabaseCredentialsImpl<HikariCPDatabaseCredentials>());
+        this.cycle = cycle;
+        this.cycle.setDatabase(this);
+        this.connectionContainer = new ConnectionContainer<>();
+    }
+
+    @Override
+    public ConnectionStatus getStatus() {
+        return status.get();
+    }
+
+    @Override
+    public void updateConnectionStatus(ConnectionStatus status) {
+        announce(this.status.getAndSet(status), status);
+    }
+
+    @Override
+    public boolean compareAndSetStatus(ConnectionStatus expected, ConnectionStatus status) {
+        if (!this.status.compareAndSet(expected, status))
+            return false;
+        announce(expected, status);
+        return true;
+    }
+
+    private void announce(ConnectionStatus previous, ConnectionStatus status) {
+        if (previous != status)
+            this.cycle.onStatusChange(previous, status);
+        switch (status) {
+            case CONNECTED:
+                System.out.println(ConnectionMessages.SUCCESSFULLY_CONNECTED.format(name));
+                break;
+            case DISCONNECTED:
+                System.out.println(ConnectionMessages.CLOSED_CONNECTION.format(name));
+                break;
+            case ERROR:
+                System.out.println(ConnectionMessages.FAILED_CONNECTION.format(name));
+                break;
+            case DRAINING:
+                System.out.println(ConnectionMessages.DRAINING.format(name));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Opens and authenticates the sockets of this database in parallel.
+     *
+     * @throws InvalidPropertiesException If required credentials are missing or
+     *                                    the JDBC URL is not a MySQL/MariaDB URL.
+     * @throws DatabaseExceptionBase      If a socket cannot be opened, or another
+     *                                    lifecycle transition is running.
+     */
+    @Override
+    public void connect() {
+        ConnectionStatus current = status.get();
+        if (current == ConnectionStatus.CONNECTED || current == ConnectionStatus.ERROR && connections.length > 0) {
+            throw new DatabaseExceptionBase("Already connected to the database.");
+        }
+        if (current.isTransitional() || !compareAndSetStatus(current, ConnectionStatus.CONNECTING)) {
+            throw new DatabaseExceptionBase("Cannot connect " + name + " while it is " + status.get() + ".");
+        }
+
+        WireConnection[] opened;
+        try {
+            opened = openSockets();
+        } catch (InvalidPropertiesException e) {
+            compareAndSetStatus(ConnectionStatus.CONNECTING, current);
+            throw e;
+        } catch (RuntimeException e) {
+            updateConnectionStatus(ConnectionStatus.ERROR);
+            throw e;
+        }
+
+        connections = opened;
+        connectionContainer.setConnection(opened[0]);
+        updateConnectionStatus(ConnectionStatus.CONNECTED);
+        this.cycle.onConnect();
+    }
+
+    private WireConnection[] openSockets() {
+        String jdbcUrl = credentials.getCredential(HikariCPDatabaseCredentials.JDBC_URL, String.class);
+        String username = credentials.getCredential(HikariCPDatabaseCredentials.USERNAME, String.class);
+        String password = credentials.getCredential(HikariCPDatabaseCredentials.PASSWORD, String.class);
+        if (jdbcUrl == null || username == null || password == null) {
+            throw new InvalidPropertiesException(
+                    "Missing required credentials: Please provide all the necessary credentials.");
+        }
+        Matcher url = URL.matcher(jdbcUrl);
+        if (!url.matches())
+            throw new InvalidPropertiesException("Not a MySQL or MariaDB JDBC URL: " + jdbcUrl);
+
+        Integer port = credentials.getCredential(HikariCPDatabaseCredentials.PORT, Integer.class);
+        if (port == null || port <= 0)
+            port = url.group(2) == null ? 3306 : Integer.parseInt(url.group(2));
+        Integer sockets = credentials.getCredential(HikariCPDatabaseCredentials.MAX_POOL_SIZE, Integer.class);
+        if (sockets == null || sockets <= 0)
+            sockets = DEFAULT_SOCKETS;
+
+        boolean allowPublicKeyRetrieval = Boolean.TRUE.equals(credentials
+                .getCredential(HikariCPDatabaseCredentials.ALLOW_PUBLIC_KEY_RETRIEVAL, Boolean.class));
+
+        List<CompletableFuture<WireConnection>> opening = new ArrayList<>(sockets);
+        for (int i = 0; i < sockets; i++)
+            opening.add(WireConnection.open(url.group(1), port, username, password, url.group(3),
+                    allowPublicKeyRetrieval, CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        WireConnection[] opened = new WireConnection[sockets];
+        try {
+            CompletableFuture.allOf(opening.toArray(new CompletableFuture<?>[0])).get(CONNECT_TIMEOUT_SECONDS + 1, TimeUnit.SECONDS);
+            for (int i = 0; i < opened.length; i++)
+                opened[i] = opening.get(i).join();
+            return opened;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeAll(opening);
+            throw new DatabaseExceptionBase("Interrupted while connecting to the database.", e);
+        } catch (ExecutionException | TimeoutException e) {
+            closeAll(opening);
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            throw new DatabaseExceptionBase("Failed to connect to the database: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static void closeAll(List<CompletableFuture<WireConnection>> opening) {
+        for (CompletableFuture<WireConnection> socket : opening)
+            socket.thenAccept(WireConnection::close);
+    }
+
+    /**
+     * Sets how long sockets retired by disconnecting or restarting wait for
+     * statements in flight before they are closed.
+     *
+     * @param timeout the maximum time to wait.
+     * @param unit    the time unit of the timeout.
+     */
+    public void setDrainTimeout(long timeout, TimeUnit unit) {
+        this.drainTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Restarts the database by disconnecting (if needed) and connecting again.
+     *
+     * @throws DatabaseExceptionBase If any error occurs while restarting the
+     *                               connection.
+     */
+    @Override
+    public void restart() {
+        ConnectionStatus current = status.get();
+        if (current.isTransitional())
+            throw new DatabaseExceptionBase("Cannot restart " + name + " while it is " + current + ".");
+        if (current != ConnectionStatus.DISCONNECTED && current != ConnectionStatus.IDLE)
+            disconnect();
+        connect();
+        this.cycle.onRestart();
+    }
+
+    /**
+     * Disconnects from the database if connected.
+     * <p>
+     * The disconnect is claimed first, so racing lifecycle calls fail instead of
+     * running the cycle's {@code onDisconnecting} too; the hook runs while
+     * services are still accepted. The database then turns
+     * {@link ConnectionStatus#DRAINING}, rejecting new services, and retires its
+     * sockets: they are closed in the background once the statements in flight
+     * have been answered or the drain timeout has elapsed, while this method
+     * returns right away.
+     * </p>
+     *
+     * @throws DatabaseExceptionBase If no active connection exists to disconnect,
+     *                               or another lifecycle transition is running.
+     */
+    @Override
+    public void disconnect() {
+        ConnectionStatus current = status.get();
+        if (current == ConnectionStatus.DISCONNECTED || current == ConnectionStatus.IDLE) {
+            throw new DatabaseExceptionBase("No active connection to disconnect.");
+        }
+        if (current.isTransitional()) {
+            throw new DatabaseExceptionBase("Cannot disconnect " + name + " while it is " + current + ".");
+        }
+
+        beginDisconnect(current);
+
+        WireConnection[] closing = connections;
+        connections = new WireConnection[0];
+        connectionContainer.setConnection(null);
+
+        retire(closing, System.nanoTime() + drainTimeoutNanos);
+
+        updateConnectionStatus(ConnectionStatus.DISCONNECTED);
+        if (closing.length > 0)
+            this.cycle.onDisconnect();
+    }
+
+    /**
+     * Claims a disconnect before anything else runs, then turns
+     * {@link ConnectionStatus#DRAINING}. A connected database passes through
+     * {@link ConnectionStatus#DISCONNECTING} to run the cycle's
+     * {@code onDisconnecting} while still serving, and returns to
+     * {@link ConnectionStatus#CONNECTED} if the hook fails.
+     *
+     * @param current the status the disconnect was requested in.
+     * @throws DatabaseExceptionBase If another lifecycle transition won the
+     *                               race.
+     */
+    private void beginDisconnect(ConnectionStatus current) {
+        boolean connected = current == ConnectionStatus.CONNECTED;
+        if (!compareAndSetStatus(current, connected ? ConnectionStatus.DISCONNECTING : ConnectionStatus.DRAINING)) {
+            throw new DatabaseExceptionBase("Cannot disconnect " + name + " while it is " + status.get() + ".");
+        }
+        if (!connected)
+            return;
+        try {
+            this.cycle.onDisconnecting();
+        } catch (RuntimeException | Error e) {
+            compareAndSetStatus(ConnectionStatus.DISCONNECTING, ConnectionStatus.CONNECTED);
+            throw e;
+        }
+        compareAndSetStatus(ConnectionStatus.DISCONNECTING, ConnectionStatus.DRAINING);
+    }
+
+    /**
+     * Retires sockets: they are closed once the statements in flight on them
+     * have been answered, or once the drain timeout has elapsed. The wait
+     * happens on the {@link ServiceScheduler}, so disconnecting does not block.
+     */
+    private void retire(WireConnection[] sockets, long deadline) {
+        int busy = busyCount(sockets);
+        if (busy > 0 && System.nanoTime() - deadline < 0) {
+            ServiceScheduler.schedule(() -> retire(sockets, deadline), DRAIN_POLL_NANOS, TimeUnit.NANOSECONDS);
+            return;
+        }
+        if (busy > 0)
+            System.out.println(ConnectionMessages.CLOSING_BUSY_POOL.format(name, busy));
+        for (WireConnection connection : sockets)
+            connection.close();
+    }
+
+    private static int busyCount(WireConnection[] sockets) {
+        int busy = 0;
+        for (WireConnection connection : sockets) {
+            if (connection.isOpen() && connection.getPendingCommands() > 0)
+                busy++;
+        }
+        return busy;
+    }
+
+    /**
+     * Checks whether the database is connected, i.e. serves and has at least
+     * one open socket.
+     *
+     * @return true if the database is connected, otherwise false.
+     */
+    @Override
+    public boolean isConnected() {
+        return Database.super.isConnected() && leastBusy() != null;
+    }
+
+    /**
+     * Leases the least busy open socket. The socket stays shared with other
+     * leases; closing the lease only unbinds it from the calling thread.
+     *
+     * @return An open lease holding a {@link WireConnection}.
+     * @throws DatabaseExceptionBase If no socket is open.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <C> ConnectionLease<C> borrowConnection() {
+        WireConnection connection = leastBusy();
+        if (connection == null) {
+            throw new DatabaseExceptionBase(ConnectionMessages.NOT_CONNECTED.format(name));
+        }
+        return (ConnectionLease<C>) new SimpleConnectionLease<WireConnection>(connectionContainer, connection,
+                released -> {
+                }) {
+            @Override
+            public boolean isValid(int timeoutSeconds) {
+                try {
+                    getConnection().ping().get(timeoutSeconds, TimeUnit.SECONDS);
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } catch (ExecutionException | TimeoutException e) {
+                    return false;
+                }
+            }
+        };
+    }
+
+    private WireConnection leastBusy() {
+        WireConnection best = null;
+        for (WireConnection connection : connections) {
+            if (connection.isOpen()
+                    && (best == null || connection.getPendingCommands() < best.getPendingCommands()))
+                best = connection;
+        }
+        return best;
+    }
+
+    /**
+     * Sends {@link WireQuery} instances without occupying an executor thread
+     * while they are in flight, unless results are cached. Other queries run on
+     * the executor like on every database.
+     */
+    @Override
+    public <R> CompletableFuture<R> submit(DatabaseQuery<R> query, Supplier<R> work) {
+        if (!(query instanceof WireQuery) || resultCache != null)
+            return Database.super.submit(query, work);
+
+        WireQuery<R> wireQuery = (WireQuery<R>) query;
+        HealthMonitor monitor = healthMonitor;
+        if (monitor != null && monitor.isReconnecting())
+            return monitor.park(() -> send(wireQuery));
+        return send(wireQuery);
+    }
+
+    private <R> CompletableFuture<R> send(WireQuery<R> query) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        CircuitBreaker breaker = circuitBreaker;
+        long startNanos = System.nanoTime();
+        CompletableFuture<R> sent;
+        try {
+            if (breaker != null)
+                breaker.acquirePermission();
+            if (!query.canServe(this))
+                throw new IllegalStateException("Cannot serve this database!");
+            WireConnection connection = leastBusy();
+            if (connection == null)
+                throw new DatabaseExceptionBase(ConnectionMessages.NOT_CONNECTED.format(name));
+            sent = query.send(connection);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        sent.whenComplete((value, error) -> {
+            Runnable completion = () -> {
+                if (error == null) {
+                    if (breaker != null)
+                        breaker.onSuccess();
+                    metrics.recordExecution(name, query.getServiceType(), System.nanoTime() - startNanos, true);
+                    result.complete(value);
+                    return;
+                }
+                RuntimeException failure = failureOf(error);
+                if (breaker != null)
+                    breaker.onFailure(failure);
+                metrics.recordExecution(name, query.getServiceType(), System.nanoTime() - startNanos, false);
+                SQLException cause = RetryClassifier.findSQLException(failure);
+                metrics.incrementError(name, query.getServiceType(), cause == null ? null : cause.getSQLState());
+                result.completeExceptionally(failure);
+            };
+            // keep callbacks of the caller off the reactor thread, unless handing
+            // them over would block it
+            if (!ServiceExecutors.tryExecute(executor, completion))
+                completion.run();
+        });
+        return result;
+    }
+
+    private static RuntimeException failureOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RuntimeException)
+            return (RuntimeException) cause;
+        return new DatabaseExceptionBase("Query failed: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * Sets the credentials for the database connection. They are used from the
+     * next connect or restart.
+     *
+     * @param credentials The credentials to set for the connection.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setCredentials(DatabaseCredentials<? extends Enum<? extends CredentialsKey>> credentials) {
+        this.credentials = (DatabaseCredentials<HikariCPDatabaseCredentials>) credentials;
+    }
+}
@@ -0,0 +1,103 @@
+package me.a8kj.zobrelib.impl.wire;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+
+/**
+ * Password scrambles of the authentication plugins supported by
+ * {@link WireConnection}: {@code mysql_native_password} and
+ * {@code caching_sha2_password}, including its RSA exchange on unencrypted
+ * sockets.
+ *
+ * @author a8kj7sea
+ */
+final class WireAuthentication {
+
+    static final String NATIVE_PASSWORD = "mysql_native_password";
+    static final String CACHING_SHA2_PASSWORD = "caching_sha2_password";
+
+    private WireAuthentication() {
+    }
+
+    /**
+     * Checks whether a plugin can be answered.
+     *
+     * @param plugin the name of the plugin.
+     * @return true if the plugin is supported.
+     */
+    static boolean isSupported(String plugin) {
+        return NATIVE_PASSWORD.equals(plugin) || CACHING_SHA2_PASSWORD.equals(plugin);
+    }
+
+    /**
+     * Scrambles a password with the seed sent by the server.
+     *
+     * @param plugin   the authentication plugin.
+     * @param password the password.
+     * @param seed     the seed of the server.
+     * @return the auth response; empty for an empty password.
+     * @throws GeneralSecurityException if a digest is not available.
+     */
+    static byte[] scramble(String plugin, String password, byte[] seed) throws GeneralSecurityException {
+        if (password.isEmpty())
+            return new byte[0];
+        byte[] bytes = password.getBytes(StandardCharsets.UTF_8);
+        if (CACHING_SHA2_PASSWORD.equals(plugin)) {
+            // SHA256(password) XOR SHA256(SHA256(SHA256(password)) + seed)
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] stage1 = sha256.digest(bytes);
+            byte[] stage2 = sha256.digest(stage1);
+            sha256.update(stage2);
+            sha256.update(seed);
+            return xor(stage1, sha256.digest());
+        }
+
+        // SHA1(password) XOR SHA1(seed + SHA1(SHA1(password)))
+        MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+        byte[] stage1 = sha1.digest(bytes);
+        byte[] stage2 = sha1.digest(stage1);
+        sha1.update(seed);
+        sha1.update(stage2);
+        return xor(stage1, sha1.digest());
+    }
+
+    /**
+     * Encrypts a password with the RSA public key of the server, as required by
+     * {@code caching_sha2_password} full authentication over an unencrypted
+     * socket.
+     *
+     * @param password  the password.
+     * @param seed      the seed of the server.
+     * @param publicKey the PEM encoded public key of the server.
+     * @return the encrypted password.
+     * @throws GeneralSecurityException if the key cannot be read or used.
+     */
+    static byte[] encrypt(String password, byte[] seed, String publicKey) throws GeneralSecurityException {
+        byte[] bytes = password.getBytes(StandardCharsets.UTF_8);
+        byte[] plain = new byte[bytes.length + 1];
+        System.arraycopy(bytes, 0, plain, 0, bytes.length);
+        for (int i = 0; i < plain.length; i++)
+            plain[i] ^= seed[i % seed.length];
+
+        String base64 = publicKey.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", "");
+        PublicKey key = KeyFactory.getInstance("RSA")
+                .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
+        Cipher cipher = Cipher.getInstance("RSA/ECB/OAEPWithSHA-1AndMGF1Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+        return cipher.doFinal(plain);
+    }
+
+    private static byte[] xor(byte[] left, byte[] right) {
+        byte[] result = new byte[left.length];
+        for (int i = 0; i < result.length; i++)
+            result[i] = (byte) (left[i] ^ right[i]);
+        return result;
+    }
+}
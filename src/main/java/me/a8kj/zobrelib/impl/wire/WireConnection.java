@@ -0,0 +1,670 @@
+package me.a8kj.zobrelib.impl.wire;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+import me.a8kj.zobrelib.database.service.ServiceScheduler;
+
+/**
+ * Non-blocking connection speaking the MySQL/MariaDB client/server protocol.
+ * <p>
+ * Statements are sent as {@code COM_QUERY} text commands without waiting for
+ * the previous ones to complete: any number of commands can be in flight on
+ * one socket, and the server answers them in order. Commands sent from several
+ * threads before the {@link WireReactor} thread flushes the socket go out in a
+ * single write, so a busy connection pipelines its commands without a round
+ * trip per statement.
+ * </p>
+ * <p>
+ * The returned futures are completed on the reactor thread, so callbacks
+ * attached to them must not block; hand blocking work over to an executor with
+ * the {@code *Async} variants of {@link CompletableFuture}. Server errors
+ * complete the future with an {@link SQLException} carrying the server's
+ * SQLState and error code; a lost socket fails every command in flight with
+ * an {@link SQLNonTransientConnectionException}. Prepared statements, TLS and
+ * {@code LOAD DATA LOCAL} are not supported; parameters are inlined as
+ * escaped literals by {@link #query(String, Object...)}.
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+public final class WireConnection implements AutoCloseable {
+
+    private static final int CLIENT_LONG_PASSWORD = 0x1;
+    private static final int CLIENT_LONG_FLAG = 0x4;
+    private static final int CLIENT_CONNECT_WITH_DB = 0x8;
+    private static final int CLIENT_PROTOCOL_41 = 0x200;
+    private static final int CLIENT_TRANSACTIONS = 0x2000;
+    private static final int CLIENT_SECURE_CONNECTION = 0x8000;
+    private static final int CLIENT_MULTI_STATEMENTS = 0x10000;
+    private static final int CLIENT_MULTI_RESULTS = 0x20000;
+    private static final int CLIENT_PLUGIN_AUTH = 0x80000;
+    private static final int CLIENT_PLUGIN_AUTH_LENENC_DATA = 0x200000;
+    private static final int CLIENT_CAPABILITIES = CLIENT_LONG_PASSWORD | CLIENT_LONG_FLAG | CLIENT_PROTOCOL_41
+            | CLIENT_TRANSACTIONS | CLIENT_SECURE_CONNECTION | CLIENT_MULTI_STATEMENTS | CLIENT_MULTI_RESULTS
+            | CLIENT_PLUGIN_AUTH | CLIENT_PLUGIN_AUTH_LENENC_DATA;
+
+    private static final int SERVER_MORE_RESULTS_EXISTS = 0x8;
+    private static final int SERVER_NO_BACKSLASH_ESCAPES = 0x200;
+    private static final int UTF8MB4_GENERAL_CI = 45;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * The address of the server, as {@code host:port}.
+     */
+    @Getter
+    private final String address;
+    private final SocketChannel channel;
+    private final Queue<Command<?>> commands = new ConcurrentLinkedQueue<>();
+    private final Queue<ByteBuffer> writes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean open = true;
+    private volatile int serverStatus;
+
+    // touched on the reactor thread only
+    private SelectionKey key;
+    private final ArrayDeque<ByteBuffer> outbound = new ArrayDeque<>();
+    private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private ByteArrayOutputStream partial;
+
+    private WireConnection(String address, SocketChannel channel) {
+        this.address = address;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a connection and authenticates, without retrieving the public key of
+     * the server.
+     *
+     * @param host     the host of the server.
+     * @param port     the port of the server.
+     * @param user     the user to authenticate as.
+     * @param password the password of the user.
+     * @param database the default schema, or null for none.
+     * @param timeout  the maximum time to connect and authenticate.
+     * @param unit     the time unit of the timeout.
+     * @return a future completed with the authenticated connection, or
+     *         exceptionally with an {@link SQLException}.
+     * @see #open(String, int, String, String, String, boolean, long, TimeUnit)
+     */
+    public static CompletableFuture<WireConnection> open(String host, int port, String user, String password,
+            String database, long timeout, TimeUnit unit) {
+        return open(host, port, user, password, database, false, timeout, unit);
+    }
+
+    /**
+     * Opens a connection and authenticates.
+     * <p>
+     * If {@code caching_sha2_password} requires full authentication, the
+     * password is encrypted with the RSA public key of the server. That key is
+     * requested over the same unencrypted socket, so a man-in-the-middle could
+     * substitute its own and read the password; unless
+     * {@code allowPublicKeyRetrieval} is set, authentication fails instead.
+     * </p>
+     *
+     * @param host                    the host of the server.
+     * @param port                    the port of the server.
+     * @param user                    the user to authenticate as.
+     * @param password                the password of the user.
+     * @param database                the default schema, or null for none.
+     * @param allowPublicKeyRetrieval whether the public key of the server may
+     *                                be requested over the unencrypted socket.
+     * @param timeout                 the maximum time to connect and
+     *                                authenticate.
+     * @param unit                    the time unit of the timeout.
+     * @return a future completed with the authenticated connection, or
+     *         exceptionally with an {@link SQLException}.
+     */
+    public static CompletableFuture<WireConnection> open(String host, int port, String user, String password,
+            String database, boolean allowPublicKeyRetrieval, long timeout, TimeUnit unit) {
+        CompletableFuture<WireConnection> opened = new CompletableFuture<>();
+        WireConnection connection;
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            connection = new WireConnection(host + ":" + port, channel);
+        } catch (IOException e) {
+            opened.completeExceptionally(lost(host + ":" + port, e));
+            return opened;
+        }
+
+        Handshake handshake = connection.new Handshake(user, password == null ? "" : password, database,
+                allowPublicKeyRetrieval, opened);
+        connection.commands.add(handshake);
+        connection.pending.incrementAndGet();
+        WireReactor.execute(() -> connection.connect(new InetSocketAddress(host, port)));
+
+        ServiceScheduler.schedule(() -> {
+            if (!opened.isDone())
+                WireReactor.execute(() -> connection.fail(new SQLTimeoutException(
+                        "Timed out connecting to " + connection.address, "08001")));
+        }, timeout, unit);
+        return opened;
+    }
+
+    /**
+     * Sends a statement, inlining its parameters.
+     *
+     * @param sql    the statement, with {@code ?} placeholders.
+     * @param params the parameters, in placeholder order.
+     * @return a future completed with the (first) result of the statement.
+     * @throws IllegalArgumentException if the parameters do not match the
+     *                                  placeholders.
+     */
+    public CompletableFuture<WireResult> query(String sql, Object... params) {
+        return queryAll(WirePackets.render(sql, params, (serverStatus & SERVER_NO_BACKSLASH_ESCAPES) != 0))
+                .thenApply(results -> results.get(0));
+    }
+
+    /**
+     * Sends one or more statements separated by {@code ;} as a single command.
+     *
+     * @param sql the statements.
+     * @return a future completed with the result of every statement, in order.
+     *         If a statement fails, the future fails and the following
+     *         statements are not executed.
+     */
+    public CompletableFuture<List<WireResult>> queryAll(String sql) {
+        Query query = new Query();
+        enqueue(query, WirePackets.frame(WirePackets.command(WirePackets.COM_QUERY, sql), 0));
+        return query.future;
+    }
+
+    /**
+     * Checks that the server answers.
+     *
+     * @return a future completed once the server answered.
+     */
+    public CompletableFuture<Void> ping() {
+        Ping ping = new Ping();
+        enqueue(ping, WirePackets.frame(new byte[] { WirePackets.COM_PING }, 0));
+        return ping.future;
+    }
+
+    /**
+     * Checks whether the connection can still send commands.
+     *
+     * @return true if the connection is open.
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Retrieves the number of commands sent and not answered yet.
+     *
+     * @return the number of commands in flight.
+     */
+    public int getPendingCommands() {
+        return pending.get();
+    }
+
+    /**
+     * Closes the socket. Commands in flight fail.
+     */
+    @Override
+    public void close() {
+        if (!open)
+            return;
+        open = false;
+        WireReactor.execute(() -> {
+            try {
+                channel.write(WirePackets.frame(new byte[] { WirePackets.COM_QUIT }, 0));
+            } catch (IOException ignored) {
+                // the socket is closed right after anyway
+            }
+            fail(new SQLNonTransientConnectionException("Connection to " + address + " was closed.", "08003"));
+        });
+    }
+
+    private void enqueue(Command<?> command, ByteBuffer packet) {
+        synchronized (commands) {
+            if (!open) {
+                command.fail(new SQLNonTransientConnectionException("Connection to " + address + " is closed.",
+                        "08003"));
+                return;
+            }
+            // commands and their packets are queued in the same order, so answers match up
+            commands.add(command);
+            writes.add(packet);
+            pending.incrementAndGet();
+        }
+        if (flushScheduled.compareAndSet(false, true))
+            WireReactor.execute(this::flush);
+    }
+
+    private void connect(InetSocketAddress socketAddress) {
+        try {
+            boolean connected = channel.connect(socketAddress);
+            key = WireReactor.register(channel, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+        } catch (IOException e) {
+            fail(lost(address, e));
+        }
+    }
+
+    /**
+     * Handles the readiness of the socket. Called on the reactor thread.
+     *
+     * @param key the selection key of the socket.
+     */
+    void handle(SelectionKey key) {
+        try {
+            if (key.isConnectable() && channel.finishConnect())
+                key.interestOps(SelectionKey.OP_READ);
+            if (key.isValid() && key.isReadable())
+                read();
+            if (key.isValid() && key.isWritable())
+                flush();
+        } catch (IOException e) {
+            fail(lost(address, e));
+        } catch (RuntimeException e) {
+            fail(new SQLNonTransientConnectionException("Protocol error on " + address + ": " + e, "08S01", e));
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        ByteBuffer next;
+        while ((next = writes.poll()) != null)
+            outbound.add(next);
+        if (key == null || !key.isValid() || channel.isConnectionPending())
+            return;
+
+        try {
+            if (!outbound.isEmpty())
+                channel.write(outbound.toArray(new ByteBuffer[0]));
+        } catch (IOException e) {
+            fail(lost(address, e));
+            return;
+        }
+        while (!outbound.isEmpty() && !outbound.peek().hasRemaining())
+            outbound.poll();
+        int ops = key.interestOps();
+        key.interestOps(outbound.isEmpty() ? ops & ~SelectionKey.OP_WRITE : ops | SelectionKey.OP_WRITE);
+    }
+
+    private void write(byte[] payload, int sequence) {
+        outbound.add(WirePackets.frame(payload, sequence));
+        flush();
+    }
+
+    private void read() throws IOException {
+        if (channel.read(readBuffer) < 0)
+            throw new EOFException("Connection closed by the server");
+        readBuffer.flip();
+        while (readBuffer.remaining() >= 4) {
+            int start = readBuffer.position();
+            int length = (readBuffer.get(start) & 0xFF) | (readBuffer.get(start + 1) & 0xFF) << 8
+                    | (readBuffer.get(start + 2) & 0xFF) << 16;
+            int sequence = readBuffer.get(start + 3) & 0xFF;
+            if (readBuffer.remaining() < length + 4)
+                break;
+
+            ByteBuffer payload = ByteBuffer.wrap(readBuffer.array(), start + 4, length).slice();
+            readBuffer.position(start + 4 + length);
+            if (length == WirePackets.MAX_PAYLOAD || partial != null) {
+                if (partial == null)
+                    partial = new ByteArrayOutputStream();
+                partial.write(payload.array(), payload.arrayOffset(), length);
+                if (length == WirePackets.MAX_PAYLOAD)
+                    continue;
+                payload = ByteBuffer.wrap(partial.toByteArray());
+                partial = null;
+            }
+            dispatch(payload, sequence);
+            if (!open && commands.isEmpty())
+                return;
+        }
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining()) {
+            readBuffer.flip();
+            readBuffer = ByteBuffer.allocate(readBuffer.capacity() * 2).put(readBuffer);
+        }
+    }
+
+    private void dispatch(ByteBuffer payload, int sequence) {
+        Command<?> command = commands.peek();
+        if (command == null)
+            throw new IllegalStateException("Unexpected packet without a command in flight");
+        if (command.onPacket(payload, sequence)) {
+            commands.poll();
+            pending.decrementAndGet();
+        }
+    }
+
+    private void fail(SQLException failure) {
+        open = false;
+        if (key != null)
+            key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to release
+        }
+        synchronized (commands) {
+            Command<?> command;
+            while ((command = commands.poll()) != null) {
+                pending.decrementAndGet();
+                command.fail(failure);
+            }
+            writes.clear();
+        }
+        outbound.clear();
+    }
+
+    private static SQLException lost(String address, IOException cause) {
+        return new SQLNonTransientConnectionException("Connection to " + address + " lost: " + cause.getMessage(),
+                "08S01", 2013, cause);
+    }
+
+    private static SQLException error(ByteBuffer payload) {
+        payload.get();
+        int code = WirePackets.readInt2(payload);
+        String state = "HY000";
+        if (payload.hasRemaining() && payload.get(payload.position()) == '#') {
+            payload.get();
+            state = new String(WirePackets.readBytes(payload, 5), StandardCharsets.US_ASCII);
+        }
+        String message = new String(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(),
+                StandardCharsets.UTF_8);
+        return new SQLException(message, state, code);
+    }
+
+    private static boolean isEof(ByteBuffer payload) {
+        return (payload.get(0) & 0xFF) == WirePackets.EOF && payload.limit() < 9;
+    }
+
+    /**
+     * A command waiting for its answer.
+     *
+     * @param <T> the type of the result.
+     */
+    private abstract static class Command<T> {
+
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        /**
+         * Consumes a packet of the answer.
+         *
+         * @return true once the answer is complete.
+         */
+        abstract boolean onPacket(ByteBuffer payload, int sequence);
+
+        void fail(SQLException failure) {
+            future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Answer of {@code COM_PING}: a single OK packet.
+     */
+    private final class Ping extends Command<Void> {
+
+        @Override
+        boolean onPacket(ByteBuffer payload, int sequence) {
+            if ((payload.get(0) & 0xFF) == WirePackets.ERR)
+                future.completeExceptionally(error(payload));
+            else
+                future.complete(null);
+            return true;
+        }
+    }
+
+    /**
+     * Answer of {@code COM_QUERY}: for every statement either an OK packet or a
+     * result set (column count, column definitions, EOF, rows, EOF), with the
+     * {@code SERVER_MORE_RESULTS_EXISTS} flag set on all but the last.
+     */
+    private final class Query extends Command<List<WireResult>> {
+
+        private final List<WireResult> results = new ArrayList<>(1);
+        private String[] columns;
+        private int columnIndex = -1;
+        private List<String[]> rows;
+
+        @Override
+        boolean onPacket(ByteBuffer payload, int sequence) {
+            int header = payload.get(0) & 0xFF;
+            if (columns == null) {
+                if (header == WirePackets.ERR) {
+                    future.completeExceptionally(error(payload));
+                    return true;
+                }
+                if (header == WirePackets.OK) {
+                    payload.get();
+                    long affectedRows = WirePackets.readLengthEncoded(payload);
+                    long lastInsertId = WirePackets.readLengthEncoded(payload);
+                    int status = WirePackets.readInt2(payload);
+                    int warnings = WirePackets.readInt2(payload);
+                    results.add(WireResult.ok(affectedRows, lastInsertId, warnings));
+                    return complete(status);
+                }
+                columns = new String[(int) WirePackets.readLengthEncoded(payload)];
+                columnIndex = 0;
+                return false;
+            }
+
+            if (columnIndex < columns.length) {
+                for (int skip = 0; skip < 4; skip++)
+                    WirePackets.readLengthEncodedString(payload); // catalog, schema, table, org_table
+                columns[columnIndex++] = WirePackets.readLengthEncodedString(payload);
+                return false;
+            }
+            if (rows == null) {
+                rows = new ArrayList<>();
+                return false; // EOF closing the column definitions
+            }
+
+            if (header == WirePackets.ERR) {
+                future.completeExceptionally(error(payload));
+                return true;
+            }
+            if (isEof(payload)) {
+                payload.get();
+                int warnings = WirePackets.readInt2(payload);
+                int status = WirePackets.readInt2(payload);
+                results.add(new WireResult(Collections.unmodifiableList(Arrays.asList(columns)),
+                        Collections.unmodifiableList(rows), 0, 0, warnings));
+                columns = null;
+                rows = null;
+                return complete(status);
+            }
+
+            String[] row = new String[columns.length];
+            for (int column = 0; column < row.length; column++)
+                row[column] = WirePackets.readLengthEncodedString(payload);
+            rows.add(row);
+            return false;
+        }
+
+        private boolean complete(int status) {
+            serverStatus = status;
+            if ((status & SERVER_MORE_RESULTS_EXISTS) != 0)
+                return false;
+            future.complete(Collections.unmodifiableList(results));
+            return true;
+        }
+    }
+
+    /**
+     * The connection phase: the server greeting, the handshake response and the
+     * authentication exchange, including plugin switches and, if allowed, the
+     * RSA key exchange of {@code caching_sha2_password}.
+     */
+    private final class Handshake extends Command<Void> {
+
+        private final String user;
+        private final String password;
+        private final String database;
+        private final boolean allowPublicKeyRetrieval;
+        private final CompletableFuture<WireConnection> opened;
+        private String plugin;
+        private byte[] seed;
+        private boolean greeted;
+        private boolean awaitingKey;
+
+        private Handshake(String user, String password, String database, boolean allowPublicKeyRetrieval,
+                CompletableFuture<WireConnection> opened) {
+            this.user = user;
+            this.password = password;
+            this.database = database;
+            this.allowPublicKeyRetrieval = allowPublicKeyRetrieval;
+            this.opened = opened;
+        }
+
+        @Override
+        boolean onPacket(ByteBuffer payload, int sequence) {
+            int header = payload.get(0) & 0xFF;
+            if (header == WirePackets.ERR) {
+                fail(error(payload));
+                return true;
+            }
+            try {
+                if (!greeted) {
+                    greeted = true;
+                    respond(payload, sequence);
+                    return false;
+                }
+                switch (header) {
+                    case WirePackets.OK:
+                        payload.get();
+                        WirePackets.readLengthEncoded(payload);
+                        WirePackets.readLengthEncoded(payload);
+                        serverStatus = WirePackets.readInt2(payload);
+                        future.complete(null);
+                        opened.complete(WireConnection.this);
+                        return true;
+                    case WirePackets.EOF:
+                        // auth switch request
+                        payload.get();
+                        plugin = WirePackets.readNulString(payload);
+                        seed = seedOf(WirePackets.readBytes(payload, payload.remaining()));
+                        checkPlugin();
+                        write(WireAuthentication.scramble(plugin, password, seed), sequence + 1);
+                        return false;
+                    case 0x01:
+                        // more data: the fast auth result or the public key of caching_sha2_password
+                        payload.get();
+                        if (awaitingKey) {
+                            String key = new String(WirePackets.readBytes(payload, payload.remaining()),
+                                    StandardCharsets.US_ASCII);
+                            write(WireAuthentication.encrypt(password, seed, key), sequence + 1);
+                        } else if (payload.get() == 0x04) {
+                            // full authentication: the key would come over this unencrypted socket
+                            if (!allowPublicKeyRetrieval)
+                                throw new SQLNonTransientConnectionException(
+                                        "Public key retrieval is not allowed for " + address + ".", "08001");
+                            awaitingKey = true;
+                            write(new byte[] { 0x02 }, sequence + 1);
+                        }
+                        return false;
+                    default:
+                        throw new IllegalStateException("Unexpected authentication packet " + header);
+                }
+            } catch (GeneralSecurityException | SQLException e) {
+                fail(e instanceof SQLException ? (SQLException) e
+                        : new SQLNonTransientConnectionException("Authentication failed: " + e.getMessage(), "28000",
+                                e));
+                return true;
+            }
+        }
+
+        private void respond(ByteBuffer greeting, int sequence) throws GeneralSecurityException, SQLException {
+            greeting.get(); // protocol version
+            WirePackets.readNulString(greeting); // server version
+            WirePackets.readInt4(greeting); // connection id
+            byte[] seedStart = WirePackets.readBytes(greeting, 8);
+            greeting.get();
+            int capabilities = WirePackets.readInt2(greeting);
+            byte[] seedEnd = new byte[0];
+            if (greeting.hasRemaining()) {
+                greeting.get(); // charset
+                serverStatus = WirePackets.readInt2(greeting);
+                capabilities |= WirePackets.readInt2(greeting) << 16;
+                int seedLength = WirePackets.readUnsignedByte(greeting);
+                greeting.position(greeting.position() + 10);
+                if ((capabilities & CLIENT_SECURE_CONNECTION) != 0)
+                    seedEnd = WirePackets.readBytes(greeting, Math.max(13, seedLength - 8));
+                if ((capabilities & CLIENT_PLUGIN_AUTH) != 0)
+                    plugin = WirePackets.readNulString(greeting);
+            }
+            if ((capabilities & CLIENT_PROTOCOL_41) == 0)
+                throw new SQLNonTransientConnectionException("Server at " + address + " is too old.", "08004");
+
+            byte[] fullSeed = new byte[seedStart.length + seedEnd.length];
+            System.arraycopy(seedStart, 0, fullSeed, 0, seedStart.length);
+            System.arraycopy(seedEnd, 0, fullSeed, seedStart.length, seedEnd.length);
+            seed = seedOf(fullSeed);
+            if (plugin == null || plugin.isEmpty())
+                plugin = WireAuthentication.NATIVE_PASSWORD;
+            checkPlugin();
+
+            int flags = CLIENT_CAPABILITIES & capabilities;
+            if (database != null && !database.isEmpty())
+                flags |= CLIENT_CONNECT_WITH_DB & capabilities;
+
+            ByteArrayOutputStream response = new ByteArrayOutputStream(128);
+            WirePackets.writeInt4(response, flags);
+            WirePackets.writeInt4(response, WirePackets.MAX_PAYLOAD);
+            response.write(UTF8MB4_GENERAL_CI);
+            response.write(new byte[23], 0, 23);
+            WirePackets.writeNulString(response, user);
+            byte[] auth = WireAuthentication.scramble(plugin, password, seed);
+            if ((flags & CLIENT_PLUGIN_AUTH_LENENC_DATA) != 0)
+                WirePackets.writeLengthEncoded(response, auth.length);
+            else
+                response.write(auth.length);
+            response.write(auth, 0, auth.length);
+            if ((flags & CLIENT_CONNECT_WITH_DB) != 0)
+                WirePackets.writeNulString(response, database);
+            if ((flags & CLIENT_PLUGIN_AUTH) != 0)
+                WirePackets.writeNulString(response, plugin);
+            write(response.toByteArray(), sequence + 1);
+        }
+
+        private void checkPlugin() throws SQLException {
+            if (!WireAuthentication.isSupported(plugin))
+                throw new SQLNonTransientConnectionException("Unsupported authentication plugin " + plugin + ".",
+                        "28000");
+        }
+
+        private byte[] seedOf(byte[] data) {
+            int length = data.length;
+            while (length > 0 && data[length - 1] == 0)
+                length--;
+            return Arrays.copyOf(data, Math.min(length, 20));
+        }
+
+        @Override
+        void fail(SQLException failure) {
+            super.fail(failure);
+            opened.completeExceptionally(failure);
+            if (open)
+                WireReactor.execute(() -> WireConnection.this.fail(failure));
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package me.a8kj.zobrelib.impl.wire;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoding helpers for the MySQL/MariaDB client/server protocol.
+ * <p>
+ * Every packet starts with a 3 byte little-endian payload length and a 1 byte
+ * sequence id. Payloads of 16 MiB or more are split over several packets, the
+ * last one being shorter than 16 MiB (possibly empty).
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+final class WirePackets {
+
+    /**
+     * The largest payload a single packet carries.
+     */
+    static final int MAX_PAYLOAD = 0xFFFFFF;
+
+    static final int OK = 0x00;
+    static final int EOF = 0xFE;
+    static final int ERR = 0xFF;
+    static final int NULL_VALUE = 0xFB;
+
+    static final byte COM_QUIT = 0x01;
+    static final byte COM_QUERY = 0x03;
+    static final byte COM_PING = 0x0E;
+
+    private WirePackets() {
+    }
+
+    /**
+     * Frames a payload into packets starting at the given sequence id.
+     *
+     * @param payload  the payload to send.
+     * @param sequence the sequence id of the first packet.
+     * @return a buffer holding every packet, ready to be written.
+     */
+    static ByteBuffer frame(byte[] payload, int sequence) {
+        int packets = payload.length / MAX_PAYLOAD + 1;
+        ByteBuffer buffer = ByteBuffer.allocate(payload.length + packets * 4);
+        int offset = 0;
+        for (int packet = 0; packet < packets; packet++) {
+            int length = Math.min(MAX_PAYLOAD, payload.length - offset);
+            buffer.put((byte) length).put((byte) (length >>> 8)).put((byte) (length >>> 16))
+                    .put((byte) (sequence + packet));
+            buffer.put(payload, offset, length);
+            offset += length;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Builds the payload of a command carrying text, e.g. {@code COM_QUERY}.
+     *
+     * @param command the command byte.
+     * @param text    the text of the command.
+     * @return the payload.
+     */
+    static byte[] command(byte command, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[bytes.length + 1];
+        payload[0] = command;
+        System.arraycopy(bytes, 0, payload, 1, bytes.length);
+        return payload;
+    }
+
+    static int readUnsignedByte(ByteBuffer buffer) {
+        return buffer.get() & 0xFF;
+    }
+
+    static int readInt2(ByteBuffer buffer) {
+        return (buffer.get() & 0xFF) | (buffer.get() & 0xFF) << 8;
+    }
+
+    static long readInt4(ByteBuffer buffer) {
+        return readInt2(buffer) | (long) readInt2(buffer) << 16;
+    }
+
+    /**
+     * Reads a length-encoded integer.
+     *
+     * @param buffer the buffer positioned at the integer.
+     * @return the integer, or -1 for the {@code NULL} marker.
+     */
+    static long readLengthEncoded(ByteBuffer buffer) {
+        int first = readUnsignedByte(buffer);
+        switch (first) {
+            case NULL_VALUE:
+                return -1;
+            case 0xFC:
+                return readInt2(buffer);
+            case 0xFD:
+                return readInt2(buffer) | (long) readUnsignedByte(buffer) << 16;
+            case 0xFE:
+                return readInt4(buffer) | readInt4(buffer) << 32;
+            default:
+                return first;
+        }
+    }
+
+    /**
+     * Reads a length-encoded UTF-8 string.
+     *
+     * @param buffer the buffer positioned at the string.
+     * @return the string, or null for the {@code NULL} marker.
+     */
+    static String readLengthEncodedString(ByteBuffer buffer) {
+        long length = readLengthEncoded(buffer);
+        if (length < 0)
+            return null;
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), (int) length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + (int) length);
+        return value;
+    }
+
+    /**
+     * Reads a NUL-terminated string, or the rest of the buffer if it has no NUL.
+     *
+     * @param buffer the buffer positioned at the string.
+     * @return the string.
+     */
+    static String readNulString(ByteBuffer buffer) {
+        int start = buffer.position();
+        int end = start;
+        while (end < buffer.limit() && buffer.get(end) != 0)
+            end++;
+        String value = new String(buffer.array(), buffer.arrayOffset() + start, end - start,
+                StandardCharsets.UTF_8);
+        buffer.position(Math.min(end + 1, buffer.limit()));
+        return value;
+    }
+
+    static byte[] readBytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    static void writeInt4(ByteArrayOutputStream out, long value) {
+        out.write((int) value);
+        out.write((int) (value >>> 8));
+        out.write((int) (value >>> 16));
+        out.write((int) (value >>> 24));
+    }
+
+    static void writeLengthEncoded(ByteArrayOutputStream out, long value) {
+        if (value < 0xFB) {
+            out.write((int) value);
+        } else if (value < 0x10000) {
+            out.write(0xFC);
+            out.write((int) value);
+            out.write((int) (value >>> 8));
+        } else if (value < 0x1000000) {
+            out.write(0xFD);
+            out.write((int) value);
+            out.write((int) (value >>> 8));
+            out.write((int) (value >>> 16));
+        } else {
+            out.write(0xFE);
+            writeInt4(out, value);
+            writeInt4(out, value >>> 32);
+        }
+    }
+
+    static void writeNulString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+        out.write(0);
+    }
+
+    /**
+     * Replaces the {@code ?} placeholders of a statement with SQL literals of the
+     * given parameters. Placeholders and quotes inside quoted strings,
+     * identifiers, line comments ({@code -- } and {@code #}) and block comments
+     * are left untouched; executable comments starting with {@code /*!} are
+     * rendered like the rest of the statement, since the server runs them.
+     *
+     * @param sql                the statement.
+     * @param params             the parameters, in placeholder order.
+     * @param noBackslashEscapes whether the server runs with
+     *                           {@code NO_BACKSLASH_ESCAPES}.
+     * @return the statement with its parameters inlined.
+     * @throws IllegalArgumentException if the number of placeholders and
+     *                                  parameters differ.
+     */
+    static String render(String sql, Object[] params, boolean noBackslashEscapes) {
+        if (params == null || params.length == 0)
+            return sql;
+
+        StringBuilder rendered = new StringBuilder(sql.length() + params.length * 16);
+        int next = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && quote != '`' && !noBackslashEscapes && i + 1 < sql.length()) {
+                    rendered.append(c).append(sql.charAt(++i));
+                    continue;
+                }
+                if (c == quote)
+                    quote = 0;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                if (next == params.length)
+                    throw new IllegalArgumentException("More placeholders than parameters in: " + sql);
+                appendLiteral(rendered, params[next++], noBackslashEscapes);
+                continue;
+            } else {
+                int end = commentEnd(sql, i);
+                if (end > i) {
+                    rendered.append(sql, i, end);
+                    i = end - 1;
+                    continue;
+                }
+            }
+            rendered.append(c);
+        }
+        if (next != params.length)
+            throw new IllegalArgumentException("More parameters than placeholders in: " + sql);
+        return rendered.toString();
+    }
+
+    /**
+     * Finds the end of a comment starting at the given index.
+     *
+     * @return the index right after the comment, or {@code start} if no comment
+     *         starts there.
+     */
+    private static int commentEnd(String sql, int start) {
+        char c = sql.charAt(start);
+        char next = start + 1 < sql.length() ? sql.charAt(start + 1) : 0;
+        boolean lineComment = c == '#' || c == '-' && next == '-'
+                && (start + 2 == sql.length() || sql.charAt(start + 2) <= ' ');
+        if (lineComment) {
+            int end = sql.indexOf('\n', start);
+            return end < 0 ? sql.length() : end;
+        }
+        if (c == '/' && next == '*' && (start + 2 == sql.length() || sql.charAt(start + 2) != '!')) {
+            int end = sql.indexOf("*/", start + 2);
+            return end < 0 ? sql.length() : end + 2;
+        }
+        return start;
+    }
+
+    private static void appendLiteral(StringBuilder out, Object value, boolean noBackslashEscapes) {
+        if (value == null) {
+            out.append("NULL");
+        } else if (value instanceof Boolean) {
+            out.append((Boolean) value ? '1' : '0');
+        } else if (value instanceof BigDecimal) {
+            out.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number) {
+            out.append(value);
+        } else if (value instanceof byte[]) {
+            out.append("X'");
+            for (byte b : (byte[]) value)
+                out.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            out.append('\'');
+        } else {
+            String text = value.toString();
+            out.append('\'');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\'':
+                        out.append("''");
+                        break;
+                    case '\\':
+                        out.append(noBackslashEscapes ? "\\" : "\\\\");
+                        break;
+                    case '\0':
+                        out.append(noBackslashEscapes ? "\0" : "\\0");
+                        break;
+                    case '\n':
+                        out.append(noBackslashEscapes ? "\n" : "\\n");
+                        break;
+                    case '\r':
+                        out.append(noBackslashEscapes ? "\r" : "\\r");
+                        break;
+                    case '\u001A':
+                        out.append(noBackslashEscapes ? "\u001A" : "\\Z");
+                        break;
+                    default:
+                        out.append(c);
+                }
+            }
+            out.append('\'');
+        }
+    }
+}
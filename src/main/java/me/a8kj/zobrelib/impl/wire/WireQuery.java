@@ -0,0 +1,82 @@
+package me.a8kj.zobrelib.impl.wire;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+
+/**
+ * A query sending its statements over a {@link WireConnection} without
+ * blocking.
+ * <p>
+ * Served asynchronously on a database speaking the wire protocol (e.g.
+ * {@link me.a8kj.zobrelib.impl.WireDatabase}), the query is sent straight from
+ * the calling thread and its future completes when the server answers, so
+ * queries in flight hold no thread. Served synchronously, or on any other
+ * database, it runs like every other {@link DatabaseQuery}: on the connection
+ * leased to the calling thread, waiting for the answer.
+ * </p>
+ * <p>
+ * Mapping functions attached to the future of {@link #send(WireConnection)}
+ * run on the reactor thread and must not block.
+ * </p>
+ *
+ * <pre>
+ * WireQuery&lt;String&gt; name = connection -&gt; connection
+ *         .query("SELECT name FROM players WHERE id = ?", id)
+ *         .thenApply(result -&gt; result.getRowCount() == 0 ? null : result.getString(0, "name"));
+ * database.serve(name, ServiceWithType.ASYNC, 0, TimeUnit.SECONDS);
+ * </pre>
+ *
+ * @param <R> the type of the result produced by the query.
+ * @author a8kj7sea
+ */
+@FunctionalInterface
+public interface WireQuery<R> extends DatabaseQuery<R> {
+
+    /**
+     * Sends the statements of the query.
+     *
+     * @param connection the connection to send the statements on.
+     * @return a future completed with the result of the query.
+     */
+    CompletableFuture<R> send(WireConnection connection);
+
+    /**
+     * Sends the query on the connection leased to the calling thread and waits
+     * for its result.
+     *
+     * @throws DatabaseExceptionBase if the server answered with an error or the
+     *                               connection was lost.
+     */
+    @Override
+    default R serve(Database<?> database) {
+        WireConnection connection = database.<WireConnection>getConnectionContainer().getConnection();
+        try {
+            return send(connection).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new DatabaseExceptionBase("Query failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    @Override
+    default boolean canServe(Database<?> database) {
+        return database.isConnected();
+    }
+
+    /**
+     * Creates a query sending a single statement.
+     *
+     * @param sql    the statement, with {@code ?} placeholders.
+     * @param params the parameters, in placeholder order.
+     * @return the query.
+     */
+    static WireQuery<WireResult> of(String sql, Object... params) {
+        return connection -> connection.query(sql, params);
+    }
+}
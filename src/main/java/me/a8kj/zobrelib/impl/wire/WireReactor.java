@@ -0,0 +1,95 @@
+package me.a8kj.zobrelib.impl.wire;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Event loop driving every {@link WireConnection}.
+ * <p>
+ * A single daemon thread selects over all sockets, so thousands of queries in
+ * flight cost no threads beyond this one. Connections only touch their socket
+ * and decoding state on this thread; other threads hand work over through
+ * {@link #execute(Runnable)}, which always wakes the selector up so the task
+ * runs before the loop blocks again.
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+final class WireReactor {
+
+    private static final Selector SELECTOR;
+    private static final Queue<Runnable> TASKS = new ConcurrentLinkedQueue<>();
+    private static final Thread THREAD;
+
+    static {
+        try {
+            SELECTOR = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the selector of the wire reactor", e);
+        }
+        THREAD = new Thread(WireReactor::loop, "zobrelib-wire-1");
+        THREAD.setDaemon(true);
+        THREAD.start();
+    }
+
+    private WireReactor() {
+    }
+
+    /**
+     * Runs a task on the reactor thread.
+     *
+     * @param task the task to run; it must not block.
+     */
+    static void execute(Runnable task) {
+        TASKS.add(task);
+        // also from the reactor thread: a task queued while selected keys are
+        // handled must not wait for an unrelated event
+        SELECTOR.wakeup();
+    }
+
+    /**
+     * Registers a socket with the selector. Must be called on the reactor
+     * thread.
+     *
+     * @param channel    the non-blocking socket.
+     * @param ops        the initial interest set.
+     * @param connection the connection handling the socket's events.
+     * @return the selection key of the socket.
+     * @throws IOException if the socket is closed.
+     */
+    static SelectionKey register(SocketChannel channel, int ops, WireConnection connection) throws IOException {
+        return channel.register(SELECTOR, ops, connection);
+    }
+
+    private static void loop() {
+        while (true) {
+            try {
+                SELECTOR.select();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            Runnable task;
+            while ((task = TASKS.poll()) != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+
+            Iterator<SelectionKey> keys = SELECTOR.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                ((WireConnection) key.attachment()).handle(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package me.a8kj.zobrelib.impl.wire;
+
+import java.util.Collections;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Immutable result of one statement sent over a {@link WireConnection}.
+ * <p>
+ * Statements returning rows carry their column labels and rows in the text
+ * representation sent by the server, with {@code NULL} values as null. Other
+ * statements only carry the number of affected rows and the last generated
+ * id.
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class WireResult {
+
+    private final List<String> columns;
+    private final List<String[]> rows;
+    private final long affectedRows;
+    private final long lastInsertId;
+    private final int warnings;
+
+    /**
+     * Creates the result of a statement that returned no rows.
+     */
+    static WireResult ok(long affectedRows, long lastInsertId, int warnings) {
+        return new WireResult(Collections.emptyList(), Collections.emptyList(), affectedRows, lastInsertId, warnings);
+    }
+
+    /**
+     * Checks whether the statement returned rows.
+     *
+     * @return true if the result has columns.
+     */
+    public boolean isResultSet() {
+        return !columns.isEmpty();
+    }
+
+    /**
+     * Retrieves the number of rows returned by the statement.
+     *
+     * @return the number of rows.
+     */
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Finds the index of a column, ignoring case.
+     *
+     * @param label the label of the column.
+     * @return the index of the column.
+     * @throws IllegalArgumentException if the result has no such column.
+     */
+    public int indexOf(String label) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).equalsIgnoreCase(label))
+                return i;
+        }
+        throw new IllegalArgumentException("No column " + label + " in " + columns);
+    }
+
+    /**
+     * Reads a value as text.
+     *
+     * @param row   the index of the row.
+     * @param label the label of the column.
+     * @return the value, or null if it is {@code NULL}.
+     */
+    public String getString(int row, String label) {
+        return rows.get(row)[indexOf(label)];
+    }
+
+    /**
+     * Reads an integral value.
+     *
+     * @param row   the index of the row.
+     * @param label the label of the column.
+     * @return the value, or null if it is {@code NULL}.
+     * @throws NumberFormatException if the value is not an integer.
+     */
+    public Long getLong(int row, String label) {
+        String value = getString(row, label);
+        return value == null ? null : Long.valueOf(value);
+    }
+}
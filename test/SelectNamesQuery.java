@@ -0,0 +1,79 @@
+package me.a8kj.zobrelib.impl.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import me.a8kj.zobrelib.database.Database;
+import me.a8kj.zobrelib.database.exception.DatabaseExceptionBase;
+import me.a8kj.zobrelib.database.service.DatabaseQuery;
+
+/**
+ * Query that selects the "name" column of every record in a table.
+ * <p>
+ * Unlike {@link SelectService}, this query returns the selected names instead
+ * of printing them, so the result can be composed through
+ * {@link DatabaseQuery#serveAsync(Database)}.
+ * </p>
+ * 
+ * @author a8kj7sea
+ */
+public class SelectNamesQuery implements DatabaseQuery<List<String>> {
+
+    private final String table;
+
+    /**
+     * Constructor to initialize the SelectNamesQuery with the table name.
+     *
+     * @param table The name of the table to query.
+     */
+    public SelectNamesQuery(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Executes a SELECT query on the specified table and collects the "name"
+     * field of each record.
+     *
+     * @param database The database object that will be used for the query.
+     * @return The names of all records in the table.
+     * @throws IllegalStateException If the database is not connected.
+     */
+    @Override
+    public List<String> serve(Database<?> database) {
+        if (!canServe(database)) {
+            throw new IllegalStateException("Cannot perform select operation. Database is not connected.");
+        }
+
+        Connection connection = (Connection) database.getConnectionContainer().getConnection();
+        List<String> names = new ArrayList<>();
+
+        String sql = "SELECT name FROM " + table;
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+                ResultSet resultSet = statement.executeQuery()) {
+
+            while (resultSet.next()) {
+                names.add(resultSet.getString(1));
+            }
+
+        } catch (SQLException e) {
+            throw new DatabaseExceptionBase("Error executing select statement: " + e.getMessage(), e);
+        }
+        return names;
+    }
+
+    /**
+     * Checks if the database is connected and if the SELECT operation can be
+     * performed.
+     *
+     * @param database The database to check the connection status.
+     * @return true if the database is connected, otherwise false.
+     */
+    @Override
+    public boolean canServe(Database<?> database) {
+        return database.isConnected();
+    }
+}
@@ -60,13 +60,17 @@ public class SimpleSQLDatabase<Cycle extends DatabaseCycle> implements Database<
     }
 
     /**
-     * Updates the connection status and prints the relevant message.
+     * Updates the connection status, prints the relevant message and notifies
+     * the cycle if the status changed.
      * 
      * @param status The new connection status to set.
      */
     @Override
     public void updateConnectionStatus(ConnectionStatus status) {
+        ConnectionStatus previous = this.status;
         this.status = status;
+        if (previous != status)
+            this.cycle.onStatusChange(previous, status);
         switch (status) {
             case CONNECTED:
                 System.out.println(ConnectionMessages.SUCCESSFULLY_CONNECTED.format(name));
@@ -142,6 +146,7 @@ public class SimpleSQLDatabase<Cycle extends DatabaseCycle> implements Database<
 
         try {
             if (connection != null && !connection.isClosed()) {
+                this.cycle.onDisconnecting();
                 connection.close();
                 connectionContainer.setConnection(null);
                 updateConnectionStatus(ConnectionStatus.DISCONNECTED);
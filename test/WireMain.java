@@ -0,0 +1,109 @@
+package me.a8kj.zobrelib.impl.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentials;
+import me.a8kj.zobrelib.database.attributes.DatabaseCredentialsImpl;
+import me.a8kj.zobrelib.database.cycle.BaseDataBaseCycle;
+import me.a8kj.zobrelib.database.service.DatabaseService;
+import me.a8kj.zobrelib.database.service.retry.RetryClassifier;
+import me.a8kj.zobrelib.impl.HikariCPDatabaseCredentials;
+import me.a8kj.zobrelib.impl.WireDatabase;
+import me.a8kj.zobrelib.impl.wire.WireQuery;
+import me.a8kj.zobrelib.impl.wire.WireResult;
+
+/**
+ * Main class that demonstrates {@link WireDatabase} against the in-process
+ * {@link WireStubServer}, so it runs without a MySQL or MariaDB server.
+ * <p>
+ * It connects with both supported authentication plugins, serves a single
+ * statement, a multi-statement query, a failing statement and a burst of
+ * pipelined asynchronous queries, and finally shows that a wrong password
+ * fails the connect.
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+public class WireMain {
+    public static void main(String[] args) throws Exception {
+        try (WireStubServer nativeServer = new WireStubServer(9201, "mysql_native_password", "secret");
+                WireStubServer sha2Server = new WireStubServer(9202, "caching_sha2_password", "secret")) {
+
+            // Handshake with mysql_native_password, then a single statement
+            WireDatabase<QuietCycle> database = database("native", nativeServer.getPort(), "secret");
+            database.connect();
+            WireResult greeting = database.serve(WireQuery.of("SELECT ?", "it's wired"));
+            System.out.println("Single statement: " + greeting.getString(0, "v"));
+
+            // Several statements in one round trip, one result each
+            WireQuery<List<WireResult>> multi = connection -> connection.queryAll("SELECT 1; SELECT 2; INSERT x");
+            List<WireResult> results = database.serve(multi);
+            System.out.println("Multi statement: " + results.size() + " results, last one affected "
+                    + results.get(2).getAffectedRows() + " row(s)");
+
+            // A server error surfaces as a SQLException classified like JDBC ones
+            try {
+                database.serve(WireQuery.of("FAIL"));
+            } catch (RuntimeException e) {
+                System.out.println("Error path: SQLState " + RetryClassifier.findSQLException(e).getSQLState()
+                        + ", retryable " + RetryClassifier.isRetryable(e));
+            }
+
+            // Asynchronous queries are pipelined on the few open sockets
+            List<CompletableFuture<WireResult>> futures = new ArrayList<>();
+            for (int index = 0; index < 1000; index++)
+                futures.add(WireQuery.of("SELECT ?", index).serveAsync(database));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            System.out.println("Pipelined 1000 queries, largest batch answered at once: "
+                    + nativeServer.getMaxBatch());
+            database.disconnect();
+
+            // Handshake with the fast path of caching_sha2_password
+            WireDatabase<QuietCycle> sha2 = database("sha2", sha2Server.getPort(), "secret");
+            sha2.connect();
+            System.out.println("caching_sha2_password: " + sha2.serve(WireQuery.of("SELECT 7")).getString(0, "v"));
+            sha2.disconnect();
+
+            // A wrong password fails the connect
+            try {
+                database("denied", nativeServer.getPort(), "wrong").connect();
+            } catch (RuntimeException e) {
+                System.out.println("Wrong password: " + e.getMessage());
+            }
+        }
+
+        // The shared executor completed the asynchronous queries; stop its threads
+        DatabaseService.EXECUTOR.shutdown();
+    }
+
+    private static WireDatabase<QuietCycle> database(String name, int port, String password) {
+        DatabaseCredentials<HikariCPDatabaseCredentials> credentials = new DatabaseCredentialsImpl<>();
+        credentials.addCredential(HikariCPDatabaseCredentials.JDBC_URL, String.class,
+                "jdbc:mariadb://localhost:" + port + "/zobe");
+        credentials.addCredential(HikariCPDatabaseCredentials.USERNAME, String.class, "root");
+        credentials.addCredential(HikariCPDatabaseCredentials.PASSWORD, String.class, password);
+
+        WireDatabase<QuietCycle> database = new WireDatabase<>(name, new QuietCycle());
+        database.setCredentials(credentials);
+        return database;
+    }
+
+    /**
+     * A cycle without any work of its own.
+     */
+    private static final class QuietCycle extends BaseDataBaseCycle {
+        @Override
+        public void onConnect() {
+        }
+
+        @Override
+        public void onDisconnect() {
+        }
+
+        @Override
+        public void onRestart() {
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package me.a8kj.zobrelib.impl.test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal in-process MySQL protocol server to try
+ * {@link me.a8kj.zobrelib.impl.WireDatabase} without a real server.
+ * <p>
+ * The server speaks just enough of the protocol for the demo in
+ * {@link WireMain}: the handshake with {@code mysql_native_password} or the
+ * fast path of {@code caching_sha2_password}, {@code COM_PING},
+ * {@code COM_QUIT} and {@code COM_QUERY}. Statements separated by {@code ;}
+ * are answered as multiple results. The answer depends on how a statement
+ * starts:
+ * </p>
+ * <ul>
+ * <li>{@code SELECT x} returns one row with one column {@code v} holding
+ * {@code x}, unquoted if it is a string literal;</li>
+ * <li>{@code INSERT} returns an OK packet with one affected row;</li>
+ * <li>{@code FAIL} returns error 1213 (deadlock, SQLState 40001);</li>
+ * <li>anything else returns an OK packet.</li>
+ * </ul>
+ * <p>
+ * Commands pipelined by the client are answered in one write, and the largest
+ * such batch is reported by {@link #getMaxBatch()}.
+ * </p>
+ *
+ * @author a8kj7sea
+ */
+public class WireStubServer implements AutoCloseable {
+
+    private static final int CLIENT_CAPABILITIES = 0x1 | 0x4 | 0x8 | 0x200 | 0x2000 | 0x8000 | 0x10000 | 0x20000
+            | 0x80000 | 0x200000;
+    private static final int SERVER_STATUS_AUTOCOMMIT = 0x2;
+    private static final int SERVER_MORE_RESULTS_EXISTS = 0x8;
+
+    private final ServerSocket serverSocket;
+    private final String plugin;
+    private final String password;
+    private final AtomicInteger maxBatch = new AtomicInteger();
+
+    /**
+     * Starts a server accepting connections on a background thread.
+     *
+     * @param port     the port to listen on.
+     * @param plugin   the authentication plugin, {@code mysql_native_password} or
+     *                 {@code caching_sha2_password}.
+     * @param password the password every user must present.
+     * @throws IOException if the port cannot be bound.
+     */
+    public WireStubServer(int port, String plugin, String password) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.plugin = plugin;
+        this.password = password;
+        start(this::accept);
+    }
+
+    /**
+     * Retrieves the port the server accepts connections on.
+     *
+     * @return the local port of the server socket.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Retrieves the largest number of commands answered in one write.
+     *
+     * @return the largest pipelined batch seen so far.
+     */
+    public int getMaxBatch() {
+        return maxBatch.get();
+    }
+
+    /**
+     * Stops accepting connections.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void accept() {
+        while (true) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                start(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket client = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream()));
+            OutputStream out = new BufferedOutputStream(client.getOutputStream());
+            if (!handshake(in, out))
+                return;
+
+            int[] sequence = new int[1];
+            byte[] command;
+            while ((command = readPacket(in, sequence)) != null) {
+                int batch = 0;
+                do {
+                    batch++;
+                    if (command[0] == 0x01)
+                        return;
+                    if (command[0] == 0x0e)
+                        writePacket(out, 1, ok(SERVER_STATUS_AUTOCOMMIT, 0));
+                    else
+                        query(out, new String(command, 1, command.length - 1, StandardCharsets.UTF_8));
+                } while (in.available() >= 4 && (command = readPacket(in, sequence)) != null);
+                maxBatch.accumulateAndGet(batch, Math::max);
+                out.flush();
+            }
+        } catch (SocketException | EOFException e) {
+            // the client went away
+        } catch (IOException | GeneralSecurityException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean handshake(DataInputStream in, OutputStream out) throws IOException, GeneralSecurityException {
+        byte[] seed = new byte[20];
+        new Random().nextBytes(seed);
+        for (int index = 0; index < seed.length; index++) {
+            if (seed[index] == 0)
+                seed[index] = 1;
+        }
+
+        writePacket(out, 0, concat(new byte[] { 10 }, bytes("5.5.5-10.11.6-MariaDB-stub\0"),
+                new byte[] { 1, 0, 0, 0 }, Arrays.copyOf(seed, 8),
+                new byte[] { 0, (byte) CLIENT_CAPABILITIES, (byte) (CLIENT_CAPABILITIES >> 8), 45,
+                        SERVER_STATUS_AUTOCOMMIT, 0, (byte) (CLIENT_CAPABILITIES >> 16),
+                        (byte) (CLIENT_CAPABILITIES >> 24), 21 },
+                new byte[10], Arrays.copyOfRange(seed, 8, 20), new byte[] { 0 }, bytes(plugin + "\0")));
+        out.flush();
+
+        int[] sequence = new int[1];
+        byte[] response = readPacket(in, sequence);
+        if (response == null)
+            return false;
+        // capabilities, max packet size, charset and filler, then the NUL-terminated user
+        int position = 32;
+        while (response[position] != 0)
+            position++;
+        position++;
+        int length = response[position++] & 0xFF;
+        byte[] scramble = Arrays.copyOfRange(response, position, position + length);
+
+        int next = sequence[0] + 1;
+        boolean sha2 = plugin.equals("caching_sha2_password");
+        if (!(sha2 ? verifySha256(scramble, seed) : verifySha1(scramble, seed))) {
+            writePacket(out, next, concat(new byte[] { (byte) 0xFF, 0x15, 0x04, '#' }, bytes("28000Access denied")));
+            out.flush();
+            return false;
+        }
+        if (sha2)
+            writePacket(out, next++, new byte[] { 0x01, 0x03 }); // fast authentication succeeded
+        writePacket(out, next, ok(SERVER_STATUS_AUTOCOMMIT, 0));
+        out.flush();
+        return true;
+    }
+
+    private void query(OutputStream out, String sql) throws IOException {
+        String[] statements = sql.split(";");
+        int sequence = 1;
+        for (int index = 0; index < statements.length; index++) {
+            String statement = statements[index].trim();
+            int status = SERVER_STATUS_AUTOCOMMIT
+                    | (index < statements.length - 1 ? SERVER_MORE_RESULTS_EXISTS : 0);
+
+            if (statement.startsWith("FAIL")) {
+                writePacket(out, sequence, concat(new byte[] { (byte) 0xFF, (byte) 0xBD, 0x04, '#' },
+                        bytes("40001Deadlock found when trying to get lock")));
+                return;
+            }
+            if (statement.startsWith("INSERT")) {
+                writePacket(out, sequence++, ok(status, 1));
+                continue;
+            }
+            if (!statement.startsWith("SELECT")) {
+                writePacket(out, sequence++, ok(status, 0));
+                continue;
+            }
+
+            String value = unquote(statement.substring(6).trim());
+            writePacket(out, sequence++, new byte[] { 1 });
+            writePacket(out, sequence++, concat(lengthEncoded("def"), lengthEncoded(""), lengthEncoded(""),
+                    lengthEncoded(""), lengthEncoded("v"), lengthEncoded("v"),
+                    new byte[] { 0x0c, 45, 0, 10, 0, 0, 0, (byte) 253, 0, 0, 0, 0, 0 }));
+            writePacket(out, sequence++, eof(SERVER_STATUS_AUTOCOMMIT));
+            writePacket(out, sequence++, value.equals("NULL") ? new byte[] { (byte) 0xFB } : lengthEncoded(value));
+            writePacket(out, sequence++, eof(status));
+        }
+    }
+
+    private boolean verifySha1(byte[] scramble, byte[] seed) throws GeneralSecurityException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        byte[] stage1 = digest.digest(bytes(password));
+        byte[] stage2 = digest.digest(stage1);
+        digest.update(seed);
+        digest.update(stage2);
+        return matches(scramble, digest.digest(), stage2, "SHA-1");
+    }
+
+    private boolean verifySha256(byte[] scramble, byte[] seed) throws GeneralSecurityException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] stage1 = digest.digest(bytes(password));
+        byte[] stage2 = digest.digest(stage1);
+        digest.update(stage2);
+        digest.update(seed);
+        return matches(scramble, digest.digest(), stage2, "SHA-256");
+    }
+
+    /**
+     * Recovers the first hash of the password from the scramble and checks that
+     * it hashes to the stored second hash.
+     */
+    private static boolean matches(byte[] scramble, byte[] mask, byte[] stage2, String algorithm)
+            throws GeneralSecurityException {
+        if (scramble.length != mask.length)
+            return false;
+        byte[] stage1 = new byte[mask.length];
+        for (int index = 0; index < mask.length; index++)
+            stage1[index] = (byte) (scramble[index] ^ mask[index]);
+        return MessageDigest.isEqual(MessageDigest.getInstance(algorithm).digest(stage1), stage2);
+    }
+
+    private static byte[] readPacket(DataInputStream in, int[] sequence) throws IOException {
+        byte[] header = new byte[4];
+        try {
+            in.readFully(header);
+        } catch (EOFException e) {
+            return null;
+        }
+        int length = (header[0] & 0xFF) | (header[1] & 0xFF) << 8 | (header[2] & 0xFF) << 16;
+        sequence[0] = header[3] & 0xFF;
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    private static void writePacket(OutputStream out, int sequence, byte[] payload) throws IOException {
+        out.write(new byte[] { (byte) payload.length, (byte) (payload.length >> 8), (byte) (payload.length >> 16),
+                (byte) sequence });
+        out.write(payload);
+    }
+
+    private static byte[] ok(int status, int affectedRows) {
+        return new byte[] { 0, (byte) affectedRows, 0, (byte) status, (byte) (status >> 8), 0, 0 };
+    }
+
+    private static byte[] eof(int status) {
+        return new byte[] { (byte) 0xFE, 0, 0, (byte) status, (byte) (status >> 8) };
+    }
+
+    /**
+     * Turns an inlined string literal back into its value.
+     */
+    private static String unquote(String literal) {
+        if (literal.length() < 2 || !literal.startsWith("'") || !literal.endsWith("'"))
+            return literal;
+        return literal.substring(1, literal.length() - 1).replace("''", "'").replace("\\\\", "\\");
+    }
+
+    private static byte[] lengthEncoded(String value) {
+        byte[] encoded = bytes(value);
+        return concat(new byte[] { (byte) encoded.length }, encoded);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts)
+            out.write(part, 0, part.length);
+        return out.toByteArray();
+    }
+
+    private static void start(Runnable task) {
+        Thread thread = new Thread(task, "wire-stub");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}